@@ -0,0 +1,119 @@
+///usr/bin/env jbang "$0" "$@" ; exit $?
+//DEPS org.zeroturnaround:zt-exec:1.12
+//DEPS com.fasterxml.jackson.core:jackson-databind:2.17.1
+//DEPS org.springaicommunity:claude-code-sdk:1.0.0-SNAPSHOT
+//REPOS mavenlocal,mavencentral,central-snapshots=https://central.sonatype.com/repository/maven-snapshots/
+//JAVA 21
+//SOURCES jbang-lib/IntegrationTestUtils.java
+//SOURCES jbang-lib/AIValidator.java
+//SOURCES jbang-lib/LogAssertions.java
+//SOURCES jbang-lib/LogCapture.java
+//SOURCES jbang-lib/PerfHistory.java
+//SOURCES jbang-lib/SuiteRunner.java
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the whole suite from one JVM: one reactor build, then all modules
+ * concurrently, each in its own java process started in the repository root,
+ * with per-module logs and timings.
+ *
+ * Usage:
+ *   cd integration-testing
+ *   jbang RunAllIntegrationTests.java [--parallel N] [--batch] [module-id ...]
+ */
+public class RunAllIntegrationTests {
+
+    private static final int DEFAULT_PARALLEL = 6;
+
+    public static void main(String... args) throws Exception {
+        int parallel = DEFAULT_PARALLEL;
+        boolean batch = false;
+        List<String> moduleIds = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--parallel" -> parallel = Integer.parseInt(args[++i]);
+                case "--batch" -> batch = true;
+                case "--help", "-h" -> {
+                    printUsage();
+                    System.exit(0);
+                }
+                default -> moduleIds.add(args[i]);
+            }
+        }
+        if (moduleIds.isEmpty()) {
+            moduleIds = allConfiguredModules();
+        }
+
+        System.out.println("═".repeat(72));
+        System.out.println(" Integration Tests (single JVM) - " + moduleIds.size() +
+            " module(s), parallel " + parallel);
+        System.out.println("═".repeat(72));
+
+        List<IntegrationTestUtils.ExampleInfo> configs = new ArrayList<>();
+        for (String moduleId : moduleIds) {
+            configs.add(IntegrationTestUtils.loadConfig(moduleId));
+        }
+
+        SuiteRunner runner = new SuiteRunner(IntegrationTestUtils.findRepoRoot(), parallel, batch);
+
+        long start = System.nanoTime();
+        System.out.println("\n🏗️  Building reactor once...");
+        runner.buildReactor();
+        long buildMs = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("✅ Build complete in %.1fs%n%n", buildMs / 1000.0);
+
+        List<SuiteRunner.ModuleResult> results = runner.runAll(configs);
+        if (batch) {
+            results = runner.validateBatched(results, configs);
+        }
+        long wallMs = (System.nanoTime() - start) / 1_000_000;
+
+        SuiteRunner.printTimings(results, wallMs);
+
+        List<SuiteRunner.ModuleResult> failed = results.stream()
+            .filter(r -> r.status() != SuiteRunner.Status.PASSED && r.status() != SuiteRunner.Status.SKIPPED)
+            .toList();
+        System.out.println();
+        if (failed.isEmpty()) {
+            System.out.println("🎉 All tests passed!");
+            System.exit(0);
+        }
+        System.out.println("❌ Failed modules:");
+        for (SuiteRunner.ModuleResult r : failed) {
+            System.out.println("  - " + r.moduleId() + " (" + r.status() + "): " + r.detail() +
+                (r.logFile() != null ? "\n    log: " + r.logFile().toAbsolutePath() : ""));
+        }
+        System.exit(1);
+    }
+
+    private static List<String> allConfiguredModules() throws Exception {
+        try (var stream = Files.list(Path.of("configs"))) {
+            return stream.map(p -> p.getFileName().toString())
+                .filter(name -> name.endsWith(".json"))
+                .map(name -> name.substring(0, name.length() - 5))
+                .sorted()
+                .toList();
+        }
+    }
+
+    private static void printUsage() {
+        System.out.println("""
+            Single-JVM Integration Test Runner
+
+            Usage: jbang RunAllIntegrationTests.java [--parallel N] [--batch] [module-id ...]
+
+            Builds the reactor once, then runs the modules concurrently, each in its own
+            java process started in the repository root, with output captured to
+            logs/<module>-<time>.log.
+
+            Options:
+              --parallel N    Maximum modules running at once (default: %d)
+              --batch         Validate all modules after they ran, several per model call
+              --help          Show this help message
+            """.formatted(DEFAULT_PARALLEL));
+    }
+}
@@ -6,6 +6,9 @@
 //JAVA 21
 //SOURCES jbang-lib/IntegrationTestUtils.java
 //SOURCES jbang-lib/AIValidator.java
+//SOURCES jbang-lib/LogAssertions.java
+//SOURCES jbang-lib/LogCapture.java
+//SOURCES jbang-lib/PerfHistory.java
 
 /**
  * Single entry point for running integration tests.
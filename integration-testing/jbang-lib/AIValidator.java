@@ -1,14 +1,41 @@
 /*
  * AI Validation using Claude Agent SDK Java.
  * Validates tutorial output by asking Claude to analyze if it demonstrates expected behavior.
+ *
+ * The prompt is built from a LogCapture's head and tail buffers, so the full log is
+ * never loaded into memory.
+ *
+ * Passing verdicts are cached in .validation-cache/, keyed by SHA-256 of (validator
+ * model, prompt templates, expected behavior, SHA-256 of the log output), so an
+ * unchanged passing module output is never sent to the model twice. Failing
+ * verdicts are not cached: a wrong FAIL would otherwise stick until the output
+ * changes. Set AI_VALIDATION_CACHE=off to always ask the model.
+ *
+ * validateBatch() validates several modules in one structured-output call.
  */
 
+import org.springaicommunity.claude.agent.sdk.ClaudeClient;
+import org.springaicommunity.claude.agent.sdk.ClaudeSyncClient;
 import org.springaicommunity.claude.agent.sdk.Query;
 import org.springaicommunity.claude.agent.sdk.QueryOptions;
+import org.springaicommunity.claude.agent.sdk.parsing.ParsedMessage;
+import org.springaicommunity.claude.agent.sdk.transport.CLIOptions;
+import org.springaicommunity.claude.agent.sdk.types.JsonSchema;
+import org.springaicommunity.claude.agent.sdk.types.ResultMessage;
 import com.fasterxml.jackson.databind.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 import static java.lang.System.*;
 
 public class AIValidator {
@@ -16,6 +43,27 @@ public class AIValidator {
     // Haiku model for fast, cost-effective validation (~$0.001 per validation)
     private static final String VALIDATION_MODEL = "claude-haiku-4-5-20251001";
     private static final Duration VALIDATION_TIMEOUT = Duration.ofSeconds(60);
+    private static final Duration BATCH_TIMEOUT = Duration.ofSeconds(180);
+    private static final int BATCH_SIZE = 8;
+    private static final int MAX_LOG_BYTES = 10000;
+    private static final int MAX_BATCH_LOG_BYTES = 6000;
+    private static final String PARSE_FAILED = "Response parsing failed";
+    private static final String SINGLE_SYSTEM_PROMPT =
+        "You are a tutorial validator. Analyze the output and respond ONLY with valid JSON.";
+    private static final String BATCH_SYSTEM_PROMPT = "You are a tutorial validator. Judge each module independently.";
+
+    private static final Path CACHE_DIR = Path.of(".validation-cache");
+    private static final boolean CACHE_ENABLED = !"off".equalsIgnoreCase(getenv("AI_VALIDATION_CACHE"));
+    private static final ObjectMapper mapper = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    // Editing a prompt, or how much of the log it carries, invalidates every cached verdict
+    private static final String PROMPT_VERSION = String.join("\u0000", SINGLE_SYSTEM_PROMPT, BATCH_SYSTEM_PROMPT,
+        buildValidationPrompt("", "", ""), buildBatchPrompt(List.of()), MAX_LOG_BYTES + ":" + MAX_BATCH_LOG_BYTES);
+
+    private static final LongAdder cacheHits = new LongAdder();
+    private static final LongAdder cacheMisses = new LongAdder();
+    private static final LongAdder modelCalls = new LongAdder();
 
     // Validation result record
     public record ValidationResult(
@@ -25,12 +73,81 @@ public class AIValidator {
         List<String> issues
     ) {}
 
+    // One module's output for validateBatch()
+    public record BatchItem(
+        String moduleId,
+        String moduleName,
+        LogCapture log,
+        String expectedBehavior
+    ) {}
+
     /**
      * Validate tutorial output using Claude.
      * Returns structured validation result with success/failure, confidence, and reasoning.
      */
     public static ValidationResult validate(String logOutput, String expectedBehavior, String moduleName) {
-        String prompt = buildValidationPrompt(logOutput, expectedBehavior, moduleName);
+        return validate(LogCapture.of(logOutput), expectedBehavior, moduleName);
+    }
+
+    /**
+     * Validate a closed log capture. Only its head and tail are sent to the model.
+     */
+    public static ValidationResult validate(LogCapture log, String expectedBehavior, String moduleName) {
+        String key = cacheKey(log.sha256(), expectedBehavior);
+        ValidationResult cached = readCache(key);
+        if (cached != null) {
+            return cached;
+        }
+        return callSingle(key, log, expectedBehavior, moduleName);
+    }
+
+    /**
+     * Validate several modules with one model call per BATCH_SIZE uncached modules.
+     * Returns verdicts keyed by module id, in input order. Modules the model leaves out
+     * of its verdict array fall back to a single-module call.
+     */
+    public static Map<String, ValidationResult> validateBatch(List<BatchItem> items) {
+        Map<String, ValidationResult> verdicts = new LinkedHashMap<>();
+        List<BatchItem> pending = new ArrayList<>();
+        for (BatchItem item : items) {
+            ValidationResult cached = readCache(cacheKey(item.log().sha256(), item.expectedBehavior()));
+            verdicts.put(item.moduleId(), cached);  // null placeholder keeps input order
+            if (cached == null) {
+                pending.add(item);
+            }
+        }
+
+        for (int from = 0; from < pending.size(); from += BATCH_SIZE) {
+            List<BatchItem> chunk = pending.subList(from, Math.min(from + BATCH_SIZE, pending.size()));
+            Map<String, ValidationResult> answered = chunk.size() > 1 ? callBatch(chunk) : Map.of();
+            for (BatchItem item : chunk) {
+                String key = cacheKey(item.log().sha256(), item.expectedBehavior());
+                ValidationResult result = answered.get(item.moduleId());
+                if (result != null) {
+                    writeCache(key, result);
+                } else {
+                    result = callSingle(key, item.log(), item.expectedBehavior(), item.moduleName());
+                }
+                verdicts.put(item.moduleId(), result);
+            }
+        }
+        return verdicts;
+    }
+
+    /**
+     * Cache hits, lookups and model calls since startup.
+     */
+    public static String cacheStats() {
+        long hits = cacheHits.sum();
+        long lookups = hits + cacheMisses.sum();
+        return String.format("cache hits %d/%d (%.0f%%), model calls %d%s",
+            hits, lookups, lookups == 0 ? 0.0 : 100.0 * hits / lookups, modelCalls.sum(),
+            CACHE_ENABLED ? "" : " [cache disabled]");
+    }
+
+    private static ValidationResult callSingle(String key, LogCapture log, String expectedBehavior,
+                                               String moduleName) {
+        String prompt = buildValidationPrompt(log.excerpt(MAX_LOG_BYTES), expectedBehavior, moduleName);
 
         try {
             QueryOptions options = QueryOptions.builder()
@@ -38,11 +155,16 @@ public class AIValidator {
                 .timeout(VALIDATION_TIMEOUT)
                 .maxTurns(1)  // No tool use needed for validation
                 .disallowedTools(List.of("Bash", "Write", "Edit", "Read", "Glob", "Grep"))
-                .appendSystemPrompt("You are a tutorial validator. Analyze the output and respond ONLY with valid JSON.")
+                .appendSystemPrompt(SINGLE_SYSTEM_PROMPT)
                 .build();
 
             String response = Query.text(prompt, options);
-            return parseResponse(response);
+            modelCalls.increment();
+            ValidationResult result = parseResponse(response);
+            if (!result.issues().contains(PARSE_FAILED)) {
+                writeCache(key, result);  // never cache a guessed verdict; writeCache skips failures too
+            }
+            return result;
 
         } catch (Exception e) {
             err.println("⚠️  AI validation error: " + e.getMessage());
@@ -56,15 +178,104 @@ public class AIValidator {
         }
     }
 
-    private static String buildValidationPrompt(String logOutput, String expectedBehavior, String moduleName) {
-        // Truncate very long outputs to avoid token limits
-        String truncatedOutput = logOutput;
-        if (logOutput.length() > 10000) {
-            truncatedOutput = logOutput.substring(0, 5000) +
-                "\n... [" + (logOutput.length() - 10000) + " chars truncated] ...\n" +
-                logOutput.substring(logOutput.length() - 5000);
+    @SuppressWarnings("unchecked")
+    private static Map<String, ValidationResult> callBatch(List<BatchItem> chunk) {
+        JsonSchema schema = JsonSchema.ofObject(
+            Map.of("verdicts", Map.of(
+                "type", "array",
+                "items", Map.of(
+                    "type", "object",
+                    "properties", Map.of(
+                        "moduleId", Map.of("type", "string"),
+                        "success", Map.of("type", "boolean"),
+                        "confidence", Map.of("type", "number"),
+                        "reasoning", Map.of("type", "string"),
+                        "issues", Map.of("type", "array", "items", Map.of("type", "string"))
+                    ),
+                    "required", List.of("moduleId", "success", "confidence", "reasoning")
+                )
+            )),
+            List.of("verdicts")
+        );
+
+        CLIOptions options = CLIOptions.builder()
+            .model(VALIDATION_MODEL)
+            .jsonSchema(schema.toMap())
+            .disallowedTools(List.of("Bash", "Write", "Edit", "Read", "Glob", "Grep"))
+            .appendSystemPrompt(BATCH_SYSTEM_PROMPT)
+            .build();
+
+        Map<String, ValidationResult> answered = new LinkedHashMap<>();
+        try (ClaudeSyncClient client = ClaudeClient.sync(options)
+                .workingDirectory(Path.of("."))
+                .timeout(BATCH_TIMEOUT)
+                .build()) {
+
+            client.connect(buildBatchPrompt(chunk));
+            modelCalls.increment();
+
+            Map<String, Object> output = null;
+            Iterator<ParsedMessage> response = client.receiveResponse();
+            while (response.hasNext()) {
+                ParsedMessage parsed = response.next();
+                if (parsed.isRegularMessage() && parsed.asMessage() instanceof ResultMessage result
+                        && result.hasStructuredOutput()) {
+                    output = result.getStructuredOutputAsMap();
+                }
+            }
+            if (output != null && output.get("verdicts") instanceof List<?> list) {
+                for (Object entry : list) {
+                    if (entry instanceof Map<?, ?> verdict && verdict.get("moduleId") != null) {
+                        answered.put(verdict.get("moduleId").toString(), fromMap((Map<String, Object>) verdict));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            err.println("⚠️  Batch validation error, falling back to single validation: " + e.getMessage());
+        }
+        return answered;
+    }
+
+    private static String buildBatchPrompt(List<BatchItem> chunk) {
+        StringBuilder modules = new StringBuilder();
+        for (BatchItem item : chunk) {
+            modules.append("""
+
+                ## Module id: %s (%s)
+
+                ### Expected Behavior:
+                %s
+
+                ### Actual Output:
+                ```
+                %s
+                ```
+                """.formatted(item.moduleId(), item.moduleName(), item.expectedBehavior(),
+                item.log().excerpt(MAX_BATCH_LOG_BYTES)));
         }
 
+        return """
+            You are a tutorial validator for the Claude Agent SDK Java tutorial.
+            Validate each of the following %d modules independently.
+            %s
+            ## Validation Task:
+            For each module, analyze if its output demonstrates its expected behavior.
+
+            Look for:
+            1. Module header present (=== Module NN: ===)
+            2. Expected functionality demonstrated based on the expected behavior description
+            3. Claude responses received (for SDK tutorials that interact with Claude)
+            4. Completion footer (=== Done ===)
+            5. No fatal errors, stack traces, or exceptions
+
+            Be lenient - the exact wording doesn't matter, only that the functionality was demonstrated.
+
+            Return one verdict per module id with success, confidence (0.0 to 1.0),
+            a one sentence reasoning and a list of issues (empty if none).
+            """.formatted(chunk.size(), modules);
+    }
+
+    private static String buildValidationPrompt(String truncatedOutput, String expectedBehavior, String moduleName) {
         return """
             You are a tutorial validator for the Claude Agent SDK Java tutorial.
 
@@ -101,24 +312,12 @@ public class AIValidator {
             """.formatted(moduleName, expectedBehavior, truncatedOutput);
     }
 
+    @SuppressWarnings("unchecked")
     private static ValidationResult parseResponse(String response) {
         try {
             // Extract JSON from response (Claude might include extra text)
             String jsonStr = extractJson(response);
-
-            ObjectMapper mapper = new ObjectMapper();
-            Map<String, Object> result = mapper.readValue(jsonStr, Map.class);
-
-            boolean success = Boolean.TRUE.equals(result.get("success"));
-            double confidence = result.get("confidence") instanceof Number n ? n.doubleValue() : 0.5;
-            String reasoning = result.get("reasoning") != null ? result.get("reasoning").toString() : "No reasoning provided";
-
-            @SuppressWarnings("unchecked")
-            List<String> issues = result.get("issues") instanceof List<?> list
-                ? list.stream().map(Object::toString).toList()
-                : List.of();
-
-            return new ValidationResult(success, confidence, reasoning, issues);
+            return fromMap(mapper.readValue(jsonStr, Map.class));
 
         } catch (Exception e) {
             // If we can't parse the response, try to infer from text content
@@ -128,11 +327,23 @@ public class AIValidator {
                 looksSuccessful,
                 0.5,
                 "Could not parse structured response: " + e.getMessage(),
-                List.of("Response parsing failed")
+                List.of(PARSE_FAILED)
             );
         }
     }
 
+    private static ValidationResult fromMap(Map<String, Object> result) {
+        boolean success = Boolean.TRUE.equals(result.get("success"));
+        double confidence = result.get("confidence") instanceof Number n ? n.doubleValue() : 0.5;
+        String reasoning = result.get("reasoning") != null ? result.get("reasoning").toString() : "No reasoning provided";
+
+        List<String> issues = result.get("issues") instanceof List<?> list
+            ? list.stream().map(Object::toString).toList()
+            : List.of();
+
+        return new ValidationResult(success, confidence, reasoning, issues);
+    }
+
     private static String extractJson(String response) {
         // Try to find JSON object in response
         int start = response.indexOf("{");
@@ -145,4 +356,52 @@ public class AIValidator {
         // If no braces found, return original (will fail parsing)
         return response;
     }
+
+    // Length-prefixed parts, so ("ab", "c") and ("a", "bc") never collide
+    private static String cacheKey(String logSha256, String expectedBehavior) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : new String[] {VALIDATION_MODEL, PROMPT_VERSION, expectedBehavior, logSha256}) {
+                byte[] bytes = (part != null ? part : "").getBytes(StandardCharsets.UTF_8);
+                digest.update((bytes.length + ":").getBytes(StandardCharsets.UTF_8));
+                digest.update(bytes);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot hash validation input", e);
+        }
+    }
+
+    private static ValidationResult readCache(String key) {
+        if (CACHE_ENABLED) {
+            Path file = CACHE_DIR.resolve(key + ".json");
+            if (Files.exists(file)) {
+                try {
+                    ValidationResult cached = mapper.readValue(file.toFile(), ValidationResult.class);
+                    cacheHits.increment();
+                    return cached;
+                } catch (Exception e) {
+                    // Unreadable entry: treat as a miss, it is overwritten after the model call
+                }
+            }
+        }
+        cacheMisses.increment();
+        return null;
+    }
+
+    // Only passes are stored, so a failing module is judged afresh on every run
+    private static void writeCache(String key, ValidationResult result) {
+        if (!CACHE_ENABLED || !result.success()) {
+            return;
+        }
+        try {
+            Files.createDirectories(CACHE_DIR);
+            Path tmp = Files.createTempFile(CACHE_DIR, key, ".tmp");
+            mapper.writeValue(tmp.toFile(), result);
+            Files.move(tmp, CACHE_DIR.resolve(key + ".json"),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            err.println("⚠️  Could not write validation cache: " + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * Deterministic log checks that run before AI validation.
+ *
+ * A config may contain an optional "assertions" section:
+ *
+ *   "assertions": {
+ *     "required":  ["Claude: .+"],                      // each must match some line
+ *     "forbidden": ["^\\s+at [\\w$.]+\\("],              // none may match any line
+ *     "ordered":   ["^=== Module 01", "^=== Done ==="],  // must match lines in this order
+ *     "decisive":  false                                 // true: passing checks skip the AI call
+ *   }
+ *
+ * Patterns are Java regexes applied to one line at a time. The log is streamed
+ * once, line by line. A failed check always decides the result (no model call);
+ * passing checks only decide it when "decisive" is true.
+ */
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+public class LogAssertions {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Assertions(
+        List<String> required,
+        List<String> forbidden,
+        List<String> ordered,
+        boolean decisive
+    ) {}
+
+    // decided: the AI validation can be skipped; passed is then the final verdict
+    public record Outcome(boolean passed, boolean decided, List<String> failures) {
+
+        static Outcome undecided() {
+            return new Outcome(true, false, List.of());
+        }
+    }
+
+    private static final LongAdder evaluated = new LongAdder();
+    private static final LongAdder modelCallsAvoided = new LongAdder();
+
+    /**
+     * Check the log against the config's assertions. Configs without assertions are never decided.
+     */
+    public static Outcome evaluate(Path logFile, Assertions assertions) throws IOException {
+        if (assertions == null) {
+            return Outcome.undecided();
+        }
+        evaluated.increment();
+
+        Pattern[] required = compile(assertions.required());
+        Pattern[] forbidden = compile(assertions.forbidden());
+        Pattern[] ordered = compile(assertions.ordered());
+
+        boolean[] found = new boolean[required.length];
+        int remaining = required.length;
+        int nextOrdered = 0;
+        List<String> failures = new ArrayList<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                for (int i = 0; remaining > 0 && i < required.length; i++) {
+                    if (!found[i] && required[i].matcher(line).find()) {
+                        found[i] = true;
+                        remaining--;
+                    }
+                }
+                for (Pattern p : forbidden) {
+                    if (p.matcher(line).find() && failures.size() < 10) {
+                        failures.add("forbidden /" + p + "/ at line " + lineNumber + ": " + abbreviate(line));
+                    }
+                }
+                // Several ordered patterns may be satisfied by the same line
+                while (nextOrdered < ordered.length && ordered[nextOrdered].matcher(line).find()) {
+                    nextOrdered++;
+                }
+            }
+        }
+
+        for (int i = 0; i < required.length; i++) {
+            if (!found[i]) {
+                failures.add("required /" + required[i] + "/ not found");
+            }
+        }
+        if (nextOrdered < ordered.length) {
+            failures.add("ordered /" + ordered[nextOrdered] + "/ not found after " +
+                (nextOrdered == 0 ? "start of log" : "/" + ordered[nextOrdered - 1] + "/"));
+        }
+
+        Outcome outcome = new Outcome(failures.isEmpty(), !failures.isEmpty() || assertions.decisive(), failures);
+        if (outcome.decided()) {
+            modelCallsAvoided.increment();
+        }
+        return outcome;
+    }
+
+    /**
+     * Logs checked and model calls avoided since startup.
+     */
+    public static String stats() {
+        return "deterministic checks on " + evaluated.sum() + " log(s), model calls avoided " +
+            modelCallsAvoided.sum();
+    }
+
+    private static Pattern[] compile(List<String> patterns) {
+        return patterns == null ? new Pattern[0] : patterns.stream().map(Pattern::compile).toArray(Pattern[]::new);
+    }
+
+    private static String abbreviate(String line) {
+        String trimmed = line.strip();
+        return trimmed.length() > 120 ? trimmed.substring(0, 117) + "..." : trimmed;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Bounded-memory log capture.
+ *
+ * Module output is streamed to three places as it is written:
+ * - the full log file on disk (never read back into memory)
+ * - a fixed-size head buffer with the first bytes
+ * - a ring buffer with the last bytes
+ *
+ * A SHA-256 of the complete output is computed on the fly, so the validation
+ * cache can key on the full log without loading it. The time from creation to
+ * the first complete line is kept for performance baselines. Memory use is
+ * headBytes + tailBytes regardless of how much a module prints.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public class LogCapture extends OutputStream {
+
+    public static final int DEFAULT_HEAD_BYTES = 5000;
+    public static final int DEFAULT_TAIL_BYTES = 5000;
+
+    private final Path file;
+    private final OutputStream fileOut;
+    private final byte[] head;
+    private final byte[] tail;
+    private final MessageDigest digest;
+    private final long createdNanos = System.nanoTime();
+    private long firstLineNanos = -1;
+
+    private int headSize;
+    private long tailWritten;  // bytes written past the head, the ring keeps the last tail.length
+    private String sha256;
+
+    public LogCapture(Path file) throws IOException {
+        this(file, DEFAULT_HEAD_BYTES, DEFAULT_TAIL_BYTES);
+    }
+
+    // file may be null for an in-memory capture of head and tail only
+    public LogCapture(Path file, int headBytes, int tailBytes) throws IOException {
+        this.file = file;
+        this.fileOut = file != null ? new BufferedOutputStream(Files.newOutputStream(file)) : null;
+        this.head = new byte[headBytes];
+        this.tail = new byte[tailBytes];
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Capture an existing log file by streaming it once.
+     */
+    public static LogCapture of(Path existingLog) throws IOException {
+        LogCapture capture = new LogCapture(null);
+        try (InputStream in = Files.newInputStream(existingLog)) {
+            in.transferTo(capture);
+        }
+        capture.close();
+        return capture;
+    }
+
+    /**
+     * Capture a string that is already in memory (only head and tail are kept).
+     */
+    public static LogCapture of(String output) {
+        try {
+            LogCapture capture = new LogCapture(null);
+            capture.write(output.getBytes(StandardCharsets.UTF_8));
+            capture.close();
+            return capture;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);  // cannot happen without a file
+        }
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        if (fileOut != null) {
+            fileOut.write(b, off, len);
+        }
+        digest.update(b, off, len);
+        if (firstLineNanos < 0) {
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    firstLineNanos = System.nanoTime();
+                    break;
+                }
+            }
+        }
+
+        int toHead = Math.min(len, head.length - headSize);
+        System.arraycopy(b, off, head, headSize, toHead);
+        headSize += toHead;
+        off += toHead;
+        len -= toHead;
+        if (len == 0 || tail.length == 0) {
+            tailWritten += len;
+            return;
+        }
+
+        // Only the last tail.length bytes of this write can survive in the ring
+        if (len > tail.length) {
+            tailWritten += len - tail.length;
+            off += len - tail.length;
+            len = tail.length;
+        }
+        int pos = (int) (tailWritten % tail.length);
+        int first = Math.min(len, tail.length - pos);
+        System.arraycopy(b, off, tail, pos, first);
+        System.arraycopy(b, off + first, tail, 0, len - first);
+        tailWritten += len;
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if (fileOut != null) {
+            fileOut.flush();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (sha256 == null) {
+            sha256 = HexFormat.of().formatHex(digest.digest());
+        }
+        if (fileOut != null) {
+            fileOut.close();
+        }
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * Milliseconds from creation until the first complete line was written, or null if none was.
+     */
+    public synchronized Long millisToFirstLine() {
+        return firstLineNanos < 0 ? null : (firstLineNanos - createdNanos) / 1_000_000;
+    }
+
+    public synchronized long totalBytes() {
+        return headSize + tailWritten;
+    }
+
+    /**
+     * SHA-256 of everything written. Only available after close().
+     */
+    public synchronized String sha256() {
+        if (sha256 == null) {
+            throw new IllegalStateException("Log capture still open");
+        }
+        return sha256;
+    }
+
+    public synchronized String head() {
+        return new String(head, 0, headSize, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The complete output if it fit into head + tail, otherwise the first and last
+     * bytes (at most maxBytes / 2 each) joined by a truncation marker.
+     */
+    public synchronized String excerpt(int maxBytes) {
+        int tailSize = (int) Math.min(tailWritten, tail.length);
+        if (tailWritten == tailSize && headSize + tailSize <= maxBytes) {
+            return head() + new String(lastBytes(tailSize), StandardCharsets.UTF_8);
+        }
+        int headPart = Math.min(headSize, maxBytes / 2);
+        int tailPart = Math.min(tailSize, maxBytes / 2);
+        long omitted = totalBytes() - headPart - tailPart;
+
+        byte[] last = lastBytes(tailPart);
+        int start = 0;
+        while (start < last.length && (last[start] & 0xC0) == 0x80) {
+            start++;  // do not begin inside a multi-byte UTF-8 character
+        }
+        return new String(head, 0, headPart, StandardCharsets.UTF_8) +
+            "\n... [" + omitted + " bytes truncated] ...\n" +
+            new String(last, start, last.length - start, StandardCharsets.UTF_8);
+    }
+
+    private byte[] lastBytes(int count) {
+        byte[] out = new byte[count];
+        if (count == 0) {
+            return out;
+        }
+        int end = (int) (tailWritten % tail.length);  // one past the newest byte
+        int start = Math.floorMod(end - count, tail.length);
+        int first = Math.min(count, tail.length - start);
+        System.arraycopy(tail, start, out, 0, first);
+        System.arraycopy(tail, 0, out, first, count - first);
+        return out;
+    }
+}
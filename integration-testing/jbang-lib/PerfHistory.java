@@ -0,0 +1,280 @@
+/*
+ * Performance history for integration runs.
+ *
+ * Every module run appends one JSON line to perf-history.jsonl:
+ *
+ *   {"timestamp":"...","moduleId":"module-03-sync-client","completed":true,"wallMs":41234,
+ *    "firstOutputMs":2210,"cliProcesses":2,"costUsd":0.0123,"inputTokens":1520,"outputTokens":310}
+ *
+ * Cost and tokens are parsed from the module log ("[Cost: $...]", "Cost: $...",
+ * "Input tokens: N", "Output tokens: N"). A cost line is the session's running
+ * total, so multi-turn modules print it growing after each turn: each session
+ * counts with its last cost line, and a cost lower than the previous line starts
+ * a new session. CLI processes are counted by sampling the
+ * descendants of this JVM; the count is omitted when modules run concurrently.
+ *
+ * Each new sample is compared with the median of the last BASELINE_RUNS completed
+ * runs of the same module. A metric more than the threshold above its baseline is
+ * flagged. The threshold defaults to 25% (PERF_REGRESSION_THRESHOLD=0.25) and can
+ * be overridden per module with "perfThreshold" in the config.
+ */
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.ToDoubleFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class PerfHistory {
+
+    private static final Path HISTORY_FILE = Path.of("perf-history.jsonl");
+    private static final int BASELINE_RUNS = 5;
+    private static final double DEFAULT_THRESHOLD = parseThreshold(System.getenv("PERF_REGRESSION_THRESHOLD"));
+
+    private static final Pattern COST = Pattern.compile("Cost: \\$(\\d+(?:\\.\\d+)?)");
+    private static final Pattern INPUT_TOKENS = Pattern.compile("Input tokens: (\\d+)");
+    private static final Pattern OUTPUT_TOKENS = Pattern.compile("Output tokens: (\\d+)");
+
+    private static final ObjectMapper mapper = new ObjectMapper()
+        .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private static final ConcurrentLinkedQueue<String> flagged = new ConcurrentLinkedQueue<>();
+
+    // One module run; null fields were not measured
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Sample(
+        String timestamp,
+        String moduleId,
+        boolean completed,
+        long wallMs,
+        Long firstOutputMs,
+        Integer cliProcesses,
+        Double costUsd,
+        Long inputTokens,
+        Long outputTokens
+    ) {}
+
+    /**
+     * Build a sample from a finished run, streaming the log once for cost and token lines.
+     */
+    public static Sample measure(String moduleId, boolean completed, long wallMs, LogCapture log,
+                                 Integer cliProcesses) throws IOException {
+        double cost = 0;          // sessions already ended
+        double sessionCost = 0;   // last cost line of the current session
+        long input = 0;
+        long output = 0;
+        boolean sawCost = false;
+        boolean sawTokens = false;
+
+        try (BufferedReader reader = Files.newBufferedReader(log.file(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.indexOf("Cost: $") >= 0) {
+                    Matcher m = COST.matcher(line);
+                    if (m.find()) {
+                        double total = Double.parseDouble(m.group(1));
+                        if (total < sessionCost) {
+                            cost += sessionCost;
+                        }
+                        sessionCost = total;
+                        sawCost = true;
+                    }
+                } else if (line.indexOf(" tokens: ") >= 0) {
+                    Matcher in = INPUT_TOKENS.matcher(line);
+                    Matcher out = OUTPUT_TOKENS.matcher(line);
+                    if (in.find()) {
+                        input += Long.parseLong(in.group(1));
+                        sawTokens = true;
+                    }
+                    if (out.find()) {
+                        output += Long.parseLong(out.group(1));
+                        sawTokens = true;
+                    }
+                }
+            }
+        }
+        return new Sample(Instant.now().toString(), moduleId, completed, wallMs, log.millisToFirstLine(),
+            cliProcesses, sawCost ? cost + sessionCost : null, sawTokens ? input : null, sawTokens ? output : null);
+    }
+
+    /**
+     * Compare with the rolling baseline, remember any regressions, then append the sample.
+     * Returns the regressions found (empty when none or when there is no baseline yet).
+     */
+    public static synchronized List<String> record(Sample sample, Double moduleThreshold) throws IOException {
+        double threshold = moduleThreshold != null ? moduleThreshold : DEFAULT_THRESHOLD;
+        List<String> regressions = sample.completed()
+            ? compare(sample, baseline(sample.moduleId()), threshold)
+            : List.of();
+        for (String regression : regressions) {
+            flagged.add(sample.moduleId() + ": " + regression);
+        }
+
+        Files.writeString(HISTORY_FILE, mapper.writeValueAsString(sample) + "\n", StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return regressions;
+    }
+
+    /**
+     * All regressions flagged since startup, as "module: metric ..." lines.
+     */
+    public static List<String> flagged() {
+        return List.copyOf(flagged);
+    }
+
+    // Last BASELINE_RUNS completed samples of the module, streamed from the history file
+    private static List<Sample> baseline(String moduleId) throws IOException {
+        Deque<Sample> recent = new ArrayDeque<>(BASELINE_RUNS);
+        if (!Files.exists(HISTORY_FILE)) {
+            return List.of();
+        }
+        String marker = "\"moduleId\":\"" + moduleId + "\"";
+        try (BufferedReader reader = Files.newBufferedReader(HISTORY_FILE, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.contains(marker)) {
+                    continue;  // cheap filter before parsing
+                }
+                try {
+                    Sample s = mapper.readValue(line, Sample.class);
+                    if (s.completed()) {
+                        if (recent.size() == BASELINE_RUNS) {
+                            recent.removeFirst();
+                        }
+                        recent.addLast(s);
+                    }
+                } catch (IOException e) {
+                    // Skip a corrupt line rather than losing the whole history
+                }
+            }
+        }
+        return new ArrayList<>(recent);
+    }
+
+    private static List<String> compare(Sample current, List<Sample> history, double threshold) {
+        List<String> regressions = new ArrayList<>();
+        if (history.isEmpty()) {
+            return regressions;
+        }
+        // Absolute floors keep tiny numbers (a few ms, fractions of a cent) from being flagged
+        check("wall clock", current.wallMs(), history, s -> s.wallMs(), 1000, "%.0f ms", threshold, regressions);
+        check("time to first output", current.firstOutputMs(), history,
+            s -> s.firstOutputMs() != null ? s.firstOutputMs() : Double.NaN, 500, "%.0f ms", threshold, regressions);
+        check("CLI processes", current.cliProcesses(), history,
+            s -> s.cliProcesses() != null ? s.cliProcesses() : Double.NaN, 1, "%.0f", threshold, regressions);
+        check("cost", current.costUsd(), history,
+            s -> s.costUsd() != null ? s.costUsd() : Double.NaN, 0.001, "$%.4f", threshold, regressions);
+        check("tokens", tokens(current), history,
+            s -> tokens(s) != null ? tokens(s) : Double.NaN, 200, "%.0f", threshold, regressions);
+        return regressions;
+    }
+
+    private static void check(String metric, Number current, List<Sample> history, ToDoubleFunction<Sample> value,
+                              double floor, String format, double threshold, List<String> regressions) {
+        if (current == null) {
+            return;
+        }
+        double[] values = history.stream().mapToDouble(value).filter(v -> !Double.isNaN(v)).sorted().toArray();
+        if (values.length == 0) {
+            return;
+        }
+        double median = values.length % 2 == 1
+            ? values[values.length / 2]
+            : (values[values.length / 2 - 1] + values[values.length / 2]) / 2;
+        double now = current.doubleValue();
+        if (now > median * (1 + threshold) && now - median >= floor) {
+            regressions.add(String.format("%s " + format + " vs baseline " + format + " (+%.0f%%, median of %d runs)",
+                metric, now, median, median == 0 ? 100.0 : (now / median - 1) * 100, values.length));
+        }
+    }
+
+    private static Long tokens(Sample s) {
+        return s.inputTokens() == null && s.outputTokens() == null ? null
+            : (s.inputTokens() != null ? s.inputTokens() : 0) + (s.outputTokens() != null ? s.outputTokens() : 0);
+    }
+
+    private static double parseThreshold(String value) {
+        try {
+            return value != null ? Double.parseDouble(value) : 0.25;
+        } catch (NumberFormatException e) {
+            return 0.25;
+        }
+    }
+
+    /**
+     * Counts distinct Claude CLI processes below this JVM while a module runs.
+     * Only meaningful when one module runs at a time.
+     */
+    public static class ProcessSampler implements AutoCloseable {
+
+        private static final Duration INTERVAL = Duration.ofMillis(100);
+
+        private final Set<Long> seen = ConcurrentHashMap.newKeySet();
+        private final Thread thread;
+
+        public ProcessSampler() {
+            this.thread = Thread.ofVirtual().name("cli-process-sampler").start(() -> {
+                try {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        sample();
+                        Thread.sleep(INTERVAL);
+                    }
+                } catch (InterruptedException e) {
+                    // stopped
+                }
+            });
+        }
+
+        private void sample() {
+            ProcessHandle.current().descendants()
+                .filter(ProcessSampler::isCli)
+                .forEach(p -> seen.add(p.pid()));
+        }
+
+        // The native "claude" binary, or node running the npm package's cli.js
+        private static boolean isCli(ProcessHandle process) {
+            ProcessHandle.Info info = process.info();
+            if (info.command().map(c -> Path.of(c).getFileName().toString().equals("claude")).orElse(false)) {
+                return true;
+            }
+            String[] args = info.arguments().orElse(new String[0]);
+            return args.length > 0 && (args[0].endsWith("/claude") || args[0].contains("@anthropic-ai/claude-code"));
+        }
+
+        /**
+         * Stop sampling and return the number of distinct CLI processes seen.
+         */
+        public int stop() {
+            thread.interrupt();
+            try {
+                thread.join(INTERVAL.multipliedBy(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sample();
+            return seen.size();
+        }
+
+        @Override
+        public void close() {
+            thread.interrupt();
+        }
+    }
+}
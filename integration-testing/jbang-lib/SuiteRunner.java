@@ -0,0 +1,353 @@
+/*
+ * Single-build suite runner.
+ *
+ * Instead of one JBang JVM, one Maven build and one exec:java JVM per module,
+ * the suite builds the reactor once and starts every module's main class
+ * directly:
+ *
+ * - Build: one `mvn compile dependency:build-classpath` over the whole reactor
+ * - Isolation: each module runs in its own `java` child process, started in the
+ *   repository root like `mvn exec:java -pl <module>` was, so relative paths and
+ *   workingDirectory(Path.of(".")) resolve as they do when run by hand
+ * - Concurrency: modules are started from virtual threads, limited by --parallel
+ * - Output: the child's stdout and stderr are streamed into the module's LogCapture
+ * - Timeouts: each config's timeoutSec is enforced by destroying the child and
+ *   every process it started
+ * - Validation: deterministic log assertions first, then AI validation per module
+ *   as soon as it finishes, or in batches after all modules ran
+ */
+
+import org.zeroturnaround.exec.ProcessExecutor;
+import org.zeroturnaround.exec.ProcessResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class SuiteRunner {
+
+    private static final String CLASSPATH_FILE = "target/it-classpath.txt";
+    private static final Pattern MAIN_CLASS = Pattern.compile("<mainClass>\\s*([^<\\s]+)\\s*</mainClass>");
+    private static final Duration DESTROY_GRACE = Duration.ofSeconds(5);
+
+    // RAN: finished without error, verdict pending batch validation
+    public enum Status { PASSED, FAILED, TIMEOUT, ERROR, SKIPPED, RAN }
+
+    // Timings in milliseconds; validateMs is 0 when validation did not run
+    public record ModuleResult(
+        String moduleId,
+        Status status,
+        long runMs,
+        long validateMs,
+        Path logFile,
+        String detail
+    ) {}
+
+    private static final PrintStream CONSOLE = System.out;
+
+    // Closed captures of modules awaiting batch validation
+    private final Map<String, LogCapture> captures = new ConcurrentHashMap<>();
+
+    private final Path repoRoot;
+    private final int parallel;
+    private final Semaphore slots;
+    private final boolean batchValidation;
+
+    public SuiteRunner(Path repoRoot, int parallel, boolean batchValidation) {
+        this.repoRoot = repoRoot;
+        this.parallel = parallel;
+        this.slots = new Semaphore(parallel);
+        this.batchValidation = batchValidation;
+    }
+
+    // Build every module once and write each module's runtime classpath
+    public void buildReactor() throws Exception {
+        ProcessResult result = new ProcessExecutor()
+            .command("mvn", "-q", "-DskipTests", "compile", "dependency:build-classpath",
+                     "-Dmdep.outputFile=" + CLASSPATH_FILE, "-Dmdep.includeScope=runtime")
+            .directory(repoRoot.toFile())
+            .timeout(600, TimeUnit.SECONDS)
+            .redirectOutput(CONSOLE)
+            .redirectError(System.err)
+            .execute();
+        if (result.getExitValue() != 0) {
+            throw new RuntimeException("Reactor build failed");
+        }
+    }
+
+    // Run all modules concurrently; results are returned in config order
+    public List<ModuleResult> runAll(List<IntegrationTestUtils.ExampleInfo> configs) throws InterruptedException {
+        List<ModuleResult> results = new ArrayList<>(configs.size());
+        List<Thread> workers = new ArrayList<>(configs.size());
+        Set<Long> before = descendantPids();
+        ModuleResult[] byIndex = new ModuleResult[configs.size()];
+
+        for (int i = 0; i < configs.size(); i++) {
+            int index = i;
+            IntegrationTestUtils.ExampleInfo cfg = configs.get(i);
+            workers.add(Thread.ofVirtual().name("suite-" + cfg.moduleId()).start(() -> {
+                try {
+                    slots.acquire();
+                    try {
+                        byIndex[index] = runAndValidate(cfg);
+                    } finally {
+                        slots.release();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        // Whatever is still running was left behind by a module that timed out
+        destroyStartedSince(before);
+        for (int i = 0; i < configs.size(); i++) {
+            results.add(byIndex[i] != null ? byIndex[i]
+                : new ModuleResult(configs.get(i).moduleId(), Status.ERROR, 0, 0, null, "Runner interrupted"));
+        }
+        return results;
+    }
+
+    private ModuleResult runAndValidate(IntegrationTestUtils.ExampleInfo cfg) {
+        String moduleId = cfg.moduleId();
+        String missing = missingEnv(cfg);
+        if (missing != null) {
+            CONSOLE.println("⏭️  " + moduleId + ": missing " + missing);
+            return new ModuleResult(moduleId, Status.SKIPPED, 0, 0, null, "Missing environment variable " + missing);
+        }
+
+        Path logFile;
+        LogCapture log;
+        long runMs;
+        ModuleResult failure;
+        try {
+            logFile = IntegrationTestUtils.createLogFile(moduleId);
+            log = new LogCapture(logFile);
+            CONSOLE.println("🚀 " + moduleId + " started");
+            long start = System.nanoTime();
+            // CLI processes cannot be attributed to a module when several run at once
+            Integer cliProcesses = null;
+            try (PerfHistory.ProcessSampler sampler = parallel == 1 ? new PerfHistory.ProcessSampler() : null) {
+                failure = runModule(cfg, log);
+                cliProcesses = sampler != null ? sampler.stop() : null;
+            } finally {
+                log.close();
+            }
+            runMs = (System.nanoTime() - start) / 1_000_000;
+            IntegrationTestUtils.recordPerformance(cfg, failure == null, runMs, log, cliProcesses);
+        } catch (Exception e) {
+            return new ModuleResult(moduleId, Status.ERROR, 0, 0, null, e.toString());
+        }
+        if (failure != null) {
+            ModuleResult result = new ModuleResult(moduleId, failure.status(), runMs, 0, logFile, failure.detail());
+            CONSOLE.printf("❌ %s %s after %.1fs: %s%n", moduleId, result.status(), runMs / 1000.0, result.detail());
+            return result;
+        }
+
+        LogAssertions.Outcome checks;
+        try {
+            checks = LogAssertions.evaluate(logFile, cfg.assertions());
+        } catch (IOException e) {
+            return new ModuleResult(moduleId, Status.ERROR, runMs, 0, logFile, "Cannot read log: " + e.getMessage());
+        }
+        if (checks.decided()) {
+            Status status = checks.passed() ? Status.PASSED : Status.FAILED;
+            String detail = checks.passed() ? "Deterministic checks passed" : String.join("; ", checks.failures());
+            CONSOLE.printf("%s %s in %.1fs (deterministic, no AI call)%s%n", checks.passed() ? "✅" : "❌",
+                moduleId, runMs / 1000.0, checks.passed() ? "" : ": " + detail);
+            return new ModuleResult(moduleId, status, runMs, 0, logFile, detail);
+        }
+
+        if (batchValidation) {
+            CONSOLE.printf("🏁 %s ran in %.1fs%n", moduleId, runMs / 1000.0);
+            captures.put(moduleId, log);
+            return new ModuleResult(moduleId, Status.RAN, runMs, 0, logFile, null);
+        }
+
+        long validateStart = System.nanoTime();
+        AIValidator.ValidationResult validation =
+            AIValidator.validate(log, cfg.expectedBehavior(), cfg.displayName());
+        long validateMs = (System.nanoTime() - validateStart) / 1_000_000;
+        Status status = validation.success() ? Status.PASSED : Status.FAILED;
+        CONSOLE.printf("%s %s in %.1fs (validation %.1fs, confidence %.2f)%n",
+            validation.success() ? "✅" : "❌", moduleId, runMs / 1000.0, validateMs / 1000.0,
+            validation.confidence());
+        return new ModuleResult(moduleId, status, runMs, validateMs, logFile, validation.reasoning());
+    }
+
+    // Validate every RAN module with batched model calls; other results are returned unchanged
+    public List<ModuleResult> validateBatched(List<ModuleResult> results,
+                                              List<IntegrationTestUtils.ExampleInfo> configs) {
+        List<AIValidator.BatchItem> items = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            ModuleResult r = results.get(i);
+            if (r.status() == Status.RAN) {
+                IntegrationTestUtils.ExampleInfo cfg = configs.get(i);
+                items.add(new AIValidator.BatchItem(r.moduleId(), cfg.displayName(),
+                    captures.remove(r.moduleId()), cfg.expectedBehavior()));
+            }
+        }
+        if (items.isEmpty()) {
+            return results;
+        }
+
+        CONSOLE.println("\n🤖 Validating " + items.size() + " module(s) in batches...");
+        long start = System.nanoTime();
+        Map<String, AIValidator.ValidationResult> verdicts = AIValidator.validateBatch(items);
+        // One call covers many modules, so each gets an equal share of the time
+        long shareMs = (System.nanoTime() - start) / 1_000_000 / items.size();
+
+        List<ModuleResult> validated = new ArrayList<>(results.size());
+        for (ModuleResult r : results) {
+            AIValidator.ValidationResult v = verdicts.get(r.moduleId());
+            if (r.status() != Status.RAN || v == null) {
+                validated.add(r);
+                continue;
+            }
+            CONSOLE.printf("%s %s (confidence %.2f)%n", v.success() ? "✅" : "❌", r.moduleId(), v.confidence());
+            validated.add(new ModuleResult(r.moduleId(), v.success() ? Status.PASSED : Status.FAILED,
+                r.runMs(), shareMs, r.logFile(), v.reasoning()));
+        }
+        return validated;
+    }
+
+    // Returns null on success, otherwise a result carrying the failure status and detail
+    private ModuleResult runModule(IntegrationTestUtils.ExampleInfo cfg, LogCapture log) throws Exception {
+        Path moduleDir = repoRoot.resolve(cfg.moduleId());
+        Process process = new ProcessBuilder(javaExecutable(), "-cp", classpath(moduleDir), mainClass(moduleDir))
+            .directory(repoRoot.toFile())
+            .redirectErrorStream(true)
+            .start();
+        process.getOutputStream().close();
+        Thread pump = Thread.ofVirtual().name("out-" + cfg.moduleId()).start(() -> {
+            try (InputStream out = process.getInputStream()) {
+                out.transferTo(log);
+            } catch (IOException e) {
+                // the process was destroyed
+            }
+        });
+        try {
+            if (!process.waitFor(cfg.timeoutSec(), TimeUnit.SECONDS)) {
+                destroyTree(process);
+                return new ModuleResult(cfg.moduleId(), Status.TIMEOUT, 0, 0, log.file(),
+                    "Exceeded timeout of " + cfg.timeoutSec() + "s");
+            }
+            if (process.exitValue() != 0) {
+                return new ModuleResult(cfg.moduleId(), Status.FAILED, 0, 0, log.file(),
+                    "main exited with code " + process.exitValue());
+            }
+            return null;
+        } catch (InterruptedException e) {
+            destroyTree(process);
+            throw e;
+        } finally {
+            pump.join();
+        }
+    }
+
+    // The module's CLI processes first: once the JVM is gone they are no longer its descendants
+    private static void destroyTree(Process process) throws InterruptedException {
+        List<ProcessHandle> tree = new ArrayList<>(process.descendants().toList());
+        tree.add(process.toHandle());
+        destroy(tree);
+    }
+
+    private static String javaExecutable() {
+        return Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    }
+
+    private static Set<Long> descendantPids() {
+        return ProcessHandle.current().descendants().map(ProcessHandle::pid).collect(Collectors.toSet());
+    }
+
+    // Destroy processes started since the snapshot, forcibly if they outlive the grace period
+    private static void destroyStartedSince(Set<Long> before) throws InterruptedException {
+        List<ProcessHandle> started = ProcessHandle.current().descendants()
+            .filter(p -> !before.contains(p.pid()))
+            .toList();
+        destroy(started);
+        if (!started.isEmpty()) {
+            CONSOLE.println("🧹 Destroyed " + started.size() + " process(es) left running");
+        }
+    }
+
+    private static void destroy(List<ProcessHandle> processes) throws InterruptedException {
+        processes.forEach(ProcessHandle::destroy);
+        for (ProcessHandle process : processes) {
+            try {
+                process.onExit().get(DESTROY_GRACE.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static String missingEnv(IntegrationTestUtils.ExampleInfo cfg) {
+        if (cfg.requiredEnv() != null) {
+            for (String envVar : cfg.requiredEnv()) {
+                if (System.getenv(envVar) == null) {
+                    return envVar;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Main class as configured for exec-maven-plugin in the module pom
+    static String mainClass(Path moduleDir) throws IOException {
+        Matcher m = MAIN_CLASS.matcher(Files.readString(moduleDir.resolve("pom.xml")));
+        if (!m.find()) {
+            throw new IllegalStateException("No <mainClass> in " + moduleDir.resolve("pom.xml"));
+        }
+        return m.group(1);
+    }
+
+    static String classpath(Path moduleDir) throws IOException {
+        Path classpathFile = moduleDir.resolve(CLASSPATH_FILE);
+        if (!Files.exists(classpathFile)) {
+            throw new IllegalStateException("Missing " + classpathFile + " - was the reactor built?");
+        }
+        String dependencies = Files.readString(classpathFile).trim();
+        String classes = moduleDir.resolve("target/classes").toAbsolutePath().toString();
+        return dependencies.isEmpty() ? classes : classes + File.pathSeparator + dependencies;
+    }
+
+    public static void printTimings(List<ModuleResult> results, long wallMs) {
+        CONSOLE.println("\n" + "═".repeat(72));
+        CONSOLE.println(" Timings");
+        CONSOLE.println("═".repeat(72));
+        CONSOLE.printf("  %-36s %-8s %10s %12s%n", "Module", "Status", "Run (s)", "Validate (s)");
+        long serialMs = 0;
+        for (ModuleResult r : results) {
+            CONSOLE.printf("  %-36s %-8s %10.1f %12.1f%n", r.moduleId(), r.status(),
+                r.runMs() / 1000.0, r.validateMs() / 1000.0);
+            serialMs += r.runMs() + r.validateMs();
+        }
+        CONSOLE.printf("%n  Wall clock: %.1fs (sum of module times: %.1fs)%n", wallMs / 1000.0, serialMs / 1000.0);
+        CONSOLE.println("  AI validation: " + AIValidator.cacheStats());
+        CONSOLE.println("  Log assertions: " + LogAssertions.stats());
+        List<String> regressions = PerfHistory.flagged();
+        if (!regressions.isEmpty()) {
+            CONSOLE.println("\n  ⚠️  Performance regressions:");
+            regressions.forEach(r -> CONSOLE.println("    - " + r));
+        }
+    }
+}
@@ -2,10 +2,11 @@
 #
 # Run all integration tests for Claude Agent SDK Java Tutorial
 #
-# Usage: ./scripts/run-integration-tests.sh [--parallel N]
+# Usage: ./scripts/run-integration-tests.sh [--parallel N] [--single-jvm]
 #
 # Options:
 #   --parallel N    Run N tests in parallel (default: sequential)
+#   --single-jvm    Build once and run all modules from one runner (RunAllIntegrationTests.java)
 #
 
 set -e
@@ -29,15 +30,21 @@ NC='\033[0m' # No Color
 
 # Parse arguments
 PARALLEL=1
+SINGLE_JVM=false
 while [[ $# -gt 0 ]]; do
     case $1 in
         --parallel)
             PARALLEL="$2"
             shift 2
             ;;
+        --single-jvm)
+            SINGLE_JVM=true
+            shift
+            ;;
         --help|-h)
-            echo "Usage: $0 [--parallel N]"
+            echo "Usage: $0 [--parallel N] [--single-jvm]"
             echo "  --parallel N    Run N tests in parallel (default: sequential)"
+            echo "  --single-jvm    Build once and run all modules from one runner"
             exit 0
             ;;
         *)
@@ -69,6 +76,15 @@ if [[ ! -x "$JBANG" ]]; then
     fi
 fi
 
+# Single-JVM mode: one reactor build, modules run concurrently in their own java processes
+if [[ "$SINGLE_JVM" == "true" ]]; then
+    cd "$IT_DIR"
+    if [[ "$PARALLEL" -gt 1 ]]; then
+        exec "$JBANG" RunAllIntegrationTests.java --parallel "$PARALLEL"
+    fi
+    exec "$JBANG" RunAllIntegrationTests.java
+fi
+
 # Get list of config files (ls already sorts alphabetically)
 CONFIG_FILES=("$CONFIGS_DIR"/*.json)
 
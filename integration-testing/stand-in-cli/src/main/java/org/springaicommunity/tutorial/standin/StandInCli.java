@@ -0,0 +1,73 @@
+/*
+ * Stand-in CLI guard
+ *
+ * The load tests and benchmarks run thousands of turns and must never reach a
+ * real model. Before starting they call StandInCli.require(), which resolves
+ * the CLI the SDK would launch and exits unless it is the stand-in script in
+ * integration-testing/stand-in-cli:
+ * - the path set with the claude.cli.path system property or CLAUDE_CLI_PATH
+ *   when either is set (it wins over PATH)
+ * - otherwise the first executable `claude` on PATH
+ *
+ * The stand-in is recognized by the marker in its header comment; a native
+ * binary or the npm launcher never matches.
+ */
+package org.springaicommunity.tutorial.standin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+public final class StandInCli {
+
+    public static final String CLI_PATH_PROPERTY = "claude.cli.path";
+    public static final String CLI_PATH_ENV = "CLAUDE_CLI_PATH";
+    private static final String MARKER = "Stand-in Claude CLI";
+
+    private StandInCli() {
+    }
+
+    /**
+     * Returns the stand-in CLI, or prints why the CLI the SDK would launch is not
+     * the stand-in and exits with status 1. For use at the top of main().
+     */
+    public static Path require() {
+        Optional<Path> cli = resolve();
+        if (cli.isEmpty() || !isStandIn(cli.get())) {
+            System.out.println("The CLI the SDK would launch is not the stand-in CLI: "
+                    + cli.map(Path::toString).orElse("(none)"));
+            System.out.println("Unset " + CLI_PATH_PROPERTY + " and " + CLI_PATH_ENV
+                    + ", or point them at the stand-in, and put");
+            System.out.println("integration-testing/stand-in-cli first on PATH; this run must not call a real model.");
+            System.exit(1);
+        }
+        return cli.get();
+    }
+
+    /**
+     * The CLI the SDK would launch: an explicitly configured path, otherwise the
+     * first `claude` on PATH.
+     */
+    public static Optional<Path> resolve() {
+        String configured = System.getProperty(CLI_PATH_PROPERTY, System.getenv(CLI_PATH_ENV));
+        if (configured != null && !configured.isBlank()) {
+            return Optional.of(Path.of(configured)).filter(Files::isExecutable);
+        }
+        return Arrays.stream(System.getenv().getOrDefault("PATH", "").split(File.pathSeparator))
+                .map(dir -> Path.of(dir, "claude"))
+                .filter(Files::isExecutable)
+                .findFirst();
+    }
+
+    public static boolean isStandIn(Path cli) {
+        try (var lines = Files.lines(cli)) {
+            return lines.limit(10).anyMatch(line -> line.contains(MARKER));
+        } catch (IOException | UncheckedIOException e) {
+            return false;  // a native binary
+        }
+    }
+}
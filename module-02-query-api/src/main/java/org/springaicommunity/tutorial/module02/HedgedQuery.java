@@ -0,0 +1,302 @@
+/*
+ * Module 02: Query API - Hedged single-shot queries
+ *
+ * A one-shot query's p99 is set by rare slow CLI starts and slow model
+ * responses, not by the typical request. HedgedQuery.text() behaves like
+ * Query.text(), but if no text has arrived after the observed p95
+ * time-to-first-text, it starts a second, identical attempt. Whichever
+ * attempt finishes first is returned; the other is interrupted and closed,
+ * which ends its CLI process.
+ *
+ * - hedging starts once minSamples first-text times have been observed
+ * - first-text times come from original attempts only; one cancelled before
+ *   its first text counts with the time it had run, a lower bound, so the
+ *   slow attempts that hedging cuts short still raise the percentile
+ * - hedging stops once duplicate spend reaches maxDuplicateSpendUsd
+ * - an interrupted attempt reports no cost, so it is charged at the winner's cost
+ *
+ * Each attempt runs on its own ClaudeSyncClient (Query.text() exposes neither
+ * the first text nor a way to interrupt), created by the supplied factory.
+ *
+ *   HedgedQuery hedged = HedgedQuery.builder()
+ *           .clients(() -> ClaudeClient.sync().model(CLIOptions.MODEL_HAIKU).build())
+ *           .maxDuplicateSpendUsd(0.50)
+ *           .build();
+ *   String answer = hedged.text("What is 2+2?");
+ */
+package org.springaicommunity.tutorial.module02;
+
+import org.springaicommunity.claude.agent.sdk.ClaudeClient;
+import org.springaicommunity.claude.agent.sdk.ClaudeSyncClient;
+import org.springaicommunity.claude.agent.sdk.parsing.ParsedMessage;
+import org.springaicommunity.claude.agent.sdk.types.AssistantMessage;
+import org.springaicommunity.claude.agent.sdk.types.ResultMessage;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+public class HedgedQuery {
+
+    /**
+     * Counters since creation. hedgeWins counts hedges that finished before the original attempt;
+     * extraCostUsd is the spend on attempts whose answer was discarded.
+     */
+    public record Stats(long queries, long hedged, long hedgeWins, double costUsd, double extraCostUsd,
+                        long hedgeDelayMs) {
+        public double hedgeRate() {
+            return queries == 0 ? 0 : (double) hedged / queries;
+        }
+    }
+
+    private static final int SAMPLES = 512;
+
+    private final Supplier<ClaudeSyncClient> clients;
+    private final double percentile;
+    private final int minSamples;
+    private final double maxDuplicateSpendUsd;
+
+    // Recent time-to-first-text, a ring buffer guarded by this
+    private final long[] firstText = new long[SAMPLES];
+    private long observed;
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder hedged = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final DoubleAdder cost = new DoubleAdder();
+    private final DoubleAdder extraCost = new DoubleAdder();
+
+    private HedgedQuery(Builder builder) {
+        this.clients = builder.clients;
+        this.percentile = builder.percentile;
+        this.minSamples = builder.minSamples;
+        this.maxDuplicateSpendUsd = builder.maxDuplicateSpendUsd;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Send a prompt and return the text of whichever attempt finishes first.
+     */
+    public String text(String prompt) throws InterruptedException {
+        queries.increment();
+        Race race = new Race();
+        Attempt primary = race.start(prompt, false);
+
+        long delay = hedgeDelayNanos();
+        Attempt hedge = null;
+        if (delay >= 0 && !primary.firstText.await(delay, TimeUnit.NANOSECONDS) && !race.winner.isDone()
+                && extraCost.sum() < maxDuplicateSpendUsd) {
+            hedged.increment();
+            hedge = race.start(prompt, true);
+        }
+
+        Attempt winner;
+        try {
+            winner = race.winner.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new IllegalStateException(e.getCause());
+        } finally {
+            primary.cancel();
+            if (hedge != null) {
+                hedge.cancel();
+            }
+        }
+
+        if (winner.isHedge) {
+            hedgeWins.increment();
+        }
+        double winnerCost = winner.costUsd == null ? 0 : winner.costUsd;
+        cost.add(winnerCost);
+        if (hedge != null) {
+            Attempt loser = winner == primary ? hedge : primary;
+            double loserCost = loser.finished && loser.costUsd != null ? loser.costUsd : winnerCost;
+            cost.add(loserCost);
+            extraCost.add(loserCost);
+        }
+        return winner.text.toString();
+    }
+
+    public Stats stats() {
+        long delay = hedgeDelayNanos();
+        return new Stats(queries.sum(), hedged.sum(), hedgeWins.sum(), cost.sum(), extraCost.sum(),
+                delay < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(delay));
+    }
+
+    /**
+     * The configured percentile of recent time-to-first-text, or -1 until minSamples are observed.
+     */
+    private synchronized long hedgeDelayNanos() {
+        int n = (int) Math.min(observed, SAMPLES);
+        if (n < minSamples) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(firstText, n);
+        Arrays.sort(sorted);
+        return sorted[Math.min(n - 1, (int) (n * percentile))];
+    }
+
+    private synchronized void recordFirstText(long nanos) {
+        firstText[(int) (observed++ % SAMPLES)] = nanos;
+    }
+
+    /**
+     * One query's attempts. The first attempt to succeed completes winner;
+     * it fails only when every started attempt has failed.
+     */
+    private final class Race {
+        final CompletableFuture<Attempt> winner = new CompletableFuture<>();
+        final AtomicInteger running = new AtomicInteger();
+
+        Attempt start(String prompt, boolean isHedge) {
+            running.incrementAndGet();
+            Attempt attempt = new Attempt(this, isHedge);
+            Thread.ofVirtual().name(isHedge ? "hedge" : "query").start(() -> attempt.run(prompt));
+            return attempt;
+        }
+
+        void failed(Throwable error) {
+            if (running.decrementAndGet() == 0) {
+                winner.completeExceptionally(error);
+            }
+        }
+    }
+
+    private final class Attempt {
+        final Race race;
+        final boolean isHedge;
+        final long started = System.nanoTime();
+        final CountDownLatch firstText = new CountDownLatch(1);
+        final StringBuilder text = new StringBuilder();
+        final AtomicBoolean sampled = new AtomicBoolean();
+        volatile ClaudeSyncClient client;
+        volatile boolean cancelled;
+        volatile boolean finished;
+        volatile Double costUsd;
+
+        Attempt(Race race, boolean isHedge) {
+            this.race = race;
+            this.isHedge = isHedge;
+        }
+
+        void run(String prompt) {
+            try (ClaudeSyncClient c = clients.get()) {
+                client = c;
+                if (cancelled) {
+                    throw new IllegalStateException("cancelled before start");
+                }
+                c.connect(prompt);
+                Iterator<ParsedMessage> messages = c.receiveResponse();
+                while (messages.hasNext()) {
+                    ParsedMessage msg = messages.next();
+                    if (!msg.isRegularMessage()) {
+                        continue;
+                    }
+                    if (msg.asMessage() instanceof AssistantMessage am) {
+                        Optional<String> chunk = am.getTextContent();
+                        if (chunk.isPresent() && firstText.getCount() > 0) {
+                            sampleFirstText();
+                            firstText.countDown();
+                        }
+                        chunk.ifPresent(text::append);
+                    } else if (msg.asMessage() instanceof ResultMessage rm) {
+                        costUsd = rm.totalCostUsd();
+                        if (rm.isError()) {
+                            throw new IllegalStateException("Query failed: " + rm.result());
+                        }
+                    }
+                }
+                finished = true;
+                race.winner.complete(this);
+            } catch (RuntimeException e) {
+                race.failed(e);
+            } finally {
+                firstText.countDown();
+            }
+        }
+
+        // Hedges start only after a slow wait, so their times would pull the percentile down
+        void sampleFirstText() {
+            if (!isHedge && sampled.compareAndSet(false, true)) {
+                recordFirstText(System.nanoTime() - started);
+            }
+        }
+
+        /**
+         * Stop a losing attempt: interrupt the turn and end its CLI process.
+         */
+        void cancel() {
+            if (finished || cancelled) {
+                return;
+            }
+            cancelled = true;
+            if (firstText.getCount() > 0) {
+                sampleFirstText();   // no text yet: its first text would have come later still
+            }
+            ClaudeSyncClient c = client;
+            if (c != null) {
+                try {
+                    c.interrupt();
+                } catch (RuntimeException e) {
+                    // Already ending; close() below is what stops the process
+                }
+                c.close();
+            }
+        }
+    }
+
+    public static class Builder {
+        private Supplier<ClaudeSyncClient> clients = () -> ClaudeClient.sync().workingDirectory(Path.of(".")).build();
+        private double percentile = 0.95;
+        private int minSamples = 20;
+        private double maxDuplicateSpendUsd = 1.00;
+
+        /**
+         * Creates the client for each attempt; configure model and options here.
+         */
+        public Builder clients(Supplier<ClaudeSyncClient> clients) {
+            this.clients = clients;
+            return this;
+        }
+
+        /**
+         * Hedge after this percentile of observed time-to-first-text (default 0.95).
+         */
+        public Builder percentile(double percentile) {
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * First-text samples needed before hedging starts (default 20).
+         */
+        public Builder minSamples(int minSamples) {
+            this.minSamples = minSamples;
+            return this;
+        }
+
+        /**
+         * Stop hedging once discarded attempts have cost this much (default $1.00).
+         */
+        public Builder maxDuplicateSpendUsd(double maxDuplicateSpendUsd) {
+            this.maxDuplicateSpendUsd = maxDuplicateSpendUsd;
+            return this;
+        }
+
+        public HedgedQuery build() {
+            return new HedgedQuery(this);
+        }
+    }
+}
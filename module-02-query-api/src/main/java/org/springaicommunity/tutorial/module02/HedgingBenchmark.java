@@ -0,0 +1,136 @@
+/*
+ * Module 02: Query API - Hedged query benchmark
+ *
+ * Sends the same batch of single-shot queries twice, once without hedging and
+ * once through HedgedQuery, and compares p50/p95/p99 latency. Reports hedge
+ * rate, hedge wins and the extra cost of discarded attempts.
+ *
+ * Uses the stand-in CLI from integration-testing/stand-in-cli with injected
+ * outliers (STAND_IN_SLOW_RATE of replies take STAND_IN_SLOW_DELAY seconds);
+ * the benchmark refuses to start against a real CLI.
+ *
+ * Run with:
+ *   PATH="$PWD/integration-testing/stand-in-cli:$PATH" \
+ *   STAND_IN_SLOW_RATE=0.03 STAND_IN_SLOW_DELAY=3 STAND_IN_COST=0.001 \
+ *   mvn compile exec:java -pl module-02-query-api \
+ *     -Dexec.mainClass=org.springaicommunity.tutorial.module02.HedgingBenchmark \
+ *     -Dexec.args="400"
+ */
+package org.springaicommunity.tutorial.module02;
+
+import org.springaicommunity.claude.agent.sdk.ClaudeClient;
+import org.springaicommunity.claude.agent.sdk.ClaudeSyncClient;
+import org.springaicommunity.tutorial.standin.StandInCli;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+public class HedgingBenchmark {
+
+    private static final int CONCURRENCY = 8;
+
+    /**
+     * One single-shot query: prompt in, text out.
+     */
+    interface TextQuery {
+        String text(String prompt) throws Exception;
+    }
+
+    record Run(String name, long[] latenciesMs, long failed, long wallMs) {
+        long percentile(double p) {
+            return latenciesMs.length == 0 ? 0
+                    : latenciesMs[Math.min(latenciesMs.length - 1, (int) (latenciesMs.length * p))];
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Module 02: Hedged Query Benchmark ===\n");
+
+        StandInCli.require();
+
+        int queries = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        System.out.printf("Queries: %d, %d at a time; outliers: STAND_IN_SLOW_RATE=%s, STAND_IN_SLOW_DELAY=%ss%n%n",
+                queries, CONCURRENCY, System.getenv().getOrDefault("STAND_IN_SLOW_RATE", "0"),
+                System.getenv().getOrDefault("STAND_IN_SLOW_DELAY", "2"));
+
+        // Warm up process start and class loading
+        run("warm-up", HedgingBenchmark::plain, 20);
+
+        Run plain = run("plain", HedgingBenchmark::plain, queries);
+
+        HedgedQuery hedged = HedgedQuery.builder()
+                .clients(HedgingBenchmark::newClient)
+                .maxDuplicateSpendUsd(1.00)
+                .build();
+        Run hedgedRun = run("hedged", hedged::text, queries);
+
+        System.out.printf("%-8s %9s %9s %9s %9s %7s %10s%n", "Run", "p50 (ms)", "p95 (ms)", "p99 (ms)", "max (ms)",
+                "Failed", "Wall (ms)");
+        for (Run r : List.of(plain, hedgedRun)) {
+            System.out.printf("%-8s %9d %9d %9d %9d %7d %10d%n", r.name(), r.percentile(0.5), r.percentile(0.95),
+                    r.percentile(0.99), r.percentile(1.0), r.failed(), r.wallMs());
+        }
+
+        HedgedQuery.Stats stats = hedged.stats();
+        System.out.printf("%nHedge delay (p95 time to first text): %d ms%n", stats.hedgeDelayMs());
+        System.out.printf("Hedged: %d of %d (%.1f%%), hedge won: %d%n", stats.hedged(), stats.queries(),
+                stats.hedgeRate() * 100, stats.hedgeWins());
+        System.out.printf("Cost: $%.4f total, $%.4f on discarded attempts (%+.1f%%)%n", stats.costUsd(),
+                stats.extraCostUsd(),
+                stats.costUsd() == stats.extraCostUsd() ? 0
+                        : stats.extraCostUsd() / (stats.costUsd() - stats.extraCostUsd()) * 100);
+        System.out.printf("p99: %d ms -> %d ms%n", plain.percentile(0.99), hedgedRun.percentile(0.99));
+
+        System.out.println("\n=== Done ===");
+    }
+
+    static Run run(String name, TextQuery query, int queries) throws InterruptedException {
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>(queries));
+        LongAdder failed = new LongAdder();
+        Semaphore slots = new Semaphore(CONCURRENCY);
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < queries; i++) {
+                int id = i;
+                slots.acquire();
+                executor.submit(() -> {
+                    long t0 = System.nanoTime();
+                    try {
+                        query.text("Query " + id);
+                        latencies.add((System.nanoTime() - t0) / 1_000_000);
+                    } catch (Exception e) {
+                        failed.increment();
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+        }
+        long wallMs = (System.nanoTime() - start) / 1_000_000;
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        return new Run(name, sorted, failed.sum(), wallMs);
+    }
+
+    // One attempt on its own client, the same way HedgedQuery runs each attempt
+    private static String plain(String prompt) {
+        try (ClaudeSyncClient client = newClient()) {
+            return client.connectText(prompt);
+        }
+    }
+
+    private static ClaudeSyncClient newClient() {
+        return ClaudeClient.sync()
+                .workingDirectory(Path.of("."))
+                .timeout(Duration.ofMinutes(1))
+                .build();
+    }
+}
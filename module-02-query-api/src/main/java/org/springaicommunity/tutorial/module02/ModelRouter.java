@@ -0,0 +1,170 @@
+/*
+ * Module 02: Query API - Routing between a small and a large model
+ *
+ * Picks the model per request instead of hard-coding one:
+ * - long prompts, and prompts that need both tools and a JSON schema, go to the large model
+ * - everything else goes to the small model, unless the small model's observed
+ *   success rate for that kind of request (tools / schema) has dropped below
+ *   minSuccessRate, or its observed latency has become worse than the large model's
+ *
+ * execute() also falls back to the large model when the small model's answer
+ * fails validation (for example a JSON schema check), and records the failure
+ * so later requests of the same kind are routed to the large model directly.
+ *
+ * ModelRoutingReplay replays recorded prompts through the router offline and
+ * reports latency and cost against always-small and always-large.
+ */
+package org.springaicommunity.tutorial.module02;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+public class ModelRouter {
+
+    /**
+     * The cheap local features routing is based on.
+     */
+    public record Request(String prompt, boolean needsTools, boolean hasSchema) {}
+
+    public record Decision(String model, String reason) {}
+
+    /**
+     * Result of execute(): the accepted value, the model that produced it, and
+     * whether the small model's answer was rejected first.
+     */
+    public record Routed<T>(T value, String model, boolean fellBack, long latencyMs) {}
+
+    private static final double ALPHA = 0.2;   // EWMA weight of the newest sample
+    private static final int PROBE_EVERY = 20; // keep sampling a demoted small model so it can recover
+
+    private final String smallModel;
+    private final String largeModel;
+    private final int longPromptChars;
+    private final double minSuccessRate;
+    private final int minSamples;
+
+    // Observed outcomes per model and request kind
+    private final Map<String, Observed> observed = new ConcurrentHashMap<>();
+
+    public ModelRouter(String smallModel, String largeModel) {
+        this(smallModel, largeModel, 4_000, 0.8, 5);
+    }
+
+    public ModelRouter(String smallModel, String largeModel, int longPromptChars, double minSuccessRate,
+                       int minSamples) {
+        this.smallModel = smallModel;
+        this.largeModel = largeModel;
+        this.longPromptChars = longPromptChars;
+        this.minSuccessRate = minSuccessRate;
+        this.minSamples = minSamples;
+    }
+
+    public Decision route(Request request) {
+        if (request.prompt().length() > longPromptChars) {
+            return new Decision(largeModel, "prompt longer than " + longPromptChars + " chars");
+        }
+        if (request.needsTools() && request.hasSchema()) {
+            return new Decision(largeModel, "tools and schema");
+        }
+
+        Observed small = observed.get(key(smallModel, request));
+        Observed large = observed.get(key(largeModel, request));
+        String demoted = null;
+        if (small != null && small.samples() >= minSamples && small.successRate() < minSuccessRate) {
+            demoted = String.format("%s success %.0f%% for %s", smallModel, small.successRate() * 100,
+                    kind(request));
+        } else if (small != null && large != null && small.samples() >= minSamples
+                && large.samples() >= minSamples && small.latencyMs() > large.latencyMs()) {
+            demoted = smallModel + " slower than " + largeModel;
+        }
+        if (demoted == null) {
+            return new Decision(smallModel, "default");
+        }
+        return small.probe() ? new Decision(smallModel, "probe") : new Decision(largeModel, demoted);
+    }
+
+    /**
+     * Record an outcome, from execute() or from callers that run the query themselves.
+     */
+    public void record(String model, Request request, long latencyMs, boolean success) {
+        observed.computeIfAbsent(key(model, request), k -> new Observed()).add(latencyMs, success);
+    }
+
+    /**
+     * Route, call, validate, and fall back to the large model if the small model's answer is rejected.
+     */
+    public <T> Routed<T> execute(Request request, Function<String, T> call, Predicate<T> valid) {
+        Decision decision = route(request);
+        long start = System.nanoTime();
+        T value = call.apply(decision.model());
+        long latencyMs = (System.nanoTime() - start) / 1_000_000;
+        boolean ok = valid.test(value);
+        record(decision.model(), request, latencyMs, ok);
+
+        if (ok || decision.model().equals(largeModel)) {
+            return new Routed<>(value, decision.model(), false, latencyMs);
+        }
+
+        long fallbackStart = System.nanoTime();
+        T fallback = call.apply(largeModel);
+        long fallbackMs = (System.nanoTime() - fallbackStart) / 1_000_000;
+        record(largeModel, request, fallbackMs, valid.test(fallback));
+        return new Routed<>(fallback, largeModel, true, latencyMs + fallbackMs);
+    }
+
+    public String smallModel() {
+        return smallModel;
+    }
+
+    public String largeModel() {
+        return largeModel;
+    }
+
+    private static String key(String model, Request request) {
+        return model + '|' + kind(request);
+    }
+
+    private static String kind(Request request) {
+        return request.needsTools() ? (request.hasSchema() ? "tools+schema" : "tools")
+                : (request.hasSchema() ? "schema" : "text");
+    }
+
+    /**
+     * Exponentially weighted success rate and latency.
+     */
+    private static final class Observed {
+        private int samples;
+        private double successRate = 1.0;
+        private double latencyMs;
+        private int sinceProbe;
+
+        synchronized void add(long latency, boolean success) {
+            if (samples == 0) {
+                successRate = success ? 1.0 : 0.0;
+                latencyMs = latency;
+            } else {
+                successRate += ALPHA * ((success ? 1.0 : 0.0) - successRate);
+                latencyMs += ALPHA * (latency - latencyMs);
+            }
+            samples++;
+        }
+
+        synchronized boolean probe() {
+            return ++sinceProbe % PROBE_EVERY == 0;
+        }
+
+        synchronized int samples() {
+            return samples;
+        }
+
+        synchronized double successRate() {
+            return successRate;
+        }
+
+        synchronized double latencyMs() {
+            return latencyMs;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Module 02: Query API - Offline replay of model routing
+ *
+ * Replays recorded requests through three strategies and compares latency,
+ * cost and invalid answers:
+ * - always the large model
+ * - always the small model (no fallback)
+ * - ModelRouter, with fallback to the large model when the small model's answer is invalid
+ *
+ * Each recorded request carries the outcome under both models, one JSON object per line:
+ *
+ *   {"prompt":"...","needsTools":false,"hasSchema":true,
+ *    "outcomes":{"<small model>":{"latencyMs":2100,"costUsd":0.0011,"valid":false},
+ *                "<large model>":{"latencyMs":6400,"costUsd":0.0094,"valid":true}}}
+ *
+ * Without a file argument a seeded synthetic workload is generated. No Claude calls are made.
+ *
+ * Run with: mvn compile exec:java -pl module-02-query-api \
+ *   -Dexec.mainClass=org.springaicommunity.tutorial.module02.ModelRoutingReplay \
+ *   [-Dexec.args="recorded-requests.jsonl"]
+ */
+package org.springaicommunity.tutorial.module02;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springaicommunity.claude.agent.sdk.transport.CLIOptions;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class ModelRoutingReplay {
+
+    private static final String SMALL = CLIOptions.MODEL_HAIKU;
+    private static final String LARGE = CLIOptions.MODEL_SONNET;
+    private static final int SYNTHETIC_REQUESTS = 5_000;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    public record Outcome(long latencyMs, double costUsd, boolean valid) {}
+
+    public record Recorded(String prompt, boolean needsTools, boolean hasSchema, Map<String, Outcome> outcomes) {}
+
+    record Totals(String strategy, long[] latencies, double costUsd, int invalid, int fallbacks) {
+        double meanMs() {
+            return Arrays.stream(latencies).average().orElse(0);
+        }
+
+        long p95Ms() {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            return sorted.length == 0 ? 0 : sorted[(int) (sorted.length * 0.95)];
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.out.println("=== Module 02: Model Routing Replay ===\n");
+
+        List<Recorded> requests = args.length > 0 ? load(Path.of(args[0])) : synthetic(SYNTHETIC_REQUESTS);
+        System.out.printf("Requests: %d (%s)%n%n", requests.size(), args.length > 0 ? args[0] : "synthetic, seed 42");
+
+        Totals large = fixed("always large", requests, LARGE);
+        Totals small = fixed("always small", requests, SMALL);
+        Totals routed = routed(requests);
+
+        System.out.printf("%-14s %10s %10s %12s %9s %10s%n", "Strategy", "Mean (ms)", "p95 (ms)", "Cost ($)",
+                "Invalid", "Fallbacks");
+        for (Totals t : List.of(large, small, routed)) {
+            System.out.printf("%-14s %10.0f %10d %12.4f %9d %10d%n", t.strategy(), t.meanMs(), t.p95Ms(),
+                    t.costUsd(), t.invalid(), t.fallbacks());
+        }
+
+        System.out.printf("%nRouter vs always large: latency %+.1f%%, cost %+.1f%%, invalid %d -> %d%n",
+                (routed.meanMs() / large.meanMs() - 1) * 100, (routed.costUsd() / large.costUsd() - 1) * 100,
+                large.invalid(), routed.invalid());
+        System.out.printf("Router vs always small: latency %+.1f%%, cost %+.1f%%, invalid %d -> %d%n",
+                (routed.meanMs() / small.meanMs() - 1) * 100, (routed.costUsd() / small.costUsd() - 1) * 100,
+                small.invalid(), routed.invalid());
+
+        System.out.println("\n=== Done ===");
+    }
+
+    static Totals fixed(String name, List<Recorded> requests, String model) {
+        long[] latencies = new long[requests.size()];
+        double cost = 0;
+        int invalid = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            Outcome o = requests.get(i).outcomes().get(model);
+            latencies[i] = o.latencyMs();
+            cost += o.costUsd();
+            invalid += o.valid() ? 0 : 1;
+        }
+        return new Totals(name, latencies, cost, invalid, 0);
+    }
+
+    // Same logic as ModelRouter.execute(), fed from the recorded outcomes
+    static Totals routed(List<Recorded> requests) {
+        ModelRouter router = new ModelRouter(SMALL, LARGE);
+        long[] latencies = new long[requests.size()];
+        double cost = 0;
+        int invalid = 0;
+        int fallbacks = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            Recorded r = requests.get(i);
+            ModelRouter.Request request = new ModelRouter.Request(r.prompt(), r.needsTools(), r.hasSchema());
+            String model = router.route(request).model();
+            Outcome first = r.outcomes().get(model);
+            router.record(model, request, first.latencyMs(), first.valid());
+            latencies[i] = first.latencyMs();
+            cost += first.costUsd();
+
+            Outcome accepted = first;
+            if (!first.valid() && !model.equals(LARGE)) {
+                Outcome fallback = r.outcomes().get(LARGE);
+                router.record(LARGE, request, fallback.latencyMs(), fallback.valid());
+                latencies[i] += fallback.latencyMs();
+                cost += fallback.costUsd();
+                fallbacks++;
+                accepted = fallback;
+            }
+            invalid += accepted.valid() ? 0 : 1;
+        }
+        return new Totals("router", latencies, cost, invalid, fallbacks);
+    }
+
+    static List<Recorded> load(Path file) throws IOException {
+        List<Recorded> requests = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    requests.add(mapper.readValue(line, Recorded.class));
+                }
+            }
+        }
+        return requests;
+    }
+
+    /**
+     * A mixed workload: mostly short questions, some schema and tool requests,
+     * a few long prompts. The small model is faster and cheaper but fails schema
+     * requests more often.
+     */
+    static List<Recorded> synthetic(int count) {
+        Random random = new Random(42);
+        List<Recorded> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double kind = random.nextDouble();
+            boolean tools = kind >= 0.60 && kind < 0.80 || kind >= 0.90 && kind < 0.95;
+            boolean schema = kind >= 0.80 && kind < 0.95;
+            boolean isLong = kind >= 0.95;
+            String prompt = "x".repeat(isLong ? 6_000 + random.nextInt(6_000) : 50 + random.nextInt(1_500));
+
+            double smallValid = schema ? (tools ? 0.55 : 0.70) : (tools ? 0.92 : 0.99);
+            double factor = isLong ? 2.5 : tools ? 1.8 : 1.0;
+            requests.add(new Recorded(prompt, tools, schema, Map.of(
+                    SMALL, new Outcome(latency(random, 2_500 * factor), 0.0015 * factor,
+                            random.nextDouble() < smallValid),
+                    LARGE, new Outcome(latency(random, 7_000 * factor), 0.012 * factor,
+                            random.nextDouble() < 0.99))));
+        }
+        return requests;
+    }
+
+    // Log-normal around the median, like real request latencies
+    private static long latency(Random random, double medianMs) {
+        return Math.round(medianMs * Math.exp(0.4 * random.nextGaussian()));
+    }
+}
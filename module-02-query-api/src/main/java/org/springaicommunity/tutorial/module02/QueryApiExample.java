@@ -5,16 +5,28 @@
  * - Query.execute() for metadata (cost, tokens)
  * - QueryOptions for configuration
  * - Query.query() for streaming iteration
+ * - QueryCoalescer for sharing one run between identical concurrent queries
+ * - ModelRouter for picking the model per request, with fallback on invalid answers
  *
  * Run with: mvn compile exec:java -pl module-02-query-api
  */
 package org.springaicommunity.tutorial.module02;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springaicommunity.claude.agent.sdk.Query;
 import org.springaicommunity.claude.agent.sdk.QueryOptions;
+import org.springaicommunity.claude.agent.sdk.transport.CLIOptions;
 import org.springaicommunity.claude.agent.sdk.types.QueryResult;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class QueryApiExample {
 
@@ -27,6 +39,12 @@ public class QueryApiExample {
         // Part 2: QueryOptions for configuration
         queryWithOptions();
 
+        // Part 3: Coalescing identical concurrent queries
+        coalescedQueries();
+
+        // Part 4: Routing between models
+        routedQueries();
+
         System.out.println("\n=== Done ===");
     }
 
@@ -67,4 +85,86 @@ public class QueryApiExample {
         String response = Query.text("What is dependency injection?", options);
         System.out.println("Response: " + response);
     }
+
+    /**
+     * Five callers ask the same question at the same time; QueryCoalescer
+     * runs it once and hands every caller the same QueryResult.
+     */
+    static void coalescedQueries() {
+        System.out.println("\n--- Part 3: Coalescing identical queries ---\n");
+
+        QueryOptions options = QueryOptions.builder()
+                .appendSystemPrompt("Be concise. Answer in one sentence.")
+                .timeout(Duration.ofMinutes(2))
+                .build();
+        QueryCoalescer coalescer = new QueryCoalescer();
+        String prompt = "Explain this error: java.lang.NullPointerException";
+
+        List<Future<QueryResult>> callers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 5; i++) {
+                callers.add(executor.submit(() -> coalescer.execute(prompt, options)));
+            }
+        }
+
+        for (int i = 0; i < callers.size(); i++) {
+            try {
+                QueryResult result = callers.get(i).get();
+                System.out.printf("Caller %d (session %s): %s%n", i + 1, result.metadata().sessionId(),
+                        result.text().orElse("(no response)"));
+            } catch (InterruptedException | ExecutionException e) {
+                System.out.printf("Caller %d failed: %s%n", i + 1, e.getMessage());
+            }
+        }
+
+        QueryCoalescer.Stats stats = coalescer.stats();
+        System.out.printf("%nCoalescing: %d calls, %d CLI runs, %d coalesced (%.0f%%), saved $%.6f%n",
+                stats.calls(), stats.executions(), stats.coalesced(),
+                stats.coalescingRatio() * 100, stats.savedCostUsd());
+    }
+
+    /**
+     * ModelRouter picks haiku or sonnet per request from the prompt and its
+     * requirements, and retries on the larger model when the answer is not valid JSON.
+     */
+    static void routedQueries() {
+        System.out.println("\n--- Part 4: Routing between models ---\n");
+
+        ModelRouter router = new ModelRouter(CLIOptions.MODEL_HAIKU, CLIOptions.MODEL_SONNET);
+
+        ModelRouter.Request longReport = new ModelRouter.Request("Summarize: " + "log line\n".repeat(600), false, false);
+        ModelRouter.Request toolsAndSchema = new ModelRouter.Request("List the files as JSON", true, true);
+        System.out.println("Long prompt      -> " + router.route(longReport));
+        System.out.println("Tools and schema -> " + router.route(toolsAndSchema));
+
+        String prompt = "Return only a JSON object with fields \"language\" and \"year\" for the Java programming language.";
+        ModelRouter.Request request = new ModelRouter.Request(prompt, false, true);
+        System.out.println("Short JSON query -> " + router.route(request));
+
+        ModelRouter.Routed<String> routed = router.execute(request,
+                model -> Query.text(prompt, QueryOptions.builder()
+                        .model(model)
+                        .timeout(Duration.ofMinutes(2))
+                        .build()),
+                QueryApiExample::isLanguageJson);
+
+        System.out.println("Response: " + routed.value());
+        System.out.printf("Answered by %s in %d ms%s%n", routed.model(), routed.latencyMs(),
+                routed.fellBack() ? " (after fallback)" : "");
+    }
+
+    // The "schema" check: a JSON object with both fields, optionally inside a code fence
+    private static boolean isLanguageJson(String text) {
+        int start = text.indexOf('{');
+        int end = text.lastIndexOf('}');
+        if (start < 0 || end < start) {
+            return false;
+        }
+        try {
+            JsonNode node = new ObjectMapper().readTree(text.substring(start, end + 1));
+            return node.hasNonNull("language") && node.hasNonNull("year");
+        } catch (JsonProcessingException e) {
+            return false;
+        }
+    }
 }
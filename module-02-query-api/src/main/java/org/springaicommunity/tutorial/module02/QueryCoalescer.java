@@ -0,0 +1,110 @@
+/*
+ * Module 02: Query API - Coalescing identical in-flight queries
+ *
+ * When many callers send the same prompt at the same moment, each
+ * Query.execute() starts its own CLI run. QueryCoalescer lets concurrent
+ * callers with the same prompt and options share one run (single flight):
+ * the first caller executes, the others wait for it and get the same
+ * QueryResult. Nothing is stored; the entry is gone as soon as the run ends.
+ *
+ * Options are matched by instance (share one QueryOptions constant per use
+ * case) or by an explicit fingerprint when options are built per request.
+ * Use executeAlone() for prompts whose answers should differ per caller.
+ */
+package org.springaicommunity.tutorial.module02;
+
+import org.springaicommunity.claude.agent.sdk.Query;
+import org.springaicommunity.claude.agent.sdk.QueryOptions;
+import org.springaicommunity.claude.agent.sdk.types.QueryResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+public class QueryCoalescer {
+
+    /**
+     * Counters since creation. coalesced callers received another caller's result.
+     */
+    public record Stats(long calls, long executions, long coalesced, double savedCostUsd) {
+        public double coalescingRatio() {
+            return calls == 0 ? 0 : (double) coalesced / calls;
+        }
+    }
+
+    private record Key(String prompt, Object options) {}
+
+    private final ConcurrentHashMap<Key, CompletableFuture<QueryResult>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final DoubleAdder savedCost = new DoubleAdder();
+
+    /**
+     * Execute, or join an identical query (same prompt, same options instance) already running.
+     */
+    public QueryResult execute(String prompt, QueryOptions options) {
+        return execute(prompt, options, new Key(prompt, options));
+    }
+
+    /**
+     * Execute, or join an identical query already running; options are matched by fingerprint.
+     */
+    public QueryResult execute(String prompt, QueryOptions options, String optionsFingerprint) {
+        return execute(prompt, options, new Key(prompt, optionsFingerprint));
+    }
+
+    /**
+     * Always run separately (opt-out for non-deterministic use), still counted in stats.
+     */
+    public QueryResult executeAlone(String prompt, QueryOptions options) {
+        calls.increment();
+        executions.increment();
+        return Query.execute(prompt, options);
+    }
+
+    public Stats stats() {
+        return new Stats(calls.sum(), executions.sum(), coalesced.sum(), savedCost.sum());
+    }
+
+    private QueryResult execute(String prompt, QueryOptions options, Key key) {
+        calls.increment();
+        CompletableFuture<QueryResult> mine = new CompletableFuture<>();
+        CompletableFuture<QueryResult> running = inFlight.putIfAbsent(key, mine);
+
+        if (running != null) {
+            // Follower: wait for the leader's run
+            coalesced.increment();
+            QueryResult result = await(running);
+            savedCost.add(result.metadata().cost().calculateTotal());
+            return result;
+        }
+
+        // Leader: run on this thread, then publish to any followers
+        executions.increment();
+        try {
+            QueryResult result = Query.execute(prompt, options);
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private static QueryResult await(CompletableFuture<QueryResult> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+}
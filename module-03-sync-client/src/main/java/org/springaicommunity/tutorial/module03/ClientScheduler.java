@@ -0,0 +1,270 @@
+/*
+ * Module 03: ClaudeSyncClient - Priority scheduling of client work
+ *
+ * Every sync client runs its own CLI process, so a service caps how many run
+ * at once. Without ordering, interactive requests queue behind batch jobs.
+ * ClientScheduler sits in front of client creation and queries:
+ * - priority classes (INTERACTIVE, BATCH), each with a weight and a concurrency cap
+ * - weighted fair queueing between classes: a class with weight 4 gets four
+ *   slots for every one a weight-1 class gets, while both have work waiting
+ * - deadline-aware rejection: a request whose deadline cannot be met given the
+ *   queue ahead of it is rejected immediately, not after it has waited
+ * - per-class queue-time metrics (mean, p99, max) and rejection counts
+ *
+ *   String answer = scheduler.submit(Priority.INTERACTIVE, Duration.ofSeconds(5), () -> {
+ *       try (ClaudeSyncClient client = ClaudeClient.sync().build()) {
+ *           return client.connectText(prompt);
+ *       }
+ *   });
+ *
+ * Work runs on the calling thread (typically a virtual thread) once admitted.
+ */
+package org.springaicommunity.tutorial.module03;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class ClientScheduler {
+
+    public enum Priority { INTERACTIVE, BATCH }
+
+    /**
+     * Thrown when work is not admitted. reason is "deadline-unreachable" or "deadline-expired".
+     */
+    public static class RejectedException extends RuntimeException {
+        private final String reason;
+
+        RejectedException(String reason, String message) {
+            super(message);
+            this.reason = reason;
+        }
+
+        public String reason() {
+            return reason;
+        }
+    }
+
+    public record ClassStats(long admitted, long rejected, double meanWaitMs, double p99WaitMs, double maxWaitMs,
+                             int running, int queued) {}
+
+    private static final int WAIT_SAMPLES = 1024;
+
+    private final int maxConcurrent;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Priority, Lane> lanes = new EnumMap<>(Priority.class);
+    private int running;
+
+    private ClientScheduler(Builder builder) {
+        this.maxConcurrent = builder.maxConcurrent;
+        for (Priority priority : Priority.values()) {
+            int[] config = builder.lanes.getOrDefault(priority, new int[] {1, builder.maxConcurrent});
+            lanes.put(priority, new Lane(config[0], config[1]));
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Wait for a slot in the given class, then run the work on this thread.
+     *
+     * @throws RejectedException if the deadline cannot be met or passes while waiting
+     */
+    public <T> T submit(Priority priority, Duration deadline, Callable<T> work) throws Exception {
+        long start = System.nanoTime();
+        long deadlineNanos = start + deadline.toNanos();
+        Lane lane = lanes.get(priority);
+        Waiter waiter;
+
+        lock.lock();
+        try {
+            long estimate = lane.estimatedWaitNanos();
+            if (estimate > deadline.toNanos()) {
+                lane.rejected.increment();
+                throw new RejectedException("deadline-unreachable", String.format(
+                        "%s queue needs ~%d ms, deadline is %d ms", priority,
+                        TimeUnit.NANOSECONDS.toMillis(estimate), deadline.toMillis()));
+            }
+            waiter = new Waiter(lock.newCondition());
+            lane.queue.addLast(waiter);
+            dispatch();
+            while (!waiter.admitted) {
+                long remaining = deadlineNanos - System.nanoTime();
+                if (remaining <= 0) {
+                    lane.queue.remove(waiter);
+                    lane.rejected.increment();
+                    throw new RejectedException("deadline-expired",
+                            priority + " request not admitted within " + deadline.toMillis() + " ms");
+                }
+                try {
+                    waiter.signal.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    if (waiter.admitted) {
+                        release(lane);
+                    } else {
+                        lane.queue.remove(waiter);
+                    }
+                    throw e;
+                }
+            }
+            lane.recordWait(System.nanoTime() - start);
+        } finally {
+            lock.unlock();
+        }
+
+        long serviceStart = System.nanoTime();
+        try {
+            return work.call();
+        } finally {
+            lock.lock();
+            try {
+                lane.recordService(System.nanoTime() - serviceStart);
+                release(lane);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public ClassStats stats(Priority priority) {
+        lock.lock();
+        try {
+            return lanes.get(priority).stats();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---- Scheduling (callers hold lock) ----
+
+    private static final class Waiter {
+        final Condition signal;
+        boolean admitted;
+
+        Waiter(Condition signal) {
+            this.signal = signal;
+        }
+    }
+
+    private final class Lane {
+        final int weight;
+        final int cap;
+        final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+        int running;
+        double virtualFinish;            // weighted fair queueing pass value
+        double serviceNanos = -1;        // EWMA of how long admitted work runs
+        final LongAdder rejected = new LongAdder();
+        long admitted;
+        long totalWaitNanos;
+        long maxWaitNanos;
+        final long[] waits = new long[WAIT_SAMPLES];
+
+        Lane(int weight, int cap) {
+            this.weight = weight;
+            this.cap = cap;
+        }
+
+        boolean eligible() {
+            return !queue.isEmpty() && running < cap;
+        }
+
+        /**
+         * Time until a request queued now would start: the work ahead of it, spread over the
+         * slots this class can use. Unknown until the first request has finished.
+         */
+        long estimatedWaitNanos() {
+            if (serviceNanos < 0 || queue.size() + running < cap) {
+                return 0;
+            }
+            int slots = Math.max(1, Math.min(cap, maxConcurrent));
+            return (long) ((queue.size() + 1) * serviceNanos / slots);
+        }
+
+        void recordWait(long nanos) {
+            waits[(int) (admitted % WAIT_SAMPLES)] = nanos;
+            admitted++;
+            totalWaitNanos += nanos;
+            maxWaitNanos = Math.max(maxWaitNanos, nanos);
+        }
+
+        void recordService(long nanos) {
+            serviceNanos = serviceNanos < 0 ? nanos : serviceNanos + 0.2 * (nanos - serviceNanos);
+        }
+
+        ClassStats stats() {
+            int n = (int) Math.min(admitted, WAIT_SAMPLES);
+            long[] recent = Arrays.copyOf(waits, n);
+            Arrays.sort(recent);
+            return new ClassStats(admitted, rejected.sum(),
+                    admitted == 0 ? 0 : totalWaitNanos / 1e6 / admitted,
+                    n == 0 ? 0 : recent[Math.min(n - 1, (int) (n * 0.99))] / 1e6,
+                    maxWaitNanos / 1e6, running, queue.size());
+        }
+    }
+
+    // Admit waiters while slots are free, always from the eligible class with the lowest pass value
+    private void dispatch() {
+        while (running < maxConcurrent) {
+            Lane next = null;
+            for (Lane lane : lanes.values()) {
+                if (lane.eligible() && (next == null || lane.virtualFinish + 1.0 / lane.weight
+                        < next.virtualFinish + 1.0 / next.weight)) {
+                    next = lane;
+                }
+            }
+            if (next == null) {
+                return;
+            }
+            // A class that was idle does not get credit for the time it had no work
+            double floor = lanes.values().stream().filter(l -> l.running > 0 || !l.queue.isEmpty())
+                    .mapToDouble(l -> l.virtualFinish).min().orElse(0);
+            next.virtualFinish = Math.max(next.virtualFinish, floor) + 1.0 / next.weight;
+
+            Waiter waiter = next.queue.removeFirst();
+            waiter.admitted = true;
+            next.running++;
+            running++;
+            waiter.signal.signal();
+        }
+    }
+
+    private void release(Lane lane) {
+        lane.running--;
+        running--;
+        dispatch();
+    }
+
+    public static class Builder {
+        private int maxConcurrent = 8;
+        private final Map<Priority, int[]> lanes = new EnumMap<>(Priority.class);
+
+        /**
+         * Total CLI processes (clients) running at once across all classes.
+         */
+        public Builder maxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+            return this;
+        }
+
+        /**
+         * Weight for fair queueing and the most slots this class may hold at once.
+         */
+        public Builder lane(Priority priority, int weight, int maxConcurrent) {
+            lanes.put(priority, new int[] {weight, maxConcurrent});
+            return this;
+        }
+
+        public ClientScheduler build() {
+            return new ClientScheduler(this);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Module 03: ClaudeSyncClient - Mixed interactive and batch load
+ *
+ * Measures interactive latency while a batch backlog competes for the same
+ * CLI processes. The same workload runs three ways:
+ * - interactive only, for reference
+ * - mixed, admitted first come first served (a fair Semaphore)
+ * - mixed, admitted by ClientScheduler (interactive weight 4, batch capped below the total)
+ *
+ * Batch jobs are all submitted at the start; interactive requests arrive at a
+ * steady rate on top. Each request is one sync connectText() turn, so each
+ * one starts its own CLI process.
+ *
+ * An interactive request that is rejected or fails counts in the latency
+ * percentiles as taking the interactive deadline (or longer, if it took
+ * longer), so shedding load cannot make a run's p99 look better.
+ *
+ * It must run against the stand-in CLI in integration-testing/stand-in-cli
+ * (STAND_IN_DELAY sets its reply delay); it refuses to start otherwise.
+ *
+ * Run with:
+ *   PATH="$PWD/integration-testing/stand-in-cli:$PATH" \
+ *   mvn compile exec:java -pl module-03-sync-client \
+ *     -Dexec.mainClass=org.springaicommunity.tutorial.module03.MixedLoadBenchmark \
+ *     -Dexec.args="200 400"
+ */
+package org.springaicommunity.tutorial.module03;
+
+import org.springaicommunity.claude.agent.sdk.ClaudeClient;
+import org.springaicommunity.claude.agent.sdk.ClaudeSyncClient;
+import org.springaicommunity.tutorial.module03.ClientScheduler.Priority;
+import org.springaicommunity.tutorial.standin.StandInCli;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+public class MixedLoadBenchmark {
+
+    private static final int MAX_CONCURRENT = 8;
+    private static final long INTERACTIVE_EVERY_MS = 50;
+    private static final Duration INTERACTIVE_DEADLINE = Duration.ofSeconds(5);
+    private static final Duration BATCH_DEADLINE = Duration.ofMinutes(10);
+
+    /**
+     * How a run admits work: run the callable once a slot is free.
+     */
+    interface Admission {
+        <T> T run(Priority priority, Callable<T> work) throws Exception;
+    }
+
+    record Run(String name, long[] interactiveMs, long interactiveRejected, int batchDone, long wallMs) {
+        long percentile(double p) {
+            return interactiveMs.length == 0 ? 0
+                    : interactiveMs[Math.min(interactiveMs.length - 1, (int) (interactiveMs.length * p))];
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Module 03: Mixed Load Benchmark ===\n");
+
+        int interactive = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int batch = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+
+        System.out.println("CLI: " + StandInCli.require());
+        System.out.printf("Interactive: %d requests, one every %d ms; batch: %d jobs queued at start; %d CLI processes max%n%n",
+                interactive, INTERACTIVE_EVERY_MS, batch, MAX_CONCURRENT);
+
+        // Warm up process start and class loading
+        run("warm-up", fifo(), 10, 10);
+
+        Run alone = run("interactive only", fifo(), interactive, 0);
+        Run fifo = run("mixed, FIFO", fifo(), interactive, batch);
+
+        ClientScheduler scheduler = ClientScheduler.builder()
+                .maxConcurrent(MAX_CONCURRENT)
+                .lane(Priority.INTERACTIVE, 4, MAX_CONCURRENT)
+                .lane(Priority.BATCH, 1, MAX_CONCURRENT - 2)
+                .build();
+        Run scheduled = run("mixed, scheduler", new Admission() {
+            @Override
+            public <T> T run(Priority priority, Callable<T> work) throws Exception {
+                return scheduler.submit(priority,
+                        priority == Priority.INTERACTIVE ? INTERACTIVE_DEADLINE : BATCH_DEADLINE, work);
+            }
+        }, interactive, batch);
+
+        System.out.printf("%-18s %9s %9s %9s %9s %10s %10s%n", "Run", "p50 (ms)", "p95 (ms)", "p99 (ms)",
+                "Rejected", "Batch done", "Wall (ms)");
+        for (Run r : List.of(alone, fifo, scheduled)) {
+            System.out.printf("%-18s %9d %9d %9d %9d %10d %10d%n", r.name(), r.percentile(0.5), r.percentile(0.95),
+                    r.percentile(0.99), r.interactiveRejected(), r.batchDone(), r.wallMs());
+        }
+
+        System.out.println("\n--- Scheduler queue time ---");
+        for (Priority priority : Priority.values()) {
+            ClientScheduler.ClassStats s = scheduler.stats(priority);
+            System.out.printf("%-11s admitted %d, rejected %d, wait mean %.1f ms, p99 %.1f ms, max %.1f ms%n",
+                    priority, s.admitted(), s.rejected(), s.meanWaitMs(), s.p99WaitMs(), s.maxWaitMs());
+        }
+
+        System.out.printf("%nInteractive p99: %d ms alone, %d ms FIFO, %d ms scheduled (rejections count as %d ms)%n",
+                alone.percentile(0.99), fifo.percentile(0.99), scheduled.percentile(0.99),
+                INTERACTIVE_DEADLINE.toMillis());
+
+        System.out.println("\n=== Done ===");
+    }
+
+    static Run run(String name, Admission admission, int interactive, int batch) throws InterruptedException {
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>(interactive));
+        LongAdder rejected = new LongAdder();
+        LongAdder batchDone = new LongAdder();
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < batch; i++) {
+                int id = i;
+                executor.submit(() -> {
+                    try {
+                        admission.run(Priority.BATCH, () -> turn("Batch job " + id));
+                        batchDone.increment();
+                    } catch (Exception e) {
+                        // Rejected or failed; counted by the scheduler
+                    }
+                });
+            }
+            for (int i = 0; i < interactive; i++) {
+                int id = i;
+                executor.submit(() -> {
+                    long t0 = System.nanoTime();
+                    try {
+                        admission.run(Priority.INTERACTIVE, () -> turn("Interactive " + id));
+                        latencies.add((System.nanoTime() - t0) / 1_000_000);
+                    } catch (Exception e) {
+                        // The user got no answer within the deadline; leaving it out would flatter the percentiles
+                        rejected.increment();
+                        latencies.add(Math.max((System.nanoTime() - t0) / 1_000_000,
+                                INTERACTIVE_DEADLINE.toMillis()));
+                    }
+                });
+                Thread.sleep(INTERACTIVE_EVERY_MS);
+            }
+        }
+        long wallMs = (System.nanoTime() - start) / 1_000_000;
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        return new Run(name, sorted, rejected.sum(), (int) batchDone.sum(), wallMs);
+    }
+
+    private static String turn(String prompt) {
+        try (ClaudeSyncClient client = ClaudeClient.sync()
+                .workingDirectory(Path.of("."))
+                .timeout(Duration.ofMinutes(5))
+                .build()) {
+            return client.connectText(prompt);
+        }
+    }
+
+    // First come first served, whatever the class
+    private static Admission fifo() {
+        Semaphore slots = new Semaphore(MAX_CONCURRENT, true);
+        return new Admission() {
+            @Override
+            public <T> T run(Priority priority, Callable<T> work) throws Exception {
+                slots.acquire();
+                try {
+                    return work.call();
+                } finally {
+                    slots.release();
+                }
+            }
+        };
+    }
+}
@@ -4,6 +4,13 @@
  * Learn how to use ClaudeSyncClient for multi-turn conversations.
  * Unlike Query, clients maintain context between messages.
  *
+ * Afterwards the same prompt is sent twice in fresh sessions, once with
+ * connectText() and once with TextStream, to compare when the first text can
+ * be shown. The SDK delivers whole assistant messages, not token deltas, so
+ * TextStream's chunks are messages: a reply without tool calls usually comes
+ * as one chunk, and streaming only shows text earlier when the turn has
+ * several messages.
+ *
  * Run with: mvn compile exec:java -pl module-03-sync-client
  */
 package org.springaicommunity.tutorial.module03;
@@ -39,6 +46,37 @@ public class SyncClientExample {
             System.out.println("Claude: " + answer3);
         }
 
+        // Same prompt, fresh session each: blocking, then streaming
+        String prompt = "Describe the history of the Eiffel Tower in three short paragraphs.";
+        System.out.println("\n--- Blocking vs streaming ---");
+
+        try (ClaudeSyncClient client = ClaudeClient.sync()
+                .workingDirectory(Path.of("."))
+                .build()) {
+            System.out.println("\nYou: " + prompt);
+            long start = System.nanoTime();
+            String answer = client.connectText(prompt);
+            long blockingMs = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("Claude: " + answer);
+            System.out.printf("  [blocking: first text after %d ms]%n", blockingMs);
+        }
+
+        try (ClaudeSyncClient client = ClaudeClient.sync()
+                .workingDirectory(Path.of("."))
+                .build()) {
+            // Each chunk is one whole assistant message, printed as soon as it arrives
+            System.out.println("\nYou: " + prompt);
+            System.out.print("Claude: ");
+            TextStream stream = TextStream.connect(client, prompt);
+            stream.forEachChunk(chunk -> {
+                System.out.print(chunk);
+                System.out.flush();
+            });
+            TextStream.Stats stats = stream.stats();
+            System.out.printf("%n  [streaming: first text after %d ms, complete after %d ms, %d chunks]%n",
+                    stats.firstTextMs(), stats.totalMs(), stats.chunks());
+        }
+
         System.out.println("\n=== Done ===");
     }
 }
@@ -0,0 +1,136 @@
+/*
+ * Module 03: ClaudeSyncClient - Streaming text view
+ *
+ * connectText() and queryText() return only once the whole turn has finished,
+ * so a UI shows nothing until then. TextStream is an Iterator<String> over the
+ * same turn that yields each piece of assistant text as soon as the CLI emits
+ * it: text before a tool call shows up while the tool is still running.
+ * Pieces are whole assistant messages, not token deltas; a turn without tool
+ * calls usually yields a single piece.
+ *
+ * Everything happens on the calling thread, pulling from receiveResponse();
+ * no thread is started per call. stats() reports time to first text and total
+ * time, so the perceived-latency gain can be measured.
+ */
+package org.springaicommunity.tutorial.module03;
+
+import org.springaicommunity.claude.agent.sdk.ClaudeSyncClient;
+import org.springaicommunity.claude.agent.sdk.parsing.ParsedMessage;
+import org.springaicommunity.claude.agent.sdk.types.AssistantMessage;
+import org.springaicommunity.claude.agent.sdk.types.ResultMessage;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public final class TextStream implements Iterator<String> {
+
+    /**
+     * Timing of one streamed turn. firstTextMs is -1 when the turn produced no text.
+     */
+    public record Stats(long firstTextMs, long totalMs, int chunks, int chars) {}
+
+    private final Iterator<ParsedMessage> messages;
+    private final long start;
+    private final StringBuilder text = new StringBuilder();
+
+    private String pending;
+    private long firstTextNanos = -1;
+    private long endNanos = -1;
+    private int chunks;
+    private ResultMessage result;
+
+    private TextStream(Iterator<ParsedMessage> messages, long start) {
+        this.messages = messages;
+        this.start = start;
+    }
+
+    /**
+     * Start the session with a prompt and stream its reply (streaming connectText()).
+     */
+    public static TextStream connect(ClaudeSyncClient client, String prompt) {
+        long start = System.nanoTime();
+        client.connect(prompt);
+        return new TextStream(client.receiveResponse(), start);
+    }
+
+    /**
+     * Send a follow-up and stream its reply (streaming queryText()).
+     */
+    public static TextStream query(ClaudeSyncClient client, String prompt) {
+        long start = System.nanoTime();
+        client.query(prompt);
+        return new TextStream(client.receiveResponse(), start);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (pending == null && endNanos < 0) {
+            if (!messages.hasNext()) {
+                endNanos = System.nanoTime();
+                break;
+            }
+            ParsedMessage parsed = messages.next();
+            if (!parsed.isRegularMessage()) {
+                continue;
+            }
+            if (parsed.asMessage() instanceof AssistantMessage assistant) {
+                assistant.getTextContent().filter(t -> !t.isEmpty()).ifPresent(t -> {
+                    if (firstTextNanos < 0) {
+                        firstTextNanos = System.nanoTime();
+                    }
+                    pending = t;
+                });
+            } else if (parsed.asMessage() instanceof ResultMessage rm) {
+                result = rm;
+            }
+        }
+        return pending != null;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String chunk = pending;
+        pending = null;
+        chunks++;
+        text.append(chunk);
+        return chunk;
+    }
+
+    /**
+     * Hand every chunk to the callback as it arrives, then return the full text.
+     */
+    public String forEachChunk(Consumer<String> onText) {
+        while (hasNext()) {
+            onText.accept(next());
+        }
+        return text.toString();
+    }
+
+    /**
+     * Drain the rest of the turn and return all text (what queryText() would have returned).
+     */
+    public String text() {
+        return forEachChunk(chunk -> {});
+    }
+
+    /**
+     * The turn's result, once the stream is exhausted.
+     */
+    public Optional<ResultMessage> result() {
+        return Optional.ofNullable(result);
+    }
+
+    public Stats stats() {
+        long end = endNanos >= 0 ? endNanos : System.nanoTime();
+        return new Stats(
+                firstTextNanos >= 0 ? (firstTextNanos - start) / 1_000_000 : -1,
+                (end - start) / 1_000_000,
+                chunks,
+                text.length());
+    }
+}
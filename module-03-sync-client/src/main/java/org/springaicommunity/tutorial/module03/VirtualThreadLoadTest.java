@@ -0,0 +1,177 @@
+/*
+ * Module 03: ClaudeSyncClient - Virtual thread load test
+ *
+ * Runs thousands of two-turn sync conversations at once, one virtual thread
+ * each, the way a server handling requests on virtual threads would use
+ * ClaudeSyncClient. It reports:
+ * - virtual thread pinning (JFR jdk.VirtualThreadPinned events, with the top frames)
+ * - peak carrier threads and peak platform threads, to show that blocking
+ *   pipe reads and process waits do not cost a platform thread per client:
+ *   carriers must stay within the scheduler's parallelism, and platform
+ *   threads within the threads alive before the load, plus the carriers,
+ *   plus a fixed overhead
+ *
+ * It must run against the stand-in CLI in integration-testing/stand-in-cli,
+ * which answers instantly without calling a model; StandInCli.require() stops
+ * the test if the CLI the SDK would launch is anything else.
+ *
+ * Run with:
+ *   PATH="$PWD/integration-testing/stand-in-cli:$PATH" \
+ *   MAVEN_OPTS="-Djdk.tracePinnedThreads=short" \
+ *   mvn compile exec:java -pl module-03-sync-client \
+ *     -Dexec.mainClass=org.springaicommunity.tutorial.module03.VirtualThreadLoadTest \
+ *     -Dexec.args="5000"
+ */
+package org.springaicommunity.tutorial.module03;
+
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.springaicommunity.claude.agent.sdk.ClaudeClient;
+import org.springaicommunity.claude.agent.sdk.ClaudeSyncClient;
+import org.springaicommunity.tutorial.standin.StandInCli;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+public class VirtualThreadLoadTest {
+
+    private static final int DEFAULT_CONVERSATIONS = 5_000;
+    // JFR, the sampler, process handling and JIT threads that may start during the load
+    private static final int PLATFORM_OVERHEAD = 32;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Module 03: Virtual Thread Load Test ===\n");
+
+        int conversations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CONVERSATIONS;
+
+        Path cli = StandInCli.require();
+        int parallelism = Integer.parseInt(System.getProperty("jdk.virtualThreadScheduler.parallelism",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        System.out.println("CLI: " + cli);
+        System.out.printf("Conversations: %d (two turns each, one virtual thread each)%n", conversations);
+        System.out.println("Carrier parallelism: " + parallelism);
+        System.out.println();
+
+        // Pinning: every jdk.VirtualThreadPinned event, whatever its duration
+        LongAdder pinned = new LongAdder();
+        Map<String, AtomicInteger> pinnedAt = new ConcurrentHashMap<>();
+        RecordingStream jfr = new RecordingStream();
+        jfr.enable("jdk.VirtualThreadPinned").withoutThreshold().withStackTrace();
+        jfr.onEvent("jdk.VirtualThreadPinned", event -> {
+            pinned.increment();
+            String frames = event.getStackTrace() == null ? "(no stack)" : event.getStackTrace().getFrames().stream()
+                    .limit(3)
+                    .map(VirtualThreadLoadTest::frame)
+                    .collect(Collectors.joining(" <- "));
+            pinnedAt.computeIfAbsent(frames, k -> new AtomicInteger()).incrementAndGet();
+        });
+        jfr.startAsync();
+
+        ThreadSampler sampler = new ThreadSampler();
+        int baseline = sampler.threads.getThreadCount();
+        LongAdder failed = new LongAdder();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>(conversations));
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < conversations; i++) {
+                int id = i;
+                executor.submit(() -> {
+                    long t0 = System.nanoTime();
+                    try (ClaudeSyncClient client = ClaudeClient.sync()
+                            .workingDirectory(Path.of("."))
+                            .timeout(Duration.ofMinutes(5))
+                            .build()) {
+                        client.connectText("Conversation " + id + ": hello");
+                        client.queryText("Conversation " + id + ": follow-up");
+                        latencies.add((System.nanoTime() - t0) / 1_000_000);
+                    } catch (Exception e) {
+                        failed.increment();
+                    }
+                });
+            }
+        }
+        long wallMs = (System.nanoTime() - start) / 1_000_000;
+        sampler.stop();
+        jfr.stop();
+        jfr.close();
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.println("--- Results ---");
+        System.out.printf("Completed: %d, failed: %d, wall clock: %d ms%n", sorted.length, failed.sum(), wallMs);
+        if (sorted.length > 0) {
+            System.out.printf("Conversation latency: p50 %d ms, p99 %d ms, max %d ms%n",
+                    sorted[sorted.length / 2], sorted[(int) (sorted.length * 0.99)], sorted[sorted.length - 1]);
+        }
+        System.out.printf("Peak carrier threads: %d%n", sampler.peakCarriers);
+        int peakPlatform = sampler.threads.getPeakThreadCount();
+        int platformBound = baseline + sampler.peakCarriers + PLATFORM_OVERHEAD;
+        System.out.printf("Peak platform threads: %d (for %d concurrent clients; bound %d = %d before the load"
+                + " + %d carriers + %d)%n", peakPlatform, conversations, platformBound, baseline,
+                sampler.peakCarriers, PLATFORM_OVERHEAD);
+        System.out.printf("Pinned virtual threads: %d%n", pinned.sum());
+        pinnedAt.entrySet().stream()
+                .sorted((a, b) -> b.getValue().get() - a.getValue().get())
+                .limit(5)
+                .forEach(e -> System.out.printf("  %5d x %s%n", e.getValue().get(), e.getKey()));
+
+        System.out.println();
+        System.out.println(pinned.sum() == 0 ? "PASS: no pinning" : "FAIL: virtual threads were pinned");
+        System.out.println(sampler.peakCarriers <= parallelism
+                ? "PASS: carrier threads within the scheduler's parallelism"
+                : "FAIL: carrier threads grew past the parallelism (blocking calls were compensated)");
+        System.out.println(peakPlatform <= platformBound
+                ? "PASS: platform threads bounded by the carriers plus a fixed overhead"
+                : "FAIL: platform threads grew with the number of clients");
+
+        System.out.println("\n=== Done ===");
+    }
+
+    private static String frame(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    /**
+     * Samples live carrier threads (the virtual thread scheduler's ForkJoinPool workers).
+     */
+    static class ThreadSampler {
+
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        volatile int peakCarriers;
+        private final Thread thread;
+
+        ThreadSampler() {
+            threads.resetPeakThreadCount();
+            thread = Thread.ofPlatform().daemon().name("carrier-sampler").start(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    int carriers = (int) Thread.getAllStackTraces().keySet().stream()
+                            .filter(t -> t.getName().startsWith("ForkJoinPool-1-worker-"))
+                            .count();
+                    peakCarriers = Math.max(peakCarriers, carriers);
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+        }
+
+        void stop() throws InterruptedException {
+            thread.interrupt();
+            thread.join();
+        }
+    }
+}
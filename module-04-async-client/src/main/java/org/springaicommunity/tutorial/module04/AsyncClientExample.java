@@ -2,7 +2,8 @@
  * Module 04: ClaudeAsyncClient
  *
  * Reactive, composable, non-blocking chains with Project Reactor.
- * Uses TurnSpec pattern for elegant response handling.
+ * Uses TurnSpec pattern for elegant response handling, then the same
+ * conversation as a Flux of prompts with the Conversation operator.
  *
  * Run with: mvn compile exec:java -pl module-04-async-client
  */
@@ -13,7 +14,10 @@ import org.springaicommunity.claude.agent.sdk.ClaudeAsyncClient;
 import org.springaicommunity.claude.agent.sdk.types.AssistantMessage;
 import org.springaicommunity.claude.agent.sdk.types.ResultMessage;
 
+import reactor.core.publisher.Flux;
+
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.concurrent.CountDownLatch;
 
 public class AsyncClientExample {
@@ -51,6 +55,26 @@ public class AsyncClientExample {
 
         // Wait for completion (in real reactive apps, this isn't needed)
         latch.await();
-        System.out.println("\n=== Done ===");
+
+        // The same conversation as a stream of prompts: no nesting, no latch
+        System.out.println("\n--- Conversation operator ---\n");
+        ClaudeAsyncClient client2 = ClaudeClient.async()
+                .workingDirectory(Path.of("."))
+                .build();
+
+        Conversation.connect(client2,
+                        Flux.just("What is the capital of Italy?",
+                                "What is the population of that city?",
+                                "What famous landmark is there?"),
+                        Duration.ofMinutes(2))
+                .doOnNext(turn -> {
+                    System.out.println("You: " + turn.prompt());
+                    System.out.println("Claude: " + turn.text());
+                    System.out.printf("  [turn %d: %d ms%s]%n%n", turn.turn(), turn.latency().toMillis(),
+                            turn.gap() == null ? "" : ", sent " + turn.gap().toNanos() / 1_000 + " µs after previous result");
+                })
+                .blockLast();
+
+        System.out.println("=== Done ===");
     }
 }
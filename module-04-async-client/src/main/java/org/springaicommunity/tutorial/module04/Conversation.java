@@ -0,0 +1,99 @@
+/*
+ * Module 04: ClaudeAsyncClient - Multi-turn conversation operator
+ *
+ * Turns a Flux<String> of prompts into a Flux<TurnResult>, one turn after
+ * another on the same client:
+ *
+ *   Conversation.connect(client, Flux.just("Q1", "Q2", "Q3"), Duration.ofMinutes(2))
+ *           .doOnNext(turn -> System.out.println(turn.text()))
+ *           .blockLast();
+ *
+ * The next prompt is sent from the completion signal of the previous turn, on
+ * the thread that delivered its ResultMessage, with no publishOn/subscribeOn
+ * in between. Prompts are prefetched, so a slow prompt source does not add to
+ * the gap. A turn that exceeds the timeout is interrupted and the Flux errors
+ * with a TimeoutException.
+ */
+package org.springaicommunity.tutorial.module04;
+
+import org.springaicommunity.claude.agent.sdk.ClaudeAsyncClient;
+import org.springaicommunity.claude.agent.sdk.types.AssistantMessage;
+import org.springaicommunity.claude.agent.sdk.types.Message;
+import org.springaicommunity.claude.agent.sdk.types.ResultMessage;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+public final class Conversation {
+
+    /**
+     * One completed turn. gap is the time from the previous turn's ResultMessage to
+     * this prompt being sent (null for the first turn); result is null if the turn
+     * ended without one.
+     */
+    public record TurnResult(int turn, String prompt, String text, ResultMessage result, Duration latency,
+                             Duration gap) {}
+
+    private final ClaudeAsyncClient client;
+    private final Duration turnTimeout;
+    private boolean connected;
+    private int turns;
+    private long lastResultNanos = -1;
+
+    private Conversation(ClaudeAsyncClient client, boolean connected, Duration turnTimeout) {
+        this.client = client;
+        this.connected = connected;
+        this.turnTimeout = turnTimeout;
+    }
+
+    /**
+     * Start a new session: the first prompt connects, the rest are follow-ups.
+     */
+    public static Flux<TurnResult> connect(ClaudeAsyncClient client, Flux<String> prompts, Duration turnTimeout) {
+        return Flux.defer(() -> new Conversation(client, false, turnTimeout).run(prompts));
+    }
+
+    /**
+     * Continue an already connected session: every prompt is a follow-up.
+     */
+    public static Flux<TurnResult> query(ClaudeAsyncClient client, Flux<String> prompts, Duration turnTimeout) {
+        return Flux.defer(() -> new Conversation(client, true, turnTimeout).run(prompts));
+    }
+
+    private Flux<TurnResult> run(Flux<String> prompts) {
+        // concatMap keeps turns strictly sequential and subscribes to the next one
+        // from the previous turn's onComplete
+        return prompts.concatMap(this::turn);
+    }
+
+    private Mono<TurnResult> turn(String prompt) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            Duration gap = lastResultNanos < 0 ? null : Duration.ofNanos(start - lastResultNanos);
+            int index = ++turns;
+            StringBuilder text = new StringBuilder();
+            ResultMessage[] result = new ResultMessage[1];
+
+            Flux<Message> messages = connected ? client.query(prompt).messages() : client.connect(prompt).messages();
+            connected = true;
+
+            return messages
+                    .doOnNext(message -> {
+                        if (message instanceof AssistantMessage assistant) {
+                            assistant.getTextContent().ifPresent(text::append);
+                        } else if (message instanceof ResultMessage rm) {
+                            lastResultNanos = System.nanoTime();
+                            result[0] = rm;
+                        }
+                    })
+                    .then(Mono.fromCallable(() -> new TurnResult(index, prompt, text.toString(), result[0],
+                            Duration.ofNanos(System.nanoTime() - start), gap)))
+                    .timeout(turnTimeout)
+                    .onErrorResume(error -> error instanceof TimeoutException
+                            ? client.interrupt().then(Mono.<TurnResult>error(error))
+                            : Mono.error(error));
+        });
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Module 04: ClaudeAsyncClient - Inter-turn gap measurement
+ *
+ * Runs the same multi-turn conversation two ways and measures the gap between
+ * a turn's ResultMessage and the next prompt being sent:
+ * - flatMap chain: client.connect(..).text().flatMap(r -> client.query(..).text())...
+ * - Conversation.connect(client, prompts, timeout)
+ *
+ * Uses the stand-in CLI from integration-testing/stand-in-cli so only the
+ * client-side gap is measured; the benchmark refuses to start against a real CLI.
+ *
+ * Run with:
+ *   PATH="$PWD/integration-testing/stand-in-cli:$PATH" STAND_IN_DELAY=0 \
+ *   mvn compile exec:java -pl module-04-async-client \
+ *     -Dexec.mainClass=org.springaicommunity.tutorial.module04.ConversationBenchmark
+ */
+package org.springaicommunity.tutorial.module04;
+
+import org.springaicommunity.claude.agent.sdk.ClaudeAsyncClient;
+import org.springaicommunity.claude.agent.sdk.ClaudeClient;
+import org.springaicommunity.tutorial.standin.StandInCli;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+public class ConversationBenchmark {
+
+    private static final int TURNS = 20;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        System.out.println("=== Module 04: Conversation Gap Benchmark ===\n");
+
+        StandInCli.require();
+
+        List<String> prompts = IntStream.rangeClosed(1, TURNS).mapToObj(i -> "Turn " + i).toList();
+
+        // Warm up both paths
+        flatMapChain(prompts);
+        conversation(prompts);
+
+        System.out.printf("%d turns per conversation, gap = ResultMessage -> next prompt sent%n%n", TURNS);
+        System.out.printf("%-14s %12s %12s %12s%n", "Path", "Gap p50 (ms)", "Gap max (ms)", "Total (ms)");
+        for (int round = 0; round < ROUNDS; round++) {
+            print("flatMap chain", flatMapChain(prompts));
+            print("conversation", conversation(prompts));
+        }
+
+        System.out.println("\n=== Done ===");
+    }
+
+    record Measurement(List<Long> gapsMicros, long totalMs) {}
+
+    /**
+     * The hand-written chain from AsyncClientExample, folded over the prompts.
+     */
+    static Measurement flatMapChain(List<String> prompts) {
+        ClaudeAsyncClient client = newClient();
+        AtomicLong lastResult = new AtomicLong(-1);
+        List<Long> gaps = Collections.synchronizedList(new ArrayList<>());
+        client.onResult(result -> lastResult.set(System.nanoTime()));
+
+        long start = System.nanoTime();
+        Mono<String> chain = client.connect(prompts.get(0)).text();
+        for (String prompt : prompts.subList(1, prompts.size())) {
+            chain = chain.flatMap(previous -> {
+                gaps.add((System.nanoTime() - lastResult.get()) / 1_000);
+                return client.query(prompt).text();
+            });
+        }
+        chain.block();
+        long totalMs = (System.nanoTime() - start) / 1_000_000;
+        client.close().block();
+        return new Measurement(gaps, totalMs);
+    }
+
+    /**
+     * Conversation reports the gap itself, timed from the ResultMessage it observed.
+     */
+    static Measurement conversation(List<String> prompts) {
+        ClaudeAsyncClient client = newClient();
+        List<Long> gaps = Collections.synchronizedList(new ArrayList<>());
+
+        long start = System.nanoTime();
+        Conversation.connect(client, Flux.fromIterable(prompts), Duration.ofMinutes(1))
+                .doOnNext(turn -> {
+                    if (turn.gap() != null) {
+                        gaps.add(turn.gap().toNanos() / 1_000);
+                    }
+                })
+                .blockLast();
+        long totalMs = (System.nanoTime() - start) / 1_000_000;
+        client.close().block();
+        return new Measurement(gaps, totalMs);
+    }
+
+    private static ClaudeAsyncClient newClient() {
+        return ClaudeClient.async()
+                .workingDirectory(Path.of("."))
+                .timeout(Duration.ofMinutes(1))
+                .build();
+    }
+
+    private static void print(String path, Measurement m) {
+        long[] gaps = m.gapsMicros().stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("%-14s %12.3f %12.3f %12d%n", path,
+                gaps.length == 0 ? 0 : gaps[gaps.length / 2] / 1000.0,
+                gaps.length == 0 ? 0 : gaps[gaps.length - 1] / 1000.0,
+                m.totalMs());
+    }
+}
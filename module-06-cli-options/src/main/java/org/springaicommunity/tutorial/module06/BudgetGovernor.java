@@ -0,0 +1,467 @@
+/*
+ * Module 06: CLI Options - Shared budget and rate limits across clients
+ *
+ * maxBudgetUsd() caps a single client. BudgetGovernor caps all of them:
+ * - a global USD budget, tracked from ResultMessage.totalCostUsd() with
+ *   lock-free accumulators; once spent, new and queued turns are rejected.
+ *   totalCostUsd() is the session's running total, so each turn is charged
+ *   only the increase over the session's previous result
+ * - a token bucket per (tenant, model), refilled at a per-model tokens/minute
+ *   rate and drained by each turn's reported usage
+ * - a limit on turns in flight; waiting turns are queued per tenant and
+ *   admitted round-robin across tenants, so one busy tenant cannot starve others
+ *
+ * A turn that cannot be admitted within maxQueueWait is rejected. Queue wait
+ * and rejection counts are available from stats().
+ *
+ *   try (BudgetGovernor.Permit permit = governor.acquire("tenant-a", CLIOptions.MODEL_HAIKU)) {
+ *       ... run one connect/query turn ...
+ *       permit.record(resultMessage);
+ *   }
+ */
+package org.springaicommunity.tutorial.module06;
+
+import org.springaicommunity.claude.agent.sdk.ClaudeSyncClient;
+import org.springaicommunity.claude.agent.sdk.parsing.ParsedMessage;
+import org.springaicommunity.claude.agent.sdk.types.AssistantMessage;
+import org.springaicommunity.claude.agent.sdk.types.ResultMessage;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class BudgetGovernor {
+
+    /**
+     * Thrown when a turn is not admitted. reason is "budget" or "queue-timeout".
+     */
+    public static class RejectedException extends RuntimeException {
+        private final String reason;
+
+        RejectedException(String reason, String message) {
+            super(message);
+            this.reason = reason;
+        }
+
+        public String reason() {
+            return reason;
+        }
+    }
+
+    public record Stats(
+            long admitted,
+            long rejectedBudget,
+            long rejectedTimeout,
+            double spentUsd,
+            double meanQueueWaitMs,
+            double maxQueueWaitMs,
+            int inFlight,
+            int queued,
+            Map<String, Double> spentByTenant
+    ) {}
+
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final int MAX_TRACKED_SESSIONS = 10_000;
+
+    private final double budgetUsd;
+    private final int maxInFlight;
+    private final Duration maxQueueWait;
+    private final Map<String, Long> tokensPerMinute;
+    private final long defaultTokensPerMinute;
+
+    // Spend and metrics: lock-free
+    private final DoubleAdder spent = new DoubleAdder();
+    private final Map<String, DoubleAdder> spentByTenant = new ConcurrentHashMap<>();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejectedBudget = new LongAdder();
+    private final LongAdder rejectedTimeout = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Math::max, 0);
+
+    // Admission state: guarded by lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<String, ArrayDeque<Waiter>> queues = new LinkedHashMap<>();
+    private final Map<String, TokenBucket> buckets = new HashMap<>();
+    private final List<String> rotation = new ArrayList<>();
+    // Last reported totalCostUsd() per session, least recently charged evicted first
+    private final Map<String, Double> sessionTotals = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Double> eldest) {
+            return size() > MAX_TRACKED_SESSIONS;
+        }
+    };
+    private int nextTenant;
+    private int inFlight;
+    private int queued;
+
+    private BudgetGovernor(Builder builder) {
+        this.budgetUsd = builder.budgetUsd;
+        this.maxInFlight = builder.maxInFlight;
+        this.maxQueueWait = builder.maxQueueWait;
+        this.tokensPerMinute = Map.copyOf(builder.tokensPerMinute);
+        this.defaultTokensPerMinute = builder.defaultTokensPerMinute;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Wait for admission of one turn, fairly across tenants.
+     *
+     * @throws RejectedException when the budget is spent or the wait exceeds maxQueueWait
+     */
+    public Permit acquire(String tenant, String model) throws InterruptedException {
+        if (spent.sum() >= budgetUsd) {
+            throw budgetSpent();
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + maxQueueWait.toNanos();
+        Waiter waiter = new Waiter(tenant, model);
+
+        lock.lock();
+        try {
+            enqueue(waiter);
+            dispatch();
+            while (!waiter.admitted) {
+                if (waiter.overBudget) {
+                    throw budgetSpent();
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    dequeue(waiter);
+                    rejectedTimeout.increment();
+                    throw new RejectedException("queue-timeout",
+                            "Not admitted within " + maxQueueWait.toMillis() + " ms");
+                }
+                // Buckets refill with time, so wake up periodically even without a release
+                changed.awaitNanos(Math.min(remaining, POLL_NANOS));
+                dispatch();
+            }
+        } catch (InterruptedException e) {
+            if (waiter.admitted) {
+                inFlight--;
+                dispatch();
+            } else {
+                dequeue(waiter);
+            }
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+
+        long waited = System.nanoTime() - start;
+        queueWaitNanos.add(waited);
+        maxQueueWaitNanos.accumulate(waited);
+        admitted.increment();
+        return new Permit(tenant, model);
+    }
+
+    private RejectedException budgetSpent() {
+        rejectedBudget.increment();
+        return new RejectedException("budget", String.format("Budget of $%.2f spent", budgetUsd));
+    }
+
+    /**
+     * Run one sync connect turn under a permit and return its text.
+     */
+    public String connectText(ClaudeSyncClient client, String tenant, String model, String prompt)
+            throws InterruptedException {
+        try (Permit permit = acquire(tenant, model)) {
+            client.connect(prompt);
+            return collect(client.receiveResponse(), permit);
+        }
+    }
+
+    /**
+     * Run one sync query turn under a permit and return its text.
+     */
+    public String queryText(ClaudeSyncClient client, String tenant, String model, String prompt)
+            throws InterruptedException {
+        try (Permit permit = acquire(tenant, model)) {
+            client.query(prompt);
+            return collect(client.receiveResponse(), permit);
+        }
+    }
+
+    public Stats stats() {
+        long count = admitted.sum();
+        Map<String, Double> byTenant = new LinkedHashMap<>();
+        spentByTenant.forEach((tenant, adder) -> byTenant.put(tenant, adder.sum()));
+        lock.lock();
+        try {
+            return new Stats(count, rejectedBudget.sum(), rejectedTimeout.sum(), spent.sum(),
+                    count == 0 ? 0 : queueWaitNanos.sum() / 1_000_000.0 / count,
+                    maxQueueWaitNanos.get() / 1_000_000.0,
+                    inFlight, queued, byTenant);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * One admitted turn. Record its result, then close it to free the slot.
+     */
+    public final class Permit implements AutoCloseable {
+        private final String tenant;
+        private final String model;
+        private boolean closed;
+
+        private Permit(String tenant, String model) {
+            this.tenant = tenant;
+            this.model = model;
+        }
+
+        /**
+         * Charge the turn's cost to the budget and its tokens to the (tenant, model) bucket.
+         */
+        public void record(ResultMessage result) {
+            long tokens = tokens(result.usage());
+            lock.lock();
+            try {
+                if (result.totalCostUsd() != null) {
+                    double cost = turnCost(result.sessionId(), result.totalCostUsd());
+                    spent.add(cost);
+                    spentByTenant.computeIfAbsent(tenant, t -> new DoubleAdder()).add(cost);
+                }
+                if (tokens > 0) {
+                    bucket(tenant, model).take(tokens);
+                }
+                if (spent.sum() >= budgetUsd) {
+                    dispatch();   // release the queued turns now rather than at their next poll
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                if (!closed) {
+                    closed = true;
+                    inFlight--;
+                    dispatch();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // ---- Admission (callers hold lock) ----
+
+    // The increase of a session's running total since its previous result; a lower total starts a new count
+    private double turnCost(String sessionId, double total) {
+        if (sessionId == null) {
+            return total;
+        }
+        Double previous = sessionTotals.put(sessionId, total);
+        return previous == null || previous > total ? total : total - previous;
+    }
+
+    private static final class Waiter {
+        final String tenant;
+        final String model;
+        boolean admitted;
+        boolean overBudget;
+
+        Waiter(String tenant, String model) {
+            this.tenant = tenant;
+            this.model = model;
+        }
+    }
+
+    private void enqueue(Waiter waiter) {
+        queues.computeIfAbsent(waiter.tenant, t -> {
+            rotation.add(t);
+            return new ArrayDeque<>();
+        }).addLast(waiter);
+        queued++;
+    }
+
+    // Callers only dequeue waiters not yet admitted or rejected, but a queue may already be gone
+    private void dequeue(Waiter waiter) {
+        ArrayDeque<Waiter> queue = queues.get(waiter.tenant);
+        if (queue != null && queue.remove(waiter)) {
+            queued--;
+            if (queue.isEmpty()) {
+                removeTenant(waiter.tenant);
+            }
+        }
+    }
+
+    // Tenants with nothing queued leave the rotation, so it only holds tenants that are waiting
+    private void removeTenant(String tenant) {
+        queues.remove(tenant);
+        int index = rotation.indexOf(tenant);
+        rotation.remove(index);
+        if (index < nextTenant) {
+            nextTenant--;
+        }
+        if (nextTenant >= rotation.size()) {
+            nextTenant = 0;
+        }
+    }
+
+    // Admit head waiters round-robin across tenants while slots are free; reject them all once the budget is spent
+    private void dispatch() {
+        if (queued > 0 && spent.sum() >= budgetUsd) {
+            queues.values().forEach(queue -> queue.forEach(waiter -> waiter.overBudget = true));
+            queues.clear();
+            rotation.clear();
+            nextTenant = 0;
+            queued = 0;
+            changed.signalAll();
+            return;
+        }
+        boolean admittedAny = false;
+        int skipped = 0;
+        while (inFlight < maxInFlight && queued > 0 && skipped < rotation.size()) {
+            String tenant = rotation.get(nextTenant);
+            ArrayDeque<Waiter> queue = queues.get(tenant);
+            Waiter head = queue.peekFirst();
+            if (!bucket(head.tenant, head.model).hasTokens()) {
+                nextTenant = (nextTenant + 1) % rotation.size();
+                skipped++;
+                continue;
+            }
+            queue.removeFirst();
+            queued--;
+            head.admitted = true;
+            inFlight++;
+            admittedAny = true;
+            skipped = 0;
+            if (queue.isEmpty()) {
+                removeTenant(tenant);   // nextTenant now points at the tenant after it
+            } else {
+                nextTenant = (nextTenant + 1) % rotation.size();
+            }
+        }
+        if (admittedAny) {
+            changed.signalAll();
+        }
+    }
+
+    private TokenBucket bucket(String tenant, String model) {
+        return buckets.computeIfAbsent(tenant + '\u0000' + model, k -> new TokenBucket(
+                tokensPerMinute.getOrDefault(model, defaultTokensPerMinute)));
+    }
+
+    /**
+     * Refills continuously up to one minute's worth. Usage is charged after the turn,
+     * so the balance can go negative; the next turn waits until it is positive again.
+     */
+    private static final class TokenBucket {
+        final double capacity;
+        final double perNano;
+        double tokens;
+        long updated = System.nanoTime();
+
+        TokenBucket(long tokensPerMinute) {
+            this.capacity = tokensPerMinute;
+            this.perNano = tokensPerMinute / 60e9;
+            this.tokens = tokensPerMinute;
+        }
+
+        boolean hasTokens() {
+            refill();
+            return tokens > 0;
+        }
+
+        void take(long used) {
+            refill();
+            tokens -= used;
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - updated) * perNano);
+            updated = now;
+        }
+    }
+
+    private static String collect(Iterator<ParsedMessage> messages, Permit permit) {
+        StringBuilder text = new StringBuilder();
+        while (messages.hasNext()) {
+            ParsedMessage msg = messages.next();
+            if (!msg.isRegularMessage()) {
+                continue;
+            }
+            if (msg.asMessage() instanceof AssistantMessage am) {
+                am.getTextContent().ifPresent(text::append);
+            } else if (msg.asMessage() instanceof ResultMessage rm) {
+                permit.record(rm);
+            }
+        }
+        return text.toString();
+    }
+
+    private static long tokens(Map<String, Object> usage) {
+        if (usage == null) {
+            return 0;
+        }
+        long total = 0;
+        for (String key : List.of("input_tokens", "output_tokens")) {
+            if (usage.get(key) instanceof Number n) {
+                total += n.longValue();
+            }
+        }
+        return total;
+    }
+
+    public static class Builder {
+        private double budgetUsd = Double.MAX_VALUE;
+        private int maxInFlight = 16;
+        private Duration maxQueueWait = Duration.ofSeconds(30);
+        private final Map<String, Long> tokensPerMinute = new HashMap<>();
+        private long defaultTokensPerMinute = 1_000_000;
+
+        public Builder budgetUsd(double budgetUsd) {
+            this.budgetUsd = budgetUsd;
+            return this;
+        }
+
+        public Builder maxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        public Builder maxQueueWait(Duration maxQueueWait) {
+            this.maxQueueWait = maxQueueWait;
+            return this;
+        }
+
+        /**
+         * Token bucket rate for every (tenant, model) pair using this model.
+         */
+        public Builder tokensPerMinute(String model, long tokensPerMinute) {
+            this.tokensPerMinute.put(model, tokensPerMinute);
+            return this;
+        }
+
+        public Builder defaultTokensPerMinute(long tokensPerMinute) {
+            this.defaultTokensPerMinute = tokensPerMinute;
+            return this;
+        }
+
+        public BudgetGovernor build() {
+            return new BudgetGovernor(this);
+        }
+    }
+}
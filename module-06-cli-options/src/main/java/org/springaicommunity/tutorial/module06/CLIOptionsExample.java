@@ -6,6 +6,8 @@
  * Two approaches:
  * 1. Fluent Builder: Configure everything via ClaudeClient.sync() methods
  * 2. CLIOptions: Pre-build options separately, useful for sharing/loading config
+ * 3. Shared CLIOptions: Build options once and reuse them for every client
+ * 4. BudgetGovernor: One budget and fair rate limits shared by all clients
  *
  * Run with: mvn compile exec:java -pl module-06-cli-options
  */
@@ -18,6 +20,11 @@ import org.springaicommunity.claude.agent.sdk.transport.CLIOptions;
 
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class CLIOptionsExample {
 
@@ -30,6 +37,12 @@ public class CLIOptionsExample {
         // Approach 2: Pre-built CLIOptions (reusable config)
         cliOptionsApproach();
 
+        // Approach 3: One shared CLIOptions instance (many clients, same config)
+        sharedOptionsApproach();
+
+        // Approach 4: Shared budget across clients
+        sharedBudgetApproach();
+
         System.out.println("\n=== Done ===");
     }
 
@@ -81,4 +94,79 @@ public class CLIOptionsExample {
             System.out.println("Claude: " + answer);
         }
     }
+
+    /**
+     * Options shared by every client in Approach 3. CLIOptions is immutable,
+     * so a single instance can back any number of clients on any thread.
+     */
+    static final CLIOptions SHARED_OPTIONS = CLIOptions.builder()
+            .model(CLIOptions.MODEL_HAIKU)
+            .appendSystemPrompt("Be concise. Answer in one sentence.")
+            .allowedTools(List.of("Read", "Grep"))
+            .maxBudgetUsd(0.10)
+            .permissionMode(PermissionMode.BYPASS_PERMISSIONS)
+            .build();
+
+    /**
+     * Approach 3: Build CLIOptions once and hand the same instance to every client.
+     * Best for services that create many short-lived clients with one config.
+     */
+    static void sharedOptionsApproach() {
+        System.out.println("\n--- Approach 3: Shared CLIOptions ---\n");
+
+        for (String question : List.of("What is a JVM?", "What is bytecode?")) {
+            try (ClaudeSyncClient client = ClaudeClient.sync(SHARED_OPTIONS)
+                    .workingDirectory(Path.of("."))
+                    .build()) {
+
+                String answer = client.connectText(question);
+                System.out.println("Claude: " + answer);
+            }
+        }
+    }
+
+    /**
+     * Approach 4: maxBudgetUsd() limits one client; BudgetGovernor limits all of
+     * them. Two tenants share one slot, so their turns are admitted alternately.
+     */
+    static void sharedBudgetApproach() {
+        System.out.println("\n--- Approach 4: Shared Budget Across Clients ---\n");
+
+        BudgetGovernor governor = BudgetGovernor.builder()
+                .budgetUsd(0.50)
+                .maxInFlight(1)
+                .tokensPerMinute(CLIOptions.MODEL_HAIKU, 200_000)
+                .maxQueueWait(Duration.ofMinutes(2))
+                .build();
+
+        CLIOptions options = CLIOptions.builder()
+                .model(CLIOptions.MODEL_HAIKU)
+                .appendSystemPrompt("Answer with one word.")
+                .permissionMode(PermissionMode.BYPASS_PERMISSIONS)
+                .build();
+
+        Map<String, String> questions = new LinkedHashMap<>();
+        questions.put("tenant-a", "What color is the sky?");
+        questions.put("tenant-b", "What color is grass?");
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            questions.forEach((tenant, question) -> executor.submit(() -> {
+                try (ClaudeSyncClient client = ClaudeClient.sync(options)
+                        .workingDirectory(Path.of("."))
+                        .build()) {
+                    String answer = governor.connectText(client, tenant, CLIOptions.MODEL_HAIKU, question);
+                    System.out.println("[" + tenant + "] Claude: " + answer);
+                } catch (BudgetGovernor.RejectedException e) {
+                    System.out.println("[" + tenant + "] Rejected (" + e.reason() + "): " + e.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+
+        BudgetGovernor.Stats stats = governor.stats();
+        System.out.printf("%nGovernor: %d admitted, %d rejected, spent $%.6f of $0.50, queue wait mean %.0f ms / max %.0f ms%n",
+                stats.admitted(), stats.rejectedBudget() + stats.rejectedTimeout(), stats.spentUsd(),
+                stats.meanQueueWaitMs(), stats.maxQueueWaitMs());
+    }
 }
@@ -0,0 +1,212 @@
+/*
+ * Module 09: Structured Outputs - Local schema validation
+ *
+ * Compiles a JsonSchema map once into a tree of checks, then validates parsed
+ * structured output (Maps, Lists, Numbers, Strings) without re-reading the schema.
+ *
+ * Supported keywords: type, properties, required, additionalProperties (false),
+ * items, enum, minimum, maximum, minLength, maxLength, minItems, maxItems.
+ * Unknown keywords are ignored, so the validator never rejects more than the CLI would.
+ */
+package org.springaicommunity.tutorial.module09;
+
+import org.springaicommunity.claude.agent.sdk.types.JsonSchema;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class SchemaValidator {
+
+    /**
+     * A compiled schema node. Appends an error for every violation found at or below path.
+     */
+    @FunctionalInterface
+    interface Check {
+        void validate(Object value, String path, List<String> errors);
+    }
+
+    private final Check root;
+
+    private SchemaValidator(Check root) {
+        this.root = root;
+    }
+
+    public static SchemaValidator compile(JsonSchema schema) {
+        return compile(schema.toMap());
+    }
+
+    public static SchemaValidator compile(Map<String, Object> schema) {
+        return new SchemaValidator(compileNode(schema));
+    }
+
+    /**
+     * Validate a structured output value. Returns an empty list when valid.
+     */
+    public List<String> validate(Object value) {
+        List<String> errors = new ArrayList<>();
+        if (value == null) {
+            errors.add("$: no structured output");
+            return errors;
+        }
+        root.validate(value, "$", errors);
+        return errors;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Check compileNode(Map<String, Object> schema) {
+        List<Check> checks = new ArrayList<>();
+
+        Object type = schema.get("type");
+        if (type != null) {
+            List<String> types = type instanceof List<?> list
+                    ? list.stream().map(Object::toString).toList()
+                    : List.of(type.toString());
+            checks.add((value, path, errors) -> {
+                for (String t : types) {
+                    if (matchesType(t, value)) {
+                        return;
+                    }
+                }
+                errors.add(path + ": expected " + String.join("|", types) + " but got " + describe(value));
+            });
+        }
+
+        if (schema.get("enum") instanceof List<?> allowed) {
+            checks.add((value, path, errors) -> {
+                if (!allowed.contains(value)) {
+                    errors.add(path + ": " + value + " is not one of " + allowed);
+                }
+            });
+        }
+
+        addNumberBounds(schema, checks);
+        addSizeBounds(schema, "minLength", "maxLength", String.class, "length", checks);
+        addSizeBounds(schema, "minItems", "maxItems", List.class, "items", checks);
+
+        if (schema.get("properties") instanceof Map<?, ?> properties) {
+            Map<String, Check> propertyChecks = new LinkedHashMap<>();
+            properties.forEach((name, sub) ->
+                    propertyChecks.put(name.toString(), compileNode((Map<String, Object>) sub)));
+            boolean closed = Boolean.FALSE.equals(schema.get("additionalProperties"));
+
+            checks.add((value, path, errors) -> {
+                if (!(value instanceof Map<?, ?> object)) {
+                    return;  // type check reports the mismatch
+                }
+                propertyChecks.forEach((name, check) -> {
+                    Object child = object.get(name);
+                    if (child != null) {
+                        check.validate(child, path + "." + name, errors);
+                    }
+                });
+                if (closed) {
+                    for (Object key : object.keySet()) {
+                        if (!propertyChecks.containsKey(key.toString())) {
+                            errors.add(path + ": unexpected property '" + key + "'");
+                        }
+                    }
+                }
+            });
+        }
+
+        if (schema.get("required") instanceof List<?> required) {
+            List<String> names = required.stream().map(Object::toString).toList();
+            checks.add((value, path, errors) -> {
+                if (value instanceof Map<?, ?> object) {
+                    for (String name : names) {
+                        if (object.get(name) == null) {
+                            errors.add(path + ": missing required property '" + name + "'");
+                        }
+                    }
+                }
+            });
+        }
+
+        if (schema.get("items") instanceof Map<?, ?> items) {
+            Check itemCheck = compileNode((Map<String, Object>) items);
+            checks.add((value, path, errors) -> {
+                if (value instanceof List<?> list) {
+                    for (int i = 0; i < list.size(); i++) {
+                        itemCheck.validate(list.get(i), path + "[" + i + "]", errors);
+                    }
+                }
+            });
+        }
+
+        Check[] compiled = checks.toArray(Check[]::new);
+        return (value, path, errors) -> {
+            for (Check check : compiled) {
+                check.validate(value, path, errors);
+            }
+        };
+    }
+
+    private static void addNumberBounds(Map<String, Object> schema, List<Check> checks) {
+        if (schema.get("minimum") instanceof Number min) {
+            checks.add((value, path, errors) -> {
+                if (value instanceof Number n && n.doubleValue() < min.doubleValue()) {
+                    errors.add(path + ": " + n + " is less than minimum " + min);
+                }
+            });
+        }
+        if (schema.get("maximum") instanceof Number max) {
+            checks.add((value, path, errors) -> {
+                if (value instanceof Number n && n.doubleValue() > max.doubleValue()) {
+                    errors.add(path + ": " + n + " is greater than maximum " + max);
+                }
+            });
+        }
+    }
+
+    private static void addSizeBounds(Map<String, Object> schema, String minKey, String maxKey,
+                                      Class<?> target, String unit, List<Check> checks) {
+        Object min = schema.get(minKey);
+        Object max = schema.get(maxKey);
+        if (!(min instanceof Number) && !(max instanceof Number)) {
+            return;
+        }
+        int lower = min instanceof Number n ? n.intValue() : 0;
+        int upper = max instanceof Number n ? n.intValue() : Integer.MAX_VALUE;
+        checks.add((value, path, errors) -> {
+            if (!target.isInstance(value)) {
+                return;
+            }
+            int size = value instanceof String s ? s.length() : ((List<?>) value).size();
+            if (size < lower || size > upper) {
+                errors.add(path + ": " + unit + " " + size + " outside [" + lower + ", " +
+                        (upper == Integer.MAX_VALUE ? "∞" : upper) + "]");
+            }
+        });
+    }
+
+    private static final Set<String> INTEGRAL = Set.of("Integer", "Long", "Short", "Byte", "BigInteger");
+
+    private static boolean matchesType(String type, Object value) {
+        return switch (type) {
+            case "object" -> value instanceof Map<?, ?>;
+            case "array" -> value instanceof List<?>;
+            case "string" -> value instanceof String;
+            case "boolean" -> value instanceof Boolean;
+            case "number" -> value instanceof Number;
+            case "integer" -> value instanceof Number n && (INTEGRAL.contains(n.getClass().getSimpleName())
+                    || n.doubleValue() == Math.rint(n.doubleValue()));
+            case "null" -> value == null;
+            default -> true;  // unknown type keyword: do not reject
+        };
+    }
+
+    private static String describe(Object value) {
+        return switch (value) {
+            case null -> "null";
+            case Map<?, ?> m -> "object";
+            case List<?> l -> "array";
+            case String s -> "string";
+            case Boolean b -> "boolean";
+            case Number n -> "number";
+            default -> value.getClass().getSimpleName();
+        };
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Module 09: Structured Outputs - Incremental array parsing
+ *
+ * Emits each element of a top-level array field (e.g. "languages") as a typed
+ * object as soon as its closing token has been seen, instead of waiting for the
+ * final ResultMessage.
+ *
+ * Built on Jackson's non-blocking parser: text chunks are fed in as they arrive
+ * and only the element currently being parsed is buffered. Prose or a markdown
+ * fence in front of the JSON is skipped, anything after the closing brace is ignored.
+ */
+package org.springaicommunity.tutorial.module09;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+public class StreamingArrayParser<T> {
+
+    private final ObjectMapper mapper;
+    private final String arrayField;
+    private final Class<T> elementType;
+    private final Consumer<T> onElement;
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+
+    private boolean started;         // first '{' seen, bytes are being fed
+    private boolean complete;        // top-level object closed
+    private int depth;               // container depth outside of elements
+    private int arrayDepth = -1;     // depth of the target array while inside it
+    private boolean fieldMatched;    // last top-level field name was arrayField
+
+    private TokenBuffer element;     // tokens of the element being parsed
+    private int elementDepth;
+    private int emitted;
+
+    public StreamingArrayParser(ObjectMapper mapper, String arrayField,
+                                Class<T> elementType, Consumer<T> onElement) throws IOException {
+        this.mapper = mapper;
+        this.arrayField = arrayField;
+        this.elementType = elementType;
+        this.onElement = onElement;
+        this.parser = mapper.createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Feed the next chunk of text. Elements completed by this chunk are
+     * delivered to the callback before this method returns.
+     */
+    public void feed(String chunk) throws IOException {
+        if (complete || chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        if (!started) {
+            int start = chunk.indexOf('{');
+            if (start < 0) {
+                return;  // still in leading prose
+            }
+            chunk = chunk.substring(start);
+            started = true;
+        }
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        feeder.feedInput(bytes, 0, bytes.length);
+        drain();
+    }
+
+    /**
+     * Signal that no more input will arrive.
+     */
+    public void endOfInput() throws IOException {
+        if (started && !complete) {
+            feeder.endOfInput();
+            drain();
+        }
+    }
+
+    public int emitted() {
+        return emitted;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while (!complete && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+
+            // Inside an element: buffer tokens until it closes
+            if (element != null) {
+                element.copyCurrentEvent(parser);
+                if (token.isStructStart()) {
+                    elementDepth++;
+                } else if (token.isStructEnd()) {
+                    elementDepth--;
+                }
+                if (elementDepth == 0) {
+                    emit();
+                }
+                continue;
+            }
+
+            // Directly inside the target array: each value starts a new element
+            if (arrayDepth >= 0 && depth == arrayDepth && token != JsonToken.END_ARRAY) {
+                element = new TokenBuffer(parser);
+                element.copyCurrentEvent(parser);
+                elementDepth = token.isStructStart() ? 1 : 0;
+                if (elementDepth == 0) {
+                    emit();
+                }
+                continue;
+            }
+
+            switch (token) {
+                case FIELD_NAME -> fieldMatched = depth == 1 && arrayField.equals(parser.currentName());
+                case START_ARRAY -> {
+                    depth++;
+                    if (fieldMatched) {
+                        arrayDepth = depth;
+                    }
+                    fieldMatched = false;
+                }
+                case START_OBJECT -> {
+                    depth++;
+                    fieldMatched = false;
+                }
+                case END_ARRAY, END_OBJECT -> {
+                    if (depth == arrayDepth) {
+                        arrayDepth = -1;
+                    }
+                    depth--;
+                    complete = depth == 0;
+                }
+                default -> fieldMatched = false;
+            }
+        }
+    }
+
+    private void emit() throws IOException {
+        try (JsonParser elementParser = element.asParser(mapper)) {
+            T value = mapper.readValue(elementParser, elementType);
+            emitted++;
+            onElement.accept(value);
+        } finally {
+            element = null;
+        }
+    }
+}
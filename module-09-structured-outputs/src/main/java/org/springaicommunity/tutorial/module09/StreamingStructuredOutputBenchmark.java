@@ -0,0 +1,144 @@
+/*
+ * Module 09: Structured Outputs - Streaming vs all-at-once measurement
+ *
+ * Compares time-to-first-element and peak heap for a 2,000 element "languages"
+ * array delivered in small chunks:
+ * - All-at-once: buffer every chunk, then parse the complete document
+ * - Streaming: feed chunks into StreamingArrayParser as they arrive
+ *
+ * No Claude calls are made; chunk arrival is simulated with a fixed delay.
+ *
+ * Run with: mvn compile exec:java -pl module-09-structured-outputs \
+ *   -Dexec.mainClass=org.springaicommunity.tutorial.module09.StreamingStructuredOutputBenchmark
+ */
+package org.springaicommunity.tutorial.module09;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springaicommunity.tutorial.module09.StructuredOutputsExample.Language;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+public class StreamingStructuredOutputBenchmark {
+
+    private static final int ELEMENTS = 2_000;
+    private static final int CHUNK_SIZE = 64;                  // roughly one streamed text delta
+    private static final long CHUNK_INTERVAL_NANOS = 20_000;   // simulated arrival gap
+    private static final int ROUNDS = 5;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    record LanguageList(List<Language> languages) {}
+
+    record Measurement(long firstElementNanos, long totalNanos, long peakHeapBytes, int elements) {}
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Module 09: Streaming Structured Output Benchmark ===\n");
+
+        List<String> chunks = chunk(buildDocument(ELEMENTS), CHUNK_SIZE);
+        System.out.printf("Document: %d elements in %d chunks of %d chars%n%n",
+                ELEMENTS, chunks.size(), CHUNK_SIZE);
+
+        // Warm up both paths so JIT compilation does not skew the first round
+        allAtOnce(chunks);
+        streaming(chunks);
+
+        System.out.printf("%-12s %12s %12s %14s%n", "Path", "First (ms)", "Total (ms)", "Peak heap (KB)");
+        for (int round = 0; round < ROUNDS; round++) {
+            print("all-at-once", allAtOnce(chunks));
+            print("streaming", streaming(chunks));
+        }
+
+        System.out.println("\n=== Done ===");
+    }
+
+    /**
+     * Current path: nothing is usable until the whole document has arrived.
+     */
+    static Measurement allAtOnce(List<String> chunks) throws Exception {
+        long baseline = settledHeap();
+        long peak = 0;
+        long start = System.nanoTime();
+
+        StringBuilder buffer = new StringBuilder();
+        for (String chunk : chunks) {
+            awaitNextChunk();
+            buffer.append(chunk);
+            peak = Math.max(peak, usedHeap() - baseline);
+        }
+        LanguageList result = mapper.readValue(buffer.toString(), LanguageList.class);
+        peak = Math.max(peak, usedHeap() - baseline);
+
+        long total = System.nanoTime() - start;
+        return new Measurement(total, total, peak, result.languages().size());
+    }
+
+    /**
+     * Streaming path: each element is handed over as soon as it is complete.
+     */
+    static Measurement streaming(List<String> chunks) throws Exception {
+        long baseline = settledHeap();
+        long peak = 0;
+        long start = System.nanoTime();
+        long[] first = {0};
+        int[] count = {0};
+
+        StreamingArrayParser<Language> parser = new StreamingArrayParser<>(
+                mapper, "languages", Language.class, lang -> {
+                    if (count[0]++ == 0) {
+                        first[0] = System.nanoTime() - start;
+                    }
+                });
+
+        for (String chunk : chunks) {
+            awaitNextChunk();
+            parser.feed(chunk);
+            peak = Math.max(peak, usedHeap() - baseline);
+        }
+        parser.endOfInput();
+
+        return new Measurement(first[0], System.nanoTime() - start, peak, count[0]);
+    }
+
+    static String buildDocument(int elements) throws Exception {
+        List<Language> languages = new ArrayList<>(elements);
+        for (int i = 0; i < elements; i++) {
+            languages.add(new Language("Language-" + i, 1950 + (i % 75), "Creator " + i));
+        }
+        return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(new LanguageList(languages));
+    }
+
+    static List<String> chunk(String document, int size) {
+        List<String> chunks = new ArrayList<>(document.length() / size + 1);
+        for (int i = 0; i < document.length(); i += size) {
+            chunks.add(document.substring(i, Math.min(document.length(), i + size)));
+        }
+        return chunks;
+    }
+
+    private static void awaitNextChunk() {
+        LockSupport.parkNanos(CHUNK_INTERVAL_NANOS);
+    }
+
+    private static long settledHeap() {
+        System.gc();
+        return usedHeap();
+    }
+
+    private static long usedHeap() {
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static void print(String path, Measurement m) {
+        System.out.printf("%-12s %12.2f %12.2f %14d   (%d elements)%n",
+                path,
+                m.firstElementNanos() / 1_000_000.0,
+                m.totalNanos() / 1_000_000.0,
+                Math.max(0, m.peakHeapBytes()) / 1024,
+                m.elements());
+    }
+}
@@ -7,6 +7,8 @@
  * - JsonSchema for defining output structure
  * - Using jsonSchema with CLIOptions and ClaudeSyncClient
  * - Extracting structured output from ResultMessage (not AssistantMessage!)
+ * - Parsing array elements out of assistant text (StreamingArrayParser)
+ * - Local schema validation with one corrective retry (ValidatingStructuredOutput)
  *
  * IMPORTANT: Structured output is returned in ResultMessage.structured_output,
  * NOT in the assistant message text. The assistant message may contain prose
@@ -16,12 +18,14 @@
  */
 package org.springaicommunity.tutorial.module09;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springaicommunity.claude.agent.sdk.ClaudeClient;
 import org.springaicommunity.claude.agent.sdk.ClaudeSyncClient;
 import org.springaicommunity.claude.agent.sdk.config.PermissionMode;
 import org.springaicommunity.claude.agent.sdk.parsing.ParsedMessage;
 import org.springaicommunity.claude.agent.sdk.transport.CLIOptions;
+import org.springaicommunity.claude.agent.sdk.types.AssistantMessage;
 import org.springaicommunity.claude.agent.sdk.types.JsonSchema;
 import org.springaicommunity.claude.agent.sdk.types.Message;
 import org.springaicommunity.claude.agent.sdk.types.ResultMessage;
@@ -35,6 +39,12 @@ public class StructuredOutputsExample {
 
     private static final ObjectMapper mapper = new ObjectMapper();
 
+    /**
+     * Typed element of the "languages" array.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Language(String name, int year, String creator) {}
+
     public static void main(String[] args) throws Exception {
         System.out.println("=== Module 09: Structured Outputs ===\n");
 
@@ -44,6 +54,12 @@ public class StructuredOutputsExample {
         // Example 2: Complex nested structure
         nestedStructuredOutput();
 
+        // Example 3: Parse array elements out of whole assistant messages
+        streamingStructuredOutput();
+
+        // Example 4: Validate locally and correct in the same session
+        validatedStructuredOutput();
+
         System.out.println("\n=== Done ===");
     }
 
@@ -150,6 +166,116 @@ public class StructuredOutputsExample {
         }
     }
 
+    /**
+     * Incremental parsing example: feed each assistant message into a StreamingArrayParser.
+     *
+     * No JSON schema is set here: with a schema the data arrives only in the
+     * ResultMessage, so the prompt asks for the JSON in the assistant text instead.
+     * The SDK delivers every AssistantMessage whole, not as text deltas, so the
+     * parser sees a message's text in one chunk and emits its elements when that
+     * message arrives. StreamingStructuredOutputBenchmark shows the parser on a
+     * source that does deliver partial text.
+     */
+    static void streamingStructuredOutput() throws Exception {
+        System.out.println("\n--- Example 3: Parsing Assistant Messages Incrementally ---\n");
+
+        CLIOptions options = CLIOptions.builder()
+                .model(CLIOptions.MODEL_HAIKU)
+                .permissionMode(PermissionMode.BYPASS_PERMISSIONS)
+                .build();
+
+        StreamingArrayParser<Language> parser = new StreamingArrayParser<>(
+                mapper, "languages", Language.class, lang -> System.out.printf("  [parsed] %s (%d) by %s%n",
+                        lang.name(), lang.year(), lang.creator() != null ? lang.creator() : "unknown"));
+
+        try (ClaudeSyncClient client = ClaudeClient.sync(options)
+                .workingDirectory(Path.of("."))
+                .build()) {
+
+            client.connect("List 10 programming languages with their creation year and creator. " +
+                    "Reply with only a JSON object of the form " +
+                    "{\"languages\": [{\"name\": \"...\", \"year\": 1995, \"creator\": \"...\"}]}.");
+
+            Iterator<ParsedMessage> response = client.receiveResponse();
+
+            while (response.hasNext()) {
+                ParsedMessage parsed = response.next();
+                if (!parsed.isRegularMessage()) {
+                    continue;
+                }
+                Message message = parsed.asMessage();
+
+                if (message instanceof AssistantMessage assistant) {
+                    // One whole message per call: elements it completes are emitted now
+                    parser.feed(assistant.text());
+                }
+            }
+            parser.endOfInput();
+
+            System.out.println("\nElements parsed from assistant text: " + parser.emitted());
+        }
+    }
+
+    /**
+     * Validated example: check the result locally and ask for one correction if needed.
+     *
+     * Instead of printing an error and re-running the whole conversation, the
+     * violations are sent back as a follow-up turn in the same session.
+     */
+    static void validatedStructuredOutput() {
+        System.out.println("\n--- Example 4: Validated Structured Output ---\n");
+
+        JsonSchema schema = languagesSchema();
+        SchemaValidator validator = SchemaValidator.compile(schema);
+        ValidatingStructuredOutput validating = new ValidatingStructuredOutput("languages", validator);
+
+        CLIOptions options = CLIOptions.builder()
+                .model(CLIOptions.MODEL_HAIKU)
+                .jsonSchema(schema.toMap())
+                .permissionMode(PermissionMode.BYPASS_PERMISSIONS)
+                .build();
+
+        try (ClaudeSyncClient client = ClaudeClient.sync(options)
+                .workingDirectory(Path.of("."))
+                .build()) {
+
+            ValidatingStructuredOutput.Outcome outcome = validating.connect(client,
+                    "List 3 programming languages with their creation year and creator.");
+
+            System.out.println("Valid: " + outcome.valid());
+            System.out.println("First pass valid: " + outcome.firstPassValid());
+            System.out.println("Corrective turn sent: " + outcome.retried());
+            outcome.errors().forEach(e -> System.out.println("  Violation: " + e));
+        }
+
+        System.out.println("\nValidation stats:");
+        ValidatingStructuredOutput.stats().forEach((name, stats) ->
+                System.out.println("  " + name + ": " + stats));
+    }
+
+    /**
+     * Schema for: { "languages": [{ "name": string, "year": integer, "creator": string }] }
+     */
+    static JsonSchema languagesSchema() {
+        return JsonSchema.ofObject(
+                Map.of(
+                        "languages", Map.of(
+                                "type", "array",
+                                "items", Map.of(
+                                        "type", "object",
+                                        "properties", Map.of(
+                                                "name", Map.of("type", "string"),
+                                                "year", Map.of("type", "integer"),
+                                                "creator", Map.of("type", "string")
+                                        ),
+                                        "required", List.of("name", "year")
+                                )
+                        )
+                ),
+                List.of("languages")
+        );
+    }
+
     /**
      * Extract structured output from ResultMessage.
      *
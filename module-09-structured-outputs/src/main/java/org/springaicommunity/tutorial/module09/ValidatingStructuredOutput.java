@@ -0,0 +1,172 @@
+/*
+ * Module 09: Structured Outputs - Validation with one corrective retry
+ *
+ * Validates each ResultMessage against a locally compiled SchemaValidator.
+ * When the output is missing or violates the schema, one targeted follow-up
+ * turn is sent in the SAME session listing the violations, instead of
+ * re-running the whole conversation.
+ *
+ * Per-schema statistics track first-pass validity and what the retries cost.
+ */
+package org.springaicommunity.tutorial.module09;
+
+import org.springaicommunity.claude.agent.sdk.ClaudeSyncClient;
+import org.springaicommunity.claude.agent.sdk.parsing.ParsedMessage;
+import org.springaicommunity.claude.agent.sdk.types.ResultMessage;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ValidatingStructuredOutput {
+
+    /**
+     * Result of a validated turn.
+     *
+     * @param output         the structured output (null if none was produced)
+     * @param firstPassValid true if no corrective turn was needed
+     * @param retried        true if a corrective turn was sent
+     * @param errors         remaining violations (empty when valid)
+     */
+    public record Outcome(Map<String, Object> output, boolean firstPassValid, boolean retried, List<String> errors) {
+        public boolean valid() {
+            return errors.isEmpty();
+        }
+    }
+
+    /**
+     * Counters for one schema.
+     */
+    public static class SchemaStats {
+        final LongAdder requests = new LongAdder();
+        final LongAdder firstPassValid = new LongAdder();
+        final LongAdder retries = new LongAdder();
+        final LongAdder retriesValid = new LongAdder();
+        final DoubleAdder retryCostUsd = new DoubleAdder();
+        final LongAdder retryMillis = new LongAdder();
+        final AtomicLong validationNanos = new AtomicLong();
+
+        public double firstPassValidityRate() {
+            long total = requests.sum();
+            return total == 0 ? 0.0 : (double) firstPassValid.sum() / total;
+        }
+
+        @Override
+        public String toString() {
+            long total = requests.sum();
+            long validations = total + retries.sum();
+            return String.format("requests=%d, first-pass valid=%.0f%%, retries=%d (fixed %d), " +
+                            "retry cost=$%.6f, retry time=%d ms, avg validation=%.1f µs",
+                    total, firstPassValidityRate() * 100, retries.sum(), retriesValid.sum(),
+                    retryCostUsd.sum(), retryMillis.sum(),
+                    validations == 0 ? 0.0 : validationNanos.get() / 1000.0 / validations);
+        }
+    }
+
+    private static final Map<String, SchemaStats> STATS = new ConcurrentHashMap<>();
+
+    private final String schemaName;
+    private final SchemaValidator validator;
+    private final SchemaStats stats;
+
+    public ValidatingStructuredOutput(String schemaName, SchemaValidator validator) {
+        this.schemaName = schemaName;
+        this.validator = validator;
+        this.stats = STATS.computeIfAbsent(schemaName, k -> new SchemaStats());
+    }
+
+    /**
+     * Start the session with the prompt and validate the result, retrying once if needed.
+     */
+    public Outcome connect(ClaudeSyncClient client, String prompt) {
+        client.connect(prompt);
+        return validateWithRetry(client);
+    }
+
+    /**
+     * Send a follow-up prompt in an existing session and validate the result, retrying once if needed.
+     */
+    public Outcome query(ClaudeSyncClient client, String prompt) {
+        client.query(prompt);
+        return validateWithRetry(client);
+    }
+
+    public static Map<String, SchemaStats> stats() {
+        return STATS;
+    }
+
+    private Outcome validateWithRetry(ClaudeSyncClient client) {
+        stats.requests.increment();
+
+        ResultMessage first = awaitResult(client);
+        Map<String, Object> output = structuredOutput(first);
+        List<String> errors = timedValidate(output);
+
+        if (errors.isEmpty()) {
+            stats.firstPassValid.increment();
+            return new Outcome(output, true, false, errors);
+        }
+
+        // One targeted correction in the same session - the context is already there
+        stats.retries.increment();
+        long start = System.currentTimeMillis();
+        client.query(correctionPrompt(errors));
+        ResultMessage retry = awaitResult(client);
+        stats.retryMillis.add(System.currentTimeMillis() - start);
+        // totalCostUsd() is the session's running total, which already includes the first attempt
+        if (retry != null && retry.totalCostUsd() != null) {
+            double before = first != null && first.totalCostUsd() != null ? first.totalCostUsd() : 0;
+            stats.retryCostUsd.add(Math.max(0, retry.totalCostUsd() - before));
+        }
+
+        Map<String, Object> corrected = structuredOutput(retry);
+        List<String> remaining = timedValidate(corrected);
+        if (remaining.isEmpty()) {
+            stats.retriesValid.increment();
+        }
+        return new Outcome(corrected, false, true, remaining);
+    }
+
+    private List<String> timedValidate(Map<String, Object> output) {
+        long start = System.nanoTime();
+        List<String> errors = validator.validate(output);
+        stats.validationNanos.addAndGet(System.nanoTime() - start);
+        return errors;
+    }
+
+    private static String correctionPrompt(List<String> errors) {
+        StringBuilder prompt = new StringBuilder(
+                "Your previous structured output did not match the required JSON schema:\n");
+        errors.stream().limit(20).forEach(e -> prompt.append("- ").append(e).append('\n'));
+        if (errors.size() > 20) {
+            prompt.append("- ... and ").append(errors.size() - 20).append(" more\n");
+        }
+        prompt.append("Return the corrected structured output only. Keep all valid data unchanged.");
+        return prompt.toString();
+    }
+
+    private static Map<String, Object> structuredOutput(ResultMessage result) {
+        return result != null && result.hasStructuredOutput() ? result.getStructuredOutputAsMap() : null;
+    }
+
+    private static ResultMessage awaitResult(ClaudeSyncClient client) {
+        ResultMessage result = null;
+        Iterator<ParsedMessage> response = client.receiveResponse();
+        while (response.hasNext()) {
+            ParsedMessage parsed = response.next();
+            if (parsed.isRegularMessage() && parsed.asMessage() instanceof ResultMessage rm) {
+                result = rm;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return schemaName + ": " + stats;
+    }
+}
@@ -2,22 +2,30 @@
  * Module 13: Advanced Async Patterns
  *
  * Cross-turn handlers and advanced reactive patterns with ClaudeAsyncClient.
- * This module covers patterns beyond basic TurnSpec usage.
+ * This module covers patterns beyond basic TurnSpec usage, including
+ * publishing client metrics to Micrometer with ClaudeMetrics and retrying
+ * failed runs with ResiliencePolicy.
  *
  * Run with: mvn compile exec:java -pl module-13-async-advanced
  */
 package org.springaicommunity.tutorial.module13;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.springaicommunity.claude.agent.sdk.ClaudeClient;
 import org.springaicommunity.claude.agent.sdk.ClaudeAsyncClient;
 import org.springaicommunity.claude.agent.sdk.config.PermissionMode;
 import org.springaicommunity.claude.agent.sdk.transport.CLIOptions;
 import org.springaicommunity.claude.agent.sdk.types.AssistantMessage;
+import org.springaicommunity.claude.agent.sdk.types.Message;
 import org.springaicommunity.claude.agent.sdk.types.ResultMessage;
 import reactor.core.publisher.Flux;
 
 import java.nio.file.Path;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class AsyncAdvancedExample {
@@ -30,6 +38,14 @@ public class AsyncAdvancedExample {
 
         // Example 2: Error handling patterns
         errorHandlingExample();
+
+        // Example 3: Micrometer metrics
+        metricsExample();
+
+        // Example 4: Retries and circuit breaking
+        resilienceExample();
+
+        System.out.println("\n=== Done ===");
     }
 
     /**
@@ -103,6 +119,102 @@ public class AsyncAdvancedExample {
                 .subscribe();
 
         latch.await();
-        System.out.println("\n=== Done ===");
+        System.out.println();
+    }
+
+    /**
+     * ClaudeMetrics publishes turn latency, tokens, cost and error counts to any
+     * Micrometer registry, instead of hand-written onResult() handlers.
+     */
+    static void metricsExample() throws InterruptedException {
+        System.out.println("--- Micrometer Metrics ---\n");
+
+        MeterRegistry registry = new SimpleMeterRegistry();
+        ClaudeMetrics metrics = new ClaudeMetrics(CLIOptions.MODEL_HAIKU);
+        metrics.bindTo(registry);
+
+        CountDownLatch latch = new CountDownLatch(1);
+
+        ClaudeAsyncClient client = ClaudeClient.async()
+                .workingDirectory(Path.of("."))
+                .model(CLIOptions.MODEL_HAIKU)
+                .permissionMode(PermissionMode.BYPASS_PERMISSIONS)
+                .build();
+
+        metrics.connect(client, "What is 5+5? Answer with just the number.")
+                .doOnNext(AsyncAdvancedExample::printText)
+                .then()
+                .then(metrics.query(client, "And 6+6? Answer with just the number.")
+                        .doOnNext(AsyncAdvancedExample::printText)
+                        .then())
+                .then(metrics.close(client))
+                .doOnError(error -> System.err.println("Stream error: " + error.getMessage()))
+                .doOnTerminate(latch::countDown)
+                .subscribe();
+
+        latch.await();
+
+        System.out.println("\nMeters:");
+        for (Timer timer : registry.find("claude.turn.duration").timers()) {
+            if (timer.count() > 0) {
+                System.out.printf("  claude.turn.duration{kind=%s,outcome=%s}: count=%d mean=%.0f ms%n",
+                        timer.getId().getTag("kind"), timer.getId().getTag("outcome"),
+                        timer.count(), timer.mean(TimeUnit.MILLISECONDS));
+            }
+        }
+        for (Timer timer : registry.find("claude.turn.first.response").timers()) {
+            System.out.printf("  claude.turn.first.response: count=%d mean=%.0f ms%n",
+                    timer.count(), timer.mean(TimeUnit.MILLISECONDS));
+        }
+        for (Counter counter : registry.find("claude.tokens").counters()) {
+            System.out.printf("  claude.tokens{type=%s}: %.0f%n", counter.getId().getTag("type"), counter.count());
+        }
+        for (Counter counter : registry.find("claude.cost").counters()) {
+            System.out.printf("  claude.cost: $%.6f%n", counter.count());
+        }
+        for (Counter counter : registry.find("claude.errors").counters()) {
+            System.out.printf("  claude.errors{type=%s}: %.0f%n", counter.getId().getTag("type"), counter.count());
+        }
+        System.out.printf("  claude.conversations.active: %.0f%n",
+                registry.find("claude.conversations.active").gauge().value());
+    }
+
+    /**
+     * ResiliencePolicy retries transient failures on a fresh client with jittered
+     * backoff, and fails fast while a model's circuit breaker is open.
+     */
+    static void resilienceExample() throws InterruptedException {
+        System.out.println("\n--- Resilience Policy ---\n");
+
+        ResiliencePolicy policy = ResiliencePolicy.builder()
+                .maxAttempts(3)
+                .build();
+
+        CountDownLatch latch = new CountDownLatch(1);
+
+        policy.connectTextAsync(CLIOptions.MODEL_HAIKU, () -> ClaudeClient.async()
+                        .workingDirectory(Path.of("."))
+                        .model(CLIOptions.MODEL_HAIKU)
+                        .permissionMode(PermissionMode.BYPASS_PERMISSIONS)
+                        .build(), "What is 7+7? Answer with just the number.")
+                .doOnSuccess(text -> System.out.println("Claude: " + text))
+                .onErrorResume(error -> {
+                    System.out.println("Failed (" + ResiliencePolicy.classify(error) + "): " + error.getMessage());
+                    return reactor.core.publisher.Mono.empty();
+                })
+                .doOnTerminate(latch::countDown)
+                .subscribe();
+
+        latch.await();
+
+        ResiliencePolicy.Stats stats = policy.stats();
+        System.out.printf("Resilience: %d calls, %d attempts, %d retries, breaker %s%n",
+                stats.calls(), stats.attempts(), stats.retries(), policy.state(CLIOptions.MODEL_HAIKU));
+    }
+
+    private static void printText(Message message) {
+        if (message instanceof AssistantMessage am) {
+            am.getTextContent().ifPresent(text -> System.out.println("Claude: " + text));
+        }
     }
 }
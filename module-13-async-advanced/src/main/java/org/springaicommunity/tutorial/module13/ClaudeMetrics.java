@@ -0,0 +1,385 @@
+/*
+ * Module 13: Advanced Async Patterns - Micrometer metrics binder
+ *
+ * Publishes standard metrics for Claude clients to any Micrometer registry,
+ * instead of re-implementing cross-turn handlers in every application:
+ *
+ *   claude.turn.duration         timer    model, kind (connect|query), outcome (success|error|interrupted)
+ *   claude.turn.first.response   timer    model - time to the first assistant text
+ *   claude.tokens                counter  model, type (input|output)
+ *   claude.cost                  counter  model (USD, the increase of each client's running total)
+ *   claude.cli.processes         gauge    Claude CLI processes below this JVM
+ *   claude.conversations.active  gauge    connected, not yet closed clients (closed via close() or track())
+ *   claude.tool.calls            counter  model, tool
+ *   claude.hook.duration         timer    hook, event
+ *   claude.interrupts            counter  model
+ *   claude.errors                counter  model, type (result|stream)
+ *
+ * ResultMessage.totalCostUsd() is the session's running total, so each turn
+ * adds only the increase over the client's previous result to claude.cost.
+ * A sync client closed directly rather than through close() leaves the
+ * conversations gauge only if it was wrapped with track().
+ *
+ * Meters are resolved once when bound; per message the binder does a type
+ * check and, for result messages, a few counter increments. See
+ * ClaudeMetricsBenchmark for the overhead against an uninstrumented stream.
+ */
+package org.springaicommunity.tutorial.module13;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springaicommunity.claude.agent.sdk.ClaudeAsyncClient;
+import org.springaicommunity.claude.agent.sdk.ClaudeSyncClient;
+import org.springaicommunity.claude.agent.sdk.hooks.HookRegistry;
+import org.springaicommunity.claude.agent.sdk.parsing.ParsedMessage;
+import org.springaicommunity.claude.agent.sdk.types.AssistantMessage;
+import org.springaicommunity.claude.agent.sdk.types.Message;
+import org.springaicommunity.claude.agent.sdk.types.ResultMessage;
+import org.springaicommunity.claude.agent.sdk.types.control.HookInput;
+import org.springaicommunity.claude.agent.sdk.types.control.HookOutput;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public class ClaudeMetrics implements MeterBinder {
+
+    /**
+     * A hook callback that can be timed (same shape as the SDK's hook callbacks).
+     */
+    @FunctionalInterface
+    public interface Hook {
+        HookOutput apply(HookInput input);
+    }
+
+    private final String model;
+    private final Set<Object> conversations = ConcurrentHashMap.newKeySet();
+    // Last reported totalCostUsd() per client
+    private final Map<Object, Double> sessionCosts = new ConcurrentHashMap<>();
+    private final Map<String, Counter> toolCalls = new ConcurrentHashMap<>();
+
+    private MeterRegistry registry;
+    private Timer connectSuccess, connectError, connectInterrupted;
+    private Timer querySuccess, queryError, queryInterrupted;
+    private Timer firstResponse;
+    private Counter inputTokens, outputTokens, cost;
+    private Counter interrupts, resultErrors, streamErrors;
+
+    public ClaudeMetrics(String model) {
+        this.model = model;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        connectSuccess = turnTimer(registry, "connect", "success");
+        connectError = turnTimer(registry, "connect", "error");
+        connectInterrupted = turnTimer(registry, "connect", "interrupted");
+        querySuccess = turnTimer(registry, "query", "success");
+        queryError = turnTimer(registry, "query", "error");
+        queryInterrupted = turnTimer(registry, "query", "interrupted");
+        firstResponse = Timer.builder("claude.turn.first.response")
+                .description("Time from sending a prompt to the first assistant text")
+                .tag("model", model)
+                .register(registry);
+        inputTokens = tokenCounter(registry, "input");
+        outputTokens = tokenCounter(registry, "output");
+        cost = Counter.builder("claude.cost")
+                .description("Reported cost of completed turns")
+                .baseUnit("usd")
+                .tag("model", model)
+                .register(registry);
+        interrupts = Counter.builder("claude.interrupts").tag("model", model).register(registry);
+        resultErrors = errorCounter(registry, "result");
+        streamErrors = errorCounter(registry, "stream");
+        Gauge.builder("claude.conversations.active", conversations, Set::size)
+                .description("Connected clients that have not been closed")
+                .register(registry);
+        Gauge.builder("claude.cli.processes", ClaudeMetrics::countCliProcesses)
+                .description("Claude CLI processes running below this JVM")
+                .register(registry);
+    }
+
+    // ---- Sync client ----
+
+    /**
+     * Wrap a sync client so that closing it directly, for example in try-with-resources,
+     * also ends its conversation. Send its turns through this binder with the wrapper.
+     */
+    public ClaudeSyncClient track(ClaudeSyncClient client) {
+        return (ClaudeSyncClient) Proxy.newProxyInstance(ClaudeSyncClient.class.getClassLoader(),
+                new Class<?>[] {ClaudeSyncClient.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "close":
+                            forget(proxy);
+                            break;
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(client, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    public Iterator<ParsedMessage> connect(ClaudeSyncClient client, String prompt) {
+        conversations.add(client);
+        Turn turn = new Turn(client, true);
+        client.connect(prompt);
+        return observe(client.receiveResponse(), turn);
+    }
+
+    public Iterator<ParsedMessage> query(ClaudeSyncClient client, String prompt) {
+        Turn turn = new Turn(client, false);
+        client.query(prompt);
+        return observe(client.receiveResponse(), turn);
+    }
+
+    public void interrupt(ClaudeSyncClient client) {
+        interrupts.increment();
+        client.interrupt();
+    }
+
+    public void close(ClaudeSyncClient client) {
+        forget(client);
+        client.close();
+    }
+
+    // ---- Async client ----
+
+    public Flux<Message> connect(ClaudeAsyncClient client, String prompt) {
+        return Flux.defer(() -> {
+            conversations.add(client);
+            return observe(client.connect(prompt).messages(), new Turn(client, true));
+        });
+    }
+
+    public Flux<Message> query(ClaudeAsyncClient client, String prompt) {
+        return Flux.defer(() -> observe(client.query(prompt).messages(), new Turn(client, false)));
+    }
+
+    public Mono<Void> interrupt(ClaudeAsyncClient client) {
+        return Mono.defer(() -> {
+            interrupts.increment();
+            return client.interrupt();
+        });
+    }
+
+    public Mono<Void> close(ClaudeAsyncClient client) {
+        return client.close().doFinally(signal -> forget(client));
+    }
+
+    private void forget(Object client) {
+        conversations.remove(client);
+        sessionCosts.remove(client);
+    }
+
+    // ---- Hooks ----
+
+    /**
+     * Count tool calls by tool name. Register before other hooks.
+     */
+    public HookRegistry instrument(HookRegistry hooks) {
+        hooks.registerPreToolUse(input -> {
+            String tool = ((HookInput.PreToolUseInput) input).toolName();
+            toolCalls.computeIfAbsent(tool, t -> Counter.builder("claude.tool.calls")
+                    .tag("model", model)
+                    .tag("tool", t)
+                    .register(registry)).increment();
+            return HookOutput.allow();
+        });
+        return hooks;
+    }
+
+    /**
+     * Wrap a hook so its evaluation time is recorded in claude.hook.duration.
+     * Call after bindTo(); the timers are resolved here, not per call.
+     */
+    public Hook timed(String name, Hook hook) {
+        Timer pre = hookTimer(name, "PreToolUse");
+        Timer post = hookTimer(name, "PostToolUse");
+        return input -> {
+            long start = System.nanoTime();
+            try {
+                return hook.apply(input);
+            } finally {
+                Timer timer = input instanceof HookInput.PostToolUseInput ? post : pre;
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+
+    // ---- Turn bookkeeping ----
+
+    private final class Turn {
+        final Object client;
+        final boolean connect;
+        final long start = System.nanoTime();
+        boolean sawText;
+        boolean recorded;
+
+        Turn(Object client, boolean connect) {
+            this.client = client;
+            this.connect = connect;
+        }
+
+        void onMessage(Message message) {
+            if (!sawText && message instanceof AssistantMessage assistant
+                    && assistant.getTextContent().isPresent()) {
+                sawText = true;
+                recordFirstResponse(System.nanoTime() - start);
+            } else if (message instanceof ResultMessage result) {
+                recordResult(costIncrease(client, result.totalCostUsd()), result.usage(), result.isError());
+                finish(result.isError() ? "error" : "success");
+            }
+        }
+
+        // A turn that ends without a ResultMessage was interrupted or failed
+        void finish(String outcome) {
+            if (recorded) {
+                return;
+            }
+            recorded = true;
+            recordTurn(connect, outcome, System.nanoTime() - start);
+        }
+    }
+
+    // Recording is split out of Turn so ClaudeMetricsBenchmark can drive it without SDK messages
+
+    void recordFirstResponse(long nanos) {
+        firstResponse.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordResult(Double costUsd, Map<String, Object> usage, boolean isError) {
+        if (costUsd != null) {
+            cost.increment(costUsd);
+        }
+        if (usage != null) {
+            inputTokens.increment(tokens(usage.get("input_tokens")));
+            outputTokens.increment(tokens(usage.get("output_tokens")));
+        }
+        if (isError) {
+            resultErrors.increment();
+        }
+    }
+
+    // The increase of the client's running total since its previous result; a lower total starts a new count
+    private Double costIncrease(Object client, Double total) {
+        if (total == null) {
+            return null;
+        }
+        Double previous = sessionCosts.put(client, total);
+        return previous == null || previous > total ? total : total - previous;
+    }
+
+    void recordTurn(boolean connect, String outcome, long nanos) {
+        Timer timer = switch (outcome) {
+            case "success" -> connect ? connectSuccess : querySuccess;
+            case "error" -> connect ? connectError : queryError;
+            default -> connect ? connectInterrupted : queryInterrupted;
+        };
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Iterator<ParsedMessage> observe(Iterator<ParsedMessage> messages, Turn turn) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    boolean hasNext = messages.hasNext();
+                    if (!hasNext) {
+                        turn.finish("interrupted");
+                    }
+                    return hasNext;
+                } catch (RuntimeException e) {
+                    streamErrors.increment();
+                    turn.finish("error");
+                    throw e;
+                }
+            }
+
+            @Override
+            public ParsedMessage next() {
+                ParsedMessage parsed = messages.next();
+                if (parsed.isRegularMessage()) {
+                    turn.onMessage(parsed.asMessage());
+                }
+                return parsed;
+            }
+        };
+    }
+
+    private Flux<Message> observe(Flux<Message> messages, Turn turn) {
+        return messages
+                .doOnNext(turn::onMessage)
+                .doOnError(e -> {
+                    streamErrors.increment();
+                    turn.finish("error");
+                })
+                .doOnComplete(() -> turn.finish("interrupted"))
+                .doOnCancel(() -> turn.finish("interrupted"));
+    }
+
+    private Timer turnTimer(MeterRegistry registry, String kind, String outcome) {
+        return Timer.builder("claude.turn.duration")
+                .description("Time from sending a prompt to the turn's result")
+                .tag("model", model)
+                .tag("kind", kind)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private Timer hookTimer(String name, String event) {
+        return Timer.builder("claude.hook.duration")
+                .tag("hook", name)
+                .tag("event", event)
+                .register(registry);
+    }
+
+    private Counter tokenCounter(MeterRegistry registry, String type) {
+        return Counter.builder("claude.tokens")
+                .baseUnit("tokens")
+                .tag("model", model)
+                .tag("type", type)
+                .register(registry);
+    }
+
+    private Counter errorCounter(MeterRegistry registry, String type) {
+        return Counter.builder("claude.errors").tag("model", model).tag("type", type).register(registry);
+    }
+
+    private static double tokens(Object value) {
+        return value instanceof Number n ? n.doubleValue() : 0;
+    }
+
+    // Evaluated on scrape only: walks this JVM's child processes
+    private static double countCliProcesses() {
+        return ProcessHandle.current().descendants().filter(ClaudeMetrics::isCli).count();
+    }
+
+    // The native "claude" binary, or node running the npm package's cli.js
+    private static boolean isCli(ProcessHandle process) {
+        ProcessHandle.Info info = process.info();
+        if (info.command().map(c -> Path.of(c).getFileName().toString().equals("claude")).orElse(false)) {
+            return true;
+        }
+        String[] args = info.arguments().orElse(new String[0]);
+        return args.length > 0 && (args[0].endsWith("/claude") || args[0].contains("@anthropic-ai/claude-code"));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Module 13: Advanced Async Patterns - Metrics overhead
+ *
+ * Measures what ClaudeMetrics adds to a turn and to a hook call, against the
+ * same work without metrics. A turn records first-response time, cost, tokens
+ * and turn duration into a SimpleMeterRegistry; a hook call goes through
+ * timed(). No Claude calls are made.
+ *
+ * Real turns take hundreds of milliseconds or more, so anything in the
+ * microsecond range is safe to leave on.
+ *
+ * Run with: mvn compile exec:java -pl module-13-async-advanced \
+ *   -Dexec.mainClass=org.springaicommunity.tutorial.module13.ClaudeMetricsBenchmark
+ */
+package org.springaicommunity.tutorial.module13;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springaicommunity.claude.agent.sdk.types.control.HookOutput;
+
+import java.util.Map;
+
+public class ClaudeMetricsBenchmark {
+
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+    private static final int ROUNDS = 5;
+
+    private static final Map<String, Object> USAGE = Map.of("input_tokens", 1520, "output_tokens", 310);
+
+    static volatile long sink;
+
+    public static void main(String[] args) {
+        System.out.println("=== Module 13: Metrics Overhead Benchmark ===\n");
+
+        ClaudeMetrics metrics = new ClaudeMetrics("claude-haiku");
+        metrics.bindTo(new SimpleMeterRegistry());
+
+        ClaudeMetrics.Hook hook = input -> HookOutput.allow();
+        ClaudeMetrics.Hook timedHook = metrics.timed("policy", hook);
+
+        for (int i = 0; i < WARMUP; i++) {
+            baselineTurn(i);
+            instrumentedTurn(metrics, i);
+            hook.apply(null);
+            timedHook.apply(null);
+        }
+
+        System.out.printf("%-8s %14s %14s %14s%n", "Round", "Turn (ns)", "Hook (ns)", "% of 1s turn");
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                baselineTurn(i);
+            }
+            long baseline = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                instrumentedTurn(metrics, i);
+            }
+            long instrumented = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                sink += hook.apply(null) != null ? 1 : 0;
+            }
+            long hookBaseline = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                sink += timedHook.apply(null) != null ? 1 : 0;
+            }
+            long hookTimed = System.nanoTime() - start;
+
+            double turnOverhead = Math.max(0, (double) (instrumented - baseline) / ITERATIONS);
+            double hookOverhead = Math.max(0, (double) (hookTimed - hookBaseline) / ITERATIONS);
+            System.out.printf("%-8d %14.1f %14.1f %13.5f%%%n", round + 1, turnOverhead, hookOverhead,
+                    turnOverhead / 1_000_000_000.0 * 100);
+        }
+
+        System.out.println("\n=== Done ===");
+    }
+
+    // What a turn costs without metrics: reading the clock and the result fields
+    private static void baselineTurn(int i) {
+        long start = System.nanoTime();
+        Object input = USAGE.get("input_tokens");
+        sink += (System.nanoTime() - start) + (input != null ? 1 : 0) + (i & 1);
+    }
+
+    private static void instrumentedTurn(ClaudeMetrics metrics, int i) {
+        long start = System.nanoTime();
+        metrics.recordFirstResponse(System.nanoTime() - start);
+        metrics.recordResult(0.0123, USAGE, false);
+        metrics.recordTurn((i & 1) == 0, "success", System.nanoTime() - start);
+        sink += i & 1;
+    }
+}
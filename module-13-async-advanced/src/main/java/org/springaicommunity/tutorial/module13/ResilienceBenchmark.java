@@ -0,0 +1,154 @@
+/*
+ * Module 13: Advanced Async Patterns - Throughput under injected failures
+ *
+ * Sends the same workload through three policies and compares successful
+ * turns per second, CLI processes spawned and latency:
+ * - no retries, no breaker
+ * - retries with decorrelated jitter
+ * - retries and a circuit breaker
+ *
+ * The workload has three phases of equal size. Faults are injected by the
+ * stand-in CLI through STAND_IN_FAULT_FILE, which this benchmark rewrites
+ * between phases:
+ * - baseline: 10% of runs crash (exit 1), 5% end in a rate limit error result
+ * - outage:   every run crashes
+ * - recovery: back to baseline
+ *
+ * The benchmark refuses to start against a real CLI.
+ *
+ * Run with:
+ *   PATH="$PWD/integration-testing/stand-in-cli:$PATH" STAND_IN_FAULT_FILE="$PWD/target/stand-in-faults" \
+ *   mvn compile exec:java -pl module-13-async-advanced \
+ *     -Dexec.mainClass=org.springaicommunity.tutorial.module13.ResilienceBenchmark \
+ *     -Dexec.args="300"
+ */
+package org.springaicommunity.tutorial.module13;
+
+import org.springaicommunity.claude.agent.sdk.ClaudeClient;
+import org.springaicommunity.claude.agent.sdk.ClaudeSyncClient;
+import org.springaicommunity.tutorial.standin.StandInCli;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ResilienceBenchmark {
+
+    private static final int CONCURRENCY = 8;
+    private static final String MODEL = "stand-in";
+    private static final String BASELINE = "0.10 0.05";
+    private static final String OUTAGE = "1 0";
+
+    record Run(String name, long[] latenciesMs, long[] succeededByPhase, ResiliencePolicy.Stats stats, long wallMs) {
+        long succeeded() {
+            return Arrays.stream(succeededByPhase).sum();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Module 13: Resilience Benchmark ===\n");
+
+        StandInCli.require();
+        String faultFile = System.getenv("STAND_IN_FAULT_FILE");
+        if (faultFile == null) {
+            System.out.println("Set STAND_IN_FAULT_FILE: the benchmark injects the outage through it.");
+            System.exit(1);
+        }
+        Path faults = Path.of(faultFile);
+        Files.createDirectories(faults.toAbsolutePath().getParent());
+
+        int turns = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        System.out.printf("Turns: %d, %d at a time; phases: baseline (crash 10%%, rate limit 5%%), outage, recovery%n%n",
+                turns, CONCURRENCY);
+
+        List<Run> runs = new ArrayList<>();
+        runs.add(run("none", ResiliencePolicy.builder().maxAttempts(1).circuitBreaker(false), faults, turns));
+        runs.add(run("retry", policy().circuitBreaker(false), faults, turns));
+        runs.add(run("retry+breaker", policy(), faults, turns));
+        Files.deleteIfExists(faults);
+
+        System.out.printf("%-14s %6s %6s %8s %7s %7s %11s %9s %9s %10s%n", "Policy", "OK", "Failed", "FastFail",
+                "Spawns", "Retries", "Spawns/OK", "OK/s", "p99 (ms)", "Wall (ms)");
+        for (Run r : runs) {
+            ResiliencePolicy.Stats s = r.stats();
+            long[] lat = r.latenciesMs();
+            System.out.printf("%-14s %6d %6d %8d %7d %7d %11.2f %9.1f %9d %10d%n", r.name(), r.succeeded(),
+                    s.failed(), s.shortCircuited(), s.attempts(), s.retries(),
+                    r.succeeded() == 0 ? 0 : (double) s.attempts() / r.succeeded(),
+                    r.succeeded() * 1000.0 / r.wallMs(),
+                    lat.length == 0 ? 0 : lat[Math.min(lat.length - 1, (int) (lat.length * 0.99))], r.wallMs());
+        }
+
+        System.out.println("\nSucceeded per phase (baseline / outage / recovery):");
+        for (Run r : runs) {
+            System.out.printf("  %-14s %d / %d / %d%n", r.name(), r.succeededByPhase()[0], r.succeededByPhase()[1],
+                    r.succeededByPhase()[2]);
+        }
+
+        System.out.println("\n=== Done ===");
+    }
+
+    private static ResiliencePolicy.Builder policy() {
+        return ResiliencePolicy.builder()
+                .maxAttempts(4)
+                .baseDelay(Duration.ofMillis(50))
+                .rateLimitBaseDelay(Duration.ofMillis(200))
+                .maxDelay(Duration.ofSeconds(1))
+                .failureRateThreshold(0.5, 20, 10)
+                .openDuration(Duration.ofSeconds(1));
+    }
+
+    static Run run(String name, ResiliencePolicy.Builder builder, Path faults, int turns) throws Exception {
+        ResiliencePolicy policy = builder.build();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>(turns));
+        LongAdder[] succeeded = {new LongAdder(), new LongAdder(), new LongAdder()};
+        Semaphore slots = new Semaphore(CONCURRENCY);
+
+        Files.writeString(faults, BASELINE);
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < turns; i++) {
+                int phase = i * 3 / turns;
+                if (i == turns / 3) {
+                    Files.writeString(faults, OUTAGE);
+                } else if (i == turns * 2 / 3) {
+                    Files.writeString(faults, BASELINE);
+                }
+                int id = i;
+                slots.acquire();
+                executor.submit(() -> {
+                    long t0 = System.nanoTime();
+                    try {
+                        policy.connectText(MODEL, ResilienceBenchmark::newClient, "Turn " + id);
+                        latencies.add((System.nanoTime() - t0) / 1_000_000);
+                        succeeded[phase].increment();
+                    } catch (Exception e) {
+                        // Counted by the policy
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+        }
+        long wallMs = (System.nanoTime() - start) / 1_000_000;
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        long[] byPhase = Arrays.stream(succeeded).mapToLong(LongAdder::sum).toArray();
+        return new Run(name, sorted, byPhase, policy.stats(), wallMs);
+    }
+
+    private static ClaudeSyncClient newClient() {
+        return ClaudeClient.sync()
+                .workingDirectory(Path.of("."))
+                .timeout(Duration.ofMinutes(1))
+                .build();
+    }
+}
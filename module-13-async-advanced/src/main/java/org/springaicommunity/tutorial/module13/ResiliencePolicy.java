@@ -0,0 +1,502 @@
+/*
+ * Module 13: Advanced Async Patterns - Retries and circuit breaking
+ *
+ * onErrorResume() with a fallback string hides every failure the same way.
+ * ResiliencePolicy classifies the failure of each CLI run and reacts to it:
+ *
+ *   TRANSIENT     CLI crashed or was killed (exit code), timeout, broken pipe,
+ *                 or an "API Error: 5xx" / overloaded_error / api_error result
+ *   RATE_LIMITED  an "API Error: 429" / rate_limit_error result
+ *   PERMANENT     CLI not found (exit 126/127), bad arguments, other error results
+ *
+ * - transient and rate-limited failures are retried with decorrelated jitter:
+ *   each delay is random between the base delay and three times the previous one,
+ *   capped at maxDelay; rate limits start from a longer base delay
+ * - a circuit breaker per model opens when the failure rate over the last
+ *   window calls reaches the threshold; while open, calls fail fast with
+ *   CircuitOpenException instead of spawning a CLI process. After openDuration
+ *   one probe call is let through; its success closes the breaker again, and
+ *   a probe that is cancelled lets the next call probe instead.
+ *   Permanent failures do not count towards the failure rate.
+ *
+ * Every attempt gets a fresh client from the supplied factory, since a crashed
+ * CLI process cannot be reused:
+ *
+ *   policy.connectTextAsync(model, () -> ClaudeClient.async().model(model).build(), prompt)   // Mono<String>
+ *   policy.connectText(model, () -> ClaudeClient.sync().model(model).build(), prompt)         // String
+ *   policy.queryText(model, prompt, options)                                                  // Query
+ *
+ * Exit codes are read from the exception messages of the failed run.
+ * ResilienceBenchmark measures throughput with injected faults and an outage.
+ */
+package org.springaicommunity.tutorial.module13;
+
+import org.springaicommunity.claude.agent.sdk.ClaudeAsyncClient;
+import org.springaicommunity.claude.agent.sdk.ClaudeSyncClient;
+import org.springaicommunity.claude.agent.sdk.Query;
+import org.springaicommunity.claude.agent.sdk.QueryOptions;
+import org.springaicommunity.claude.agent.sdk.parsing.ParsedMessage;
+import org.springaicommunity.claude.agent.sdk.types.AssistantMessage;
+import org.springaicommunity.claude.agent.sdk.types.Message;
+import org.springaicommunity.claude.agent.sdk.types.ResultMessage;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class ResiliencePolicy {
+
+    public enum Failure { TRANSIENT, RATE_LIMITED, PERMANENT }
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * A run that completed with ResultMessage.isError().
+     */
+    public static class ResultErrorException extends RuntimeException {
+        private final ResultMessage result;
+
+        public ResultErrorException(ResultMessage result) {
+            super("Error result: " + result.result());
+            this.result = result;
+        }
+
+        public ResultMessage result() {
+            return result;
+        }
+    }
+
+    /**
+     * Thrown without spawning a CLI process while the model's breaker is open.
+     */
+    public static class CircuitOpenException extends RuntimeException {
+        CircuitOpenException(String model) {
+            super("Circuit open for " + model);
+        }
+    }
+
+    public record Stats(long calls, long attempts, long succeeded, long failed, long retries, long shortCircuited,
+                        long transientFailures, long rateLimited, long permanentFailures) {}
+
+    // Error results carry the API's status and error type, e.g. API Error: 429 {"type":"error","error":{"type":"rate_limit_error",...
+    private static final Pattern API_ERROR = Pattern.compile("API Error: (\\d{3})");
+    private static final Pattern EXIT_CODE = Pattern.compile("exit(?:ed with)?(?: code| status|Code)[ :=]*(-?\\d+)",
+            Pattern.CASE_INSENSITIVE);
+
+    private final int maxAttempts;
+    private final Duration baseDelay;
+    private final Duration rateLimitBaseDelay;
+    private final Duration maxDelay;
+    private final boolean circuitBreaker;
+    private final int window;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final Duration openDuration;
+
+    private final Map<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder shortCircuited = new LongAdder();
+    private final LongAdder transientFailures = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder permanentFailures = new LongAdder();
+
+    private ResiliencePolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.baseDelay = builder.baseDelay;
+        this.rateLimitBaseDelay = builder.rateLimitBaseDelay;
+        this.maxDelay = builder.maxDelay;
+        this.circuitBreaker = builder.circuitBreaker;
+        this.window = builder.window;
+        this.minCalls = builder.minCalls;
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.openDuration = builder.openDuration;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // ---- Classification ----
+
+    /**
+     * Classify a failed run from its error result or exception chain.
+     */
+    public static Failure classify(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof CircuitOpenException) {
+                return Failure.PERMANENT;
+            }
+            if (t instanceof ResultErrorException re) {
+                return classifyResult(re.result());
+            }
+            if (t instanceof TimeoutException || t instanceof IOException) {
+                return Failure.TRANSIENT;
+            }
+            Integer exitCode = exitCode(t.getMessage());
+            if (exitCode != null) {
+                // 126/127: CLI not executable or not found; anything else is a crash or a kill
+                return exitCode == 126 || exitCode == 127 ? Failure.PERMANENT : Failure.TRANSIENT;
+            }
+            if (t instanceof IllegalArgumentException || t instanceof UnsupportedOperationException) {
+                return Failure.PERMANENT;
+            }
+        }
+        return Failure.TRANSIENT;
+    }
+
+    static Failure classifyResult(ResultMessage result) {
+        String text = result.result() == null ? "" : result.result();
+        if (text.contains("rate_limit_error")) {
+            return Failure.RATE_LIMITED;
+        }
+        if (text.contains("overloaded_error") || text.contains("\"api_error\"")) {
+            return Failure.TRANSIENT;
+        }
+        Matcher status = API_ERROR.matcher(text);
+        if (status.find()) {
+            int code = Integer.parseInt(status.group(1));
+            if (code == 429) {
+                return Failure.RATE_LIMITED;
+            }
+            return code >= 500 || code == 408 ? Failure.TRANSIENT : Failure.PERMANENT;
+        }
+        // No response from the API at all
+        String lower = text.toLowerCase(Locale.ROOT);
+        return lower.startsWith("request timed out") || lower.startsWith("api error: connection error")
+                ? Failure.TRANSIENT : Failure.PERMANENT;
+    }
+
+    static Integer exitCode(String message) {
+        if (message == null) {
+            return null;
+        }
+        Matcher m = EXIT_CODE.matcher(message);
+        return m.find() ? Integer.valueOf(m.group(1)) : null;
+    }
+
+    // ---- Sync: clients and Query ----
+
+    /**
+     * Run a callable under the policy: breaker check, attempt, classify, back off, retry.
+     */
+    public <T> T execute(String model, Callable<T> attempt) throws Exception {
+        calls.increment();
+        Backoff backoff = new Backoff();
+        for (int n = 1; ; n++) {
+            Breaker breaker;
+            try {
+                breaker = acquire(model);
+            } catch (CircuitOpenException e) {
+                failed.increment();
+                throw e;
+            }
+            attempts.increment();
+            try {
+                T value = attempt.call();
+                breaker.onSuccess();
+                succeeded.increment();
+                return value;
+            } catch (Exception e) {
+                Failure failure = onFailure(breaker, e);
+                if (failure == Failure.PERMANENT || n >= maxAttempts) {
+                    failed.increment();
+                    throw e;
+                }
+                retries.increment();
+                Thread.sleep(backoff.next(failure).toMillis());
+            }
+        }
+    }
+
+    /**
+     * One connect turn on a fresh sync client per attempt; returns its text.
+     */
+    public String connectText(String model, Supplier<ClaudeSyncClient> clients, String prompt) throws Exception {
+        return execute(model, () -> {
+            try (ClaudeSyncClient client = clients.get()) {
+                client.connect(prompt);
+                return collect(client.receiveResponse());
+            }
+        });
+    }
+
+    /**
+     * One-shot Query under the policy; error results are classified like client runs.
+     */
+    public String queryText(String model, String prompt, QueryOptions options) throws Exception {
+        return execute(model, () -> {
+            StringBuilder text = new StringBuilder();
+            for (Message message : Query.query(prompt, options)) {
+                append(text, message);
+            }
+            return text.toString();
+        });
+    }
+
+    // ---- Async ----
+
+    /**
+     * One connect turn on a fresh async client per attempt. Backoff uses Mono.delay, so no thread waits.
+     */
+    public Mono<String> connectTextAsync(String model, Supplier<ClaudeAsyncClient> clients, String prompt) {
+        return Mono.defer(() -> {
+            calls.increment();
+            Backoff backoff = new Backoff();
+            return Mono.defer(() -> attempt(model, clients, prompt))
+                    .retryWhen(Retry.from(signals -> signals.concatMap(signal -> {
+                        Failure failure = classify(signal.failure());
+                        if (failure == Failure.PERMANENT || signal.totalRetries() + 1 >= maxAttempts) {
+                            failed.increment();
+                            return Mono.error(signal.failure());
+                        }
+                        retries.increment();
+                        return Mono.delay(backoff.next(failure));
+                    })));
+        });
+    }
+
+    private Mono<String> attempt(String model, Supplier<ClaudeAsyncClient> clients, String prompt) {
+        Breaker breaker;
+        try {
+            breaker = acquire(model);
+        } catch (CircuitOpenException e) {
+            return Mono.error(e);
+        }
+        attempts.increment();
+        // The client is built inside the chain, so a factory failure is recorded against the breaker too
+        return Mono.defer(() -> {
+                    ClaudeAsyncClient client = clients.get();
+                    StringBuilder text = new StringBuilder();
+                    return client.connect(prompt).messages()
+                            .doOnNext(message -> append(text, message))
+                            .then(Mono.fromCallable(text::toString))
+                            .doFinally(signal -> client.close().subscribe());
+                })
+                .doOnSuccess(value -> {
+                    breaker.onSuccess();
+                    succeeded.increment();
+                })
+                .doOnError(error -> onFailure(breaker, error))
+                .doOnCancel(breaker::release);
+    }
+
+    // ---- Breakers and stats ----
+
+    public State state(String model) {
+        return breakers.computeIfAbsent(model, m -> new Breaker()).state();
+    }
+
+    public Stats stats() {
+        return new Stats(calls.sum(), attempts.sum(), succeeded.sum(), failed.sum(), retries.sum(),
+                shortCircuited.sum(), transientFailures.sum(), rateLimited.sum(), permanentFailures.sum());
+    }
+
+    private Breaker acquire(String model) {
+        Breaker breaker = breakers.computeIfAbsent(model, m -> new Breaker());
+        if (circuitBreaker && !breaker.tryAcquire()) {
+            shortCircuited.increment();
+            throw new CircuitOpenException(model);
+        }
+        return breaker;
+    }
+
+    private Failure onFailure(Breaker breaker, Throwable error) {
+        Failure failure = classify(error);
+        switch (failure) {
+            case TRANSIENT -> transientFailures.increment();
+            case RATE_LIMITED -> rateLimited.increment();
+            case PERMANENT -> permanentFailures.increment();
+        }
+        breaker.onFailure(failure);
+        return failure;
+    }
+
+    /**
+     * Count-based sliding window over the last calls to one model.
+     */
+    private final class Breaker {
+        private final boolean[] failures = new boolean[window];
+        private int recorded;
+        private int failureCount;
+        private State state = State.CLOSED;
+        private long openedAt;
+        private boolean probing;
+
+        synchronized boolean tryAcquire() {
+            if (state == State.OPEN && System.nanoTime() - openedAt >= openDuration.toNanos()) {
+                state = State.HALF_OPEN;
+                probing = false;
+            }
+            if (state == State.HALF_OPEN) {
+                if (probing) {
+                    return false;
+                }
+                probing = true;
+                return true;
+            }
+            return state == State.CLOSED;
+        }
+
+        // An attempt that ended without a result, e.g. cancelled: a half-open breaker may probe again
+        synchronized void release() {
+            if (state == State.HALF_OPEN) {
+                probing = false;
+            }
+        }
+
+        synchronized void onSuccess() {
+            if (state == State.HALF_OPEN) {
+                reset(State.CLOSED);
+                return;
+            }
+            add(false);
+        }
+
+        synchronized void onFailure(Failure failure) {
+            if (failure == Failure.PERMANENT) {
+                probing = false;
+                return;
+            }
+            if (state == State.HALF_OPEN) {
+                reset(State.OPEN);
+                return;
+            }
+            add(true);
+            if (state == State.CLOSED && recorded >= minCalls
+                    && (double) failureCount / Math.min(recorded, window) >= failureRateThreshold) {
+                reset(State.OPEN);
+            }
+        }
+
+        synchronized State state() {
+            return state;
+        }
+
+        private void add(boolean failure) {
+            int slot = recorded % window;
+            if (recorded >= window && failures[slot]) {
+                failureCount--;
+            }
+            failures[slot] = failure;
+            failureCount += failure ? 1 : 0;
+            recorded++;
+        }
+
+        private void reset(State next) {
+            state = next;
+            openedAt = System.nanoTime();
+            probing = false;
+            recorded = 0;
+            failureCount = 0;
+        }
+    }
+
+    /**
+     * Decorrelated jitter: sleep = min(max, random(base, previous * 3)).
+     */
+    private final class Backoff {
+        private long previousMillis;
+
+        Duration next(Failure failure) {
+            long base = (failure == Failure.RATE_LIMITED ? rateLimitBaseDelay : baseDelay).toMillis();
+            long upper = Math.max(base + 1, Math.max(previousMillis, base) * 3);
+            previousMillis = Math.min(maxDelay.toMillis(), ThreadLocalRandom.current().nextLong(base, upper));
+            return Duration.ofMillis(previousMillis);
+        }
+    }
+
+    private static String collect(Iterator<ParsedMessage> messages) {
+        StringBuilder text = new StringBuilder();
+        while (messages.hasNext()) {
+            ParsedMessage msg = messages.next();
+            if (msg.isRegularMessage()) {
+                append(text, msg.asMessage());
+            }
+        }
+        return text.toString();
+    }
+
+    private static void append(StringBuilder text, Message message) {
+        if (message instanceof AssistantMessage am) {
+            am.getTextContent().ifPresent(text::append);
+        } else if (message instanceof ResultMessage rm && rm.isError()) {
+            throw new ResultErrorException(rm);
+        }
+    }
+
+    public static class Builder {
+        private int maxAttempts = 4;
+        private Duration baseDelay = Duration.ofMillis(200);
+        private Duration rateLimitBaseDelay = Duration.ofSeconds(2);
+        private Duration maxDelay = Duration.ofSeconds(20);
+        private boolean circuitBreaker = true;
+        private int window = 20;
+        private int minCalls = 10;
+        private double failureRateThreshold = 0.5;
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        /**
+         * Attempts per call, including the first (1 disables retries).
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public Builder baseDelay(Duration baseDelay) {
+            this.baseDelay = baseDelay;
+            return this;
+        }
+
+        public Builder rateLimitBaseDelay(Duration rateLimitBaseDelay) {
+            this.rateLimitBaseDelay = rateLimitBaseDelay;
+            return this;
+        }
+
+        public Builder maxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        public Builder circuitBreaker(boolean enabled) {
+            this.circuitBreaker = enabled;
+            return this;
+        }
+
+        /**
+         * Open when at least minCalls of the last window calls were made and failureRate of them failed.
+         */
+        public Builder failureRateThreshold(double failureRate, int window, int minCalls) {
+            this.failureRateThreshold = failureRate;
+            this.window = window;
+            this.minCalls = minCalls;
+            return this;
+        }
+
+        public Builder openDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+            return this;
+        }
+
+        public ResiliencePolicy build() {
+            return new ResiliencePolicy(this);
+        }
+    }
+}
@@ -5,6 +5,7 @@
  * The hook is invoked before each tool execution, allowing you to:
  * - Allow or deny tool usage based on tool name and input
  * - Log all tool permission requests
+ * - Cache decisions of pure permission checks (PermissionDecisionCache)
  *
  * Note: This uses HookRegistry.registerPreToolUse() which provides the same
  * functionality as Python SDK's can_use_tool callback.
@@ -27,6 +28,7 @@ import org.springaicommunity.claude.agent.sdk.types.control.HookOutput;
 import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 public class PermissionCallbackExample {
 
@@ -34,44 +36,37 @@ public class PermissionCallbackExample {
         "rm -rf", "sudo", "chmod 777", "mkfs"
     );
 
+    // The arguments checkPermission reads; Bash's model-written description is left out
+    private static final Map<String, List<String>> KEY_ARGUMENTS = Map.of(
+        "Bash", List.of("command"),
+        "Read", List.of("file_path"),
+        "Glob", List.of("pattern"),
+        "Grep", List.of("pattern")
+    );
+
+    record Decision(boolean allowed, String reason) {}
+
     public static void main(String[] args) {
         System.out.println("=== Module 14: Permission Callbacks ===\n");
 
         // Create hook registry with permission-checking hooks
         HookRegistry hooks = new HookRegistry();
 
-        // Register a PreToolUse hook for all tools
+        // Permission decisions depend only on tool name and input, so they can be cached
+        PermissionDecisionCache<Decision> decisionCache = new PermissionDecisionCache<>(1_000);
+        PermissionDecisionCache.PermissionCheck<Decision> cachedCheck =
+                decisionCache.cacheable(PermissionCallbackExample::checkPermission, KEY_ARGUMENTS);
+
+        // Register a PreToolUse hook for all tools; every call is logged, cached or not
         hooks.registerPreToolUse(input -> {
-            var preToolUse = (HookInput.PreToolUseInput) input;
-            String toolName = preToolUse.toolName();
+            HookInput.PreToolUseInput preToolUse = (HookInput.PreToolUseInput) input;
+            Decision decision = cachedCheck.check(preToolUse);
 
-            System.out.println("[Permission] Tool: " + toolName);
+            System.out.println("[Permission] Tool: " + preToolUse.toolName());
             System.out.println("[Permission] Input: " + preToolUse.toolInput());
-
-            // Always allow read-only operations
-            if (toolName.equals("Read") || toolName.equals("Glob") || toolName.equals("Grep")) {
-                System.out.println("[Permission] ALLOWED (read-only operation)\n");
-                return HookOutput.allow();
-            }
-
-            // Check Bash commands for dangerous patterns
-            if (toolName.equals("Bash")) {
-                String command = preToolUse.getArgument("command", String.class).orElse("");
-
-                for (String pattern : DANGEROUS_PATTERNS) {
-                    if (command.contains(pattern)) {
-                        System.out.println("[Permission] DENIED (dangerous: " + pattern + ")\n");
-                        return HookOutput.block("Blocked dangerous command: " + pattern);
-                    }
-                }
-
-                System.out.println("[Permission] ALLOWED (safe command)\n");
-                return HookOutput.allow();
-            }
-
-            // Default: allow other tools
-            System.out.println("[Permission] ALLOWED (default)\n");
-            return HookOutput.allow();
+            System.out.println("[Permission] " + (decision.allowed() ? "ALLOWED" : "DENIED")
+                    + " (" + decision.reason() + ")\n");
+            return decision.allowed() ? HookOutput.allow() : HookOutput.block(decision.reason());
         });
 
         try (ClaudeSyncClient client = ClaudeClient.sync()
@@ -97,13 +92,50 @@ public class PermissionCallbackExample {
             client.query("Run this exact command: rm -rf /tmp/test");
             printResponse(client);
 
+            // Test 4: Repeat of Test 2 (decision comes from the cache, hook logic is skipped)
+            System.out.println("\n--- Test 4: Repeated safe command (cached decision) ---");
+            client.query("Run this exact command again: echo 'Hello from permission callback!'");
+            printResponse(client);
+
         } catch (Exception e) {
             System.err.println("Error: " + e.getMessage());
         }
 
+        System.out.println("\n--- Decision Cache ---");
+        System.out.println(decisionCache);
+
         System.out.println("\n=== Done ===");
     }
 
+    /**
+     * Permission policy. Pure and deterministic: the decision depends only on
+     * the tool name and the arguments in KEY_ARGUMENTS, which makes it safe to cache.
+     */
+    static Decision checkPermission(HookInput.PreToolUseInput preToolUse) {
+        String toolName = preToolUse.toolName();
+
+        // Always allow read-only operations
+        if (toolName.equals("Read") || toolName.equals("Glob") || toolName.equals("Grep")) {
+            return new Decision(true, "read-only operation");
+        }
+
+        // Check Bash commands for dangerous patterns
+        if (toolName.equals("Bash")) {
+            String command = preToolUse.getArgument("command", String.class).orElse("");
+
+            for (String pattern : DANGEROUS_PATTERNS) {
+                if (command.contains(pattern)) {
+                    return new Decision(false, "Blocked dangerous command: " + pattern);
+                }
+            }
+
+            return new Decision(true, "safe command");
+        }
+
+        // Default: allow other tools
+        return new Decision(true, "default");
+    }
+
     private static void printResponse(ClaudeSyncClient client) {
         Iterator<ParsedMessage> response = client.receiveResponse();
         while (response.hasNext()) {
@@ -0,0 +1,142 @@
+/*
+ * Module 14: Permission Callbacks - Decision cache
+ *
+ * Many tool calls in a session are identical (the same Read path, the same Grep
+ * pattern). For permission checks that are pure and deterministic - the decision
+ * depends only on the tool name and its input - the answer can be reused.
+ *
+ * Checks opt in explicitly via cacheable(), naming per tool the arguments they
+ * read. Entries are keyed by tool name plus a SHA-256 digest of those arguments
+ * (the whole input for tools that are not listed), serialized with sorted keys,
+ * and kept in a bounded LRU map. Arguments the check ignores, such as the
+ * description the model writes for every Bash call, must stay out of the key,
+ * or repeated calls never hit. Values are not normalized: "x/../secret" and
+ * "secret", or a command with and without surrounding whitespace, are
+ * different calls and get their own decisions. Never wrap checks that look at
+ * time, counters or external state.
+ */
+package org.springaicommunity.tutorial.module14;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springaicommunity.claude.agent.sdk.types.control.HookInput;
+
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class PermissionDecisionCache<D> {
+
+    /**
+     * A PreToolUse permission decision.
+     */
+    @FunctionalInterface
+    public interface PermissionCheck<D> {
+        D check(HookInput.PreToolUseInput input);
+    }
+
+    private static final ObjectMapper CANONICAL = new ObjectMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    private record Entry<D>(D decision, long computeNanos) {}
+
+    private final Map<String, Entry<D>> entries;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder savedNanos = new LongAdder();
+
+    public PermissionDecisionCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<D>> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Wrap a pure, deterministic check so repeated identical tool calls reuse its decision.
+     *
+     * @param keyArguments per tool name, the input arguments the check reads
+     */
+    public PermissionCheck<D> cacheable(PermissionCheck<D> check, Map<String, List<String>> keyArguments) {
+        Map<String, List<String>> arguments = Map.copyOf(keyArguments);
+        return input -> {
+            String key = key(input, arguments);
+
+            Entry<D> cached = get(key);
+            if (cached != null) {
+                hits.increment();
+                savedNanos.add(cached.computeNanos());
+                return cached.decision();
+            }
+
+            misses.increment();
+            long start = System.nanoTime();
+            D decision = check.check(input);
+            put(key, new Entry<>(decision, System.nanoTime() - start));
+            return decision;
+        };
+    }
+
+    public double hitRate() {
+        long total = hits.sum() + misses.sum();
+        return total == 0 ? 0.0 : (double) hits.sum() / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d, misses=%d, hit rate=%.0f%%, evictions=%d, saved hook time=%.3f ms",
+                hits.sum(), misses.sum(), hitRate() * 100, evictions.sum(), savedNanos.sum() / 1_000_000.0);
+    }
+
+    private Entry<D> get(String key) {
+        lock.lock();
+        try {
+            return entries.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(String key, Entry<D> entry) {
+        lock.lock();
+        try {
+            entries.put(key, entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tool name plus a digest of the arguments the check reads; only key order is canonicalized.
+     */
+    static String key(HookInput.PreToolUseInput input, Map<String, List<String>> keyArguments) {
+        Map<String, Object> toolInput = input.toolInput() != null ? input.toolInput() : Map.of();
+        List<String> read = keyArguments.get(input.toolName());
+        Map<String, Object> keyed = new TreeMap<>();
+        if (read == null) {
+            keyed.putAll(toolInput);
+        } else {
+            read.forEach(argument -> keyed.put(argument, toolInput.get(argument)));
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(CANONICAL.writeValueAsBytes(keyed));
+            return input.toolName() + ":" + HexFormat.of().formatHex(digest);
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot digest tool input", e);
+        }
+    }
+}
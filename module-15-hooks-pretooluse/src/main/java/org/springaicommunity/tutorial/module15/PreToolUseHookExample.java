@@ -6,6 +6,7 @@
  * - Tool-specific hook registration with pattern matching
  * - Logging tool invocations before execution
  * - Blocking specific commands with HookOutput.block()
+ * - Declarative rules from a policy file (ToolPolicy) with explain and hot reload
  *
  * Run with: mvn compile exec:java -pl module-15-hooks-pretooluse
  */
@@ -22,15 +23,27 @@ import org.springaicommunity.claude.agent.sdk.types.ResultMessage;
 import org.springaicommunity.claude.agent.sdk.types.control.HookInput;
 import org.springaicommunity.claude.agent.sdk.types.control.HookOutput;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 public class PreToolUseHookExample {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         System.out.println("=== Module 15: Hooks PreToolUse ===\n");
 
+        // Declarative policy, loaded from a file instead of hand-written equals chains
+        Path policyDir = Files.createTempDirectory("tool-policy");
+        Path policyFile = policyDir.resolve("policy.json");
+        ToolPolicy.write(policyFile, initialPolicy());
+        ToolPolicy policy = ToolPolicy.load(policyFile);
+        System.out.println("[Info] Policy loaded: " + policy.ruleCount() + " rules from " + policyFile + "\n");
+
         HookRegistry hooks = new HookRegistry();
 
         // Hook 1: Log all Bash commands before execution
@@ -60,7 +73,10 @@ public class PreToolUseHookExample {
             return HookOutput.allow();
         });
 
-        // Hook 3: Global hook for any tool (logging only)
+        // Hook 3: Policy rules for every tool, evaluated in a single hook
+        hooks.registerPreToolUse(input -> policy.evaluate((HookInput.PreToolUseInput) input));
+
+        // Hook 4: Global hook for any tool (logging only)
         hooks.registerPreToolUse(input -> {
             var preToolUse = (HookInput.PreToolUseInput) input;
             System.out.println("[PreToolUse:*] Tool invoked: " + preToolUse.toolName());
@@ -94,9 +110,60 @@ public class PreToolUseHookExample {
             System.err.println("Error: " + e.getMessage());
         }
 
+        policyDemo(policy, policyFile);
+
+        Files.deleteIfExists(policyFile);
+        Files.deleteIfExists(policyDir);
+
         System.out.println("\n=== Done ===");
     }
 
+    /**
+     * Explain decisions, then edit the policy file and watch it reload atomically.
+     */
+    static void policyDemo(ToolPolicy policy, Path policyFile) throws IOException {
+        System.out.println("\n--- Declarative Policy: explain mode ---");
+
+        ToolPolicy.Decision decision = policy.explain("Read", Map.of("file_path", "/app/config/.env"));
+        System.out.println("Read /app/config/.env -> " + (decision.allowed() ? "ALLOW" : "DENY"));
+        decision.trace().forEach(step -> System.out.println("  " + step));
+
+        decision = policy.explain("Bash", Map.of("command", "git status"));
+        System.out.println("Bash 'git status' -> " + (decision.allowed() ? "ALLOW" : "DENY"));
+        decision.trace().forEach(step -> System.out.println("  " + step));
+
+        System.out.println("\n--- Declarative Policy: hot reload ---");
+        try (WatchService ignored = policy.watch()) {
+            // Tighten the policy: git push is no longer allowed
+            List<ToolPolicy.Rule> rules = new ArrayList<>(initialPolicy().rules());
+            rules.add(0, new ToolPolicy.Rule("no-push", "Bash", null, "^git\\s+push",
+                    "deny", "Pushing is not allowed from the agent"));
+            ToolPolicy.write(policyFile, new ToolPolicy.PolicyFile("allow", rules));
+
+            // The watcher reloads in the background; wait briefly for the swap
+            for (int i = 0; i < 50 && policy.ruleCount() != rules.size(); i++) {
+                Thread.sleep(100);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        decision = policy.decide("Bash", Map.of("command", "git push origin main"));
+        System.out.println("Bash 'git push origin main' -> " + (decision.allowed() ? "ALLOW" : "DENY") +
+                (decision.ruleId() != null ? " (rule " + decision.ruleId() + ")" : ""));
+    }
+
+    static ToolPolicy.PolicyFile initialPolicy() {
+        return new ToolPolicy.PolicyFile("allow", List.of(
+                new ToolPolicy.Rule("no-env-files", "Read", "**/*.env", null,
+                        "deny", "Reading .env files is not allowed"),
+                new ToolPolicy.Rule("no-rm-rf", "Bash", null, "rm\\s+-rf",
+                        "deny", "Recursive deletes are not allowed"),
+                new ToolPolicy.Rule("no-etc", "*", "/etc/**", null,
+                        "deny", "System configuration is off limits")
+        ));
+    }
+
     private static void printResponse(ClaudeSyncClient client) {
         Iterator<ParsedMessage> response = client.receiveResponse();
         while (response.hasNext()) {
@@ -0,0 +1,369 @@
+/*
+ * Module 15: Hooks PreToolUse - Declarative tool policy
+ *
+ * Replaces hand-written if/equals chains in PreToolUse hooks with rules loaded
+ * from a JSON file:
+ *
+ *   {
+ *     "defaultDecision": "allow",
+ *     "rules": [
+ *       { "id": "no-env", "tool": "Read", "path": "**\/*.env", "decision": "deny", "reason": "Secrets" },
+ *       { "id": "no-rm",  "tool": "Bash", "command": "rm\\s+-rf", "decision": "deny" },
+ *       { "id": "mcp-fs", "tool": "*",    "path": "/etc/**",    "decision": "deny" }
+ *     ]
+ *   }
+ *
+ * Rules are compiled into a decision tree: an index by tool name, then for each tool
+ * the ordered rules that can apply to it (its own plus "*" rules), with globs and
+ * regexes precompiled. The first matching rule wins. Reloads compile a new tree and
+ * swap it atomically, so hook evaluations never observe a half-loaded policy.
+ */
+package org.springaicommunity.tutorial.module15;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springaicommunity.claude.agent.sdk.types.control.HookInput;
+import org.springaicommunity.claude.agent.sdk.types.control.HookOutput;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+public class ToolPolicy {
+
+    /**
+     * One rule as written in the policy file.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Rule(String id, String tool, String path, String command, String decision, String reason) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record PolicyFile(String defaultDecision, List<Rule> rules) {}
+
+    /**
+     * Outcome of an evaluation. The trace is only filled in explain mode.
+     */
+    public record Decision(boolean allowed, String ruleId, String reason, List<String> trace) {
+        HookOutput toHookOutput() {
+            return allowed ? HookOutput.allow() : HookOutput.block(reason);
+        }
+    }
+
+    // Arguments that carry a file system path, checked in this order
+    private static final String[] PATH_ARGUMENTS = {"file_path", "path", "notebook_path"};
+
+    // The literal prefixes let most non-matching rules be rejected with a startsWith
+    // before any glob or regex runs.
+    private record CompiledRule(String id, PathMatcher path, String pathGlob, String pathPrefix,
+                                Pattern command, String commandPrefix, boolean allow, String reason) {
+
+        boolean matches(Path pathValue, Path relativeValue, String commandValue) {
+            if (path != null) {
+                if (!matchesPath(pathValue) && !matchesPath(relativeValue)) {
+                    return false;
+                }
+            }
+            if (command != null) {
+                return commandValue != null && commandValue.startsWith(commandPrefix)
+                        && command.matcher(commandValue).find();
+            }
+            return true;
+        }
+
+        private boolean matchesPath(Path value) {
+            return value != null && value.toString().startsWith(pathPrefix) && path.matches(value);
+        }
+    }
+
+    private record CompiledPolicy(Map<String, CompiledRule[]> byTool, CompiledRule[] anyTool,
+                                  boolean defaultAllow, int ruleCount) {}
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final Path source;
+    private final AtomicReference<CompiledPolicy> current = new AtomicReference<>();
+
+    private ToolPolicy(Path source, CompiledPolicy initial) {
+        this.source = source;
+        this.current.set(initial);
+    }
+
+    /**
+     * Load and compile a policy file. Fails if the file is missing or invalid.
+     */
+    public static ToolPolicy load(Path file) throws IOException {
+        return new ToolPolicy(file, compile(mapper.readValue(file.toFile(), PolicyFile.class)));
+    }
+
+    /**
+     * Compile rules directly, without a backing file (reload is not available).
+     */
+    public static ToolPolicy of(PolicyFile policy) {
+        return new ToolPolicy(null, compile(policy));
+    }
+
+    /**
+     * Re-read the policy file and swap in the new tree. On error the current policy stays active.
+     */
+    public boolean reload() {
+        if (source == null) {
+            return false;
+        }
+        try {
+            current.set(compile(mapper.readValue(source.toFile(), PolicyFile.class)));
+            return true;
+        } catch (Exception e) {
+            System.err.println("[Policy] Reload failed, keeping previous policy: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Reload automatically whenever the policy file changes. Close the returned
+     * WatchService to stop watching.
+     */
+    public WatchService watch() throws IOException {
+        if (source == null) {
+            throw new IllegalStateException("Policy was not loaded from a file");
+        }
+        Path dir = source.toAbsolutePath().getParent();
+        WatchService watcher = FileSystems.getDefault().newWatchService();
+        dir.register(watcher, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+
+        Thread.ofVirtual().name("tool-policy-watcher").start(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watcher.take();
+                    boolean changed = key.pollEvents().stream()
+                            .anyMatch(e -> source.getFileName().equals(e.context()));
+                    key.reset();
+                    if (changed && reload()) {
+                        System.out.println("[Policy] Reloaded " + source.getFileName() +
+                                " (" + ruleCount() + " rules)");
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // watcher closed
+            }
+        });
+        return watcher;
+    }
+
+    public int ruleCount() {
+        return current.get().ruleCount();
+    }
+
+    /**
+     * Evaluate a tool call. First matching rule wins, otherwise the default decision applies.
+     */
+    public Decision decide(String toolName, Map<String, Object> input) {
+        return evaluate(toolName, input, null);
+    }
+
+    /**
+     * Same as decide(), but records which rules were checked and why they did or did not match.
+     */
+    public Decision explain(String toolName, Map<String, Object> input) {
+        return evaluate(toolName, input, new ArrayList<>());
+    }
+
+    /**
+     * Evaluate a PreToolUse hook input and convert the decision to a HookOutput.
+     */
+    public HookOutput evaluate(HookInput.PreToolUseInput input) {
+        return decide(input.toolName(), input.toolInput()).toHookOutput();
+    }
+
+    private Decision evaluate(String toolName, Map<String, Object> input, List<String> trace) {
+        CompiledPolicy policy = current.get();  // one consistent snapshot per evaluation
+        CompiledRule[] rules = policy.byTool().getOrDefault(toolName, policy.anyTool());
+
+        Path pathValue = toPath(pathArgument(input));
+        Path relativeValue = relativeToCwd(pathValue);
+        String commandValue = input != null && input.get("command") instanceof String c ? c : null;
+
+        for (CompiledRule rule : rules) {
+            boolean matched = rule.matches(pathValue, relativeValue, commandValue);
+            if (trace != null) {
+                trace.add(rule.id() + ": " + (matched ? "MATCH" : "no match") + describe(rule));
+            }
+            if (matched) {
+                return new Decision(rule.allow(), rule.id(), rule.reason(), trace);
+            }
+        }
+        if (trace != null) {
+            trace.add("default: " + (policy.defaultAllow() ? "allow" : "deny"));
+        }
+        return new Decision(policy.defaultAllow(), null,
+                policy.defaultAllow() ? null : "Denied by default policy for " + toolName, trace);
+    }
+
+    private static CompiledPolicy compile(PolicyFile file) {
+        List<Rule> rules = file.rules() != null ? file.rules() : List.of();
+
+        List<CompiledRule> anyTool = new ArrayList<>();
+        Set<String> tools = new LinkedHashSet<>();
+        for (Rule rule : rules) {
+            if (rule.tool() != null && !"*".equals(rule.tool())) {
+                tools.add(rule.tool());
+            }
+        }
+
+        // Per tool: its own rules and the wildcard rules, in file order
+        Map<String, List<CompiledRule>> byTool = new HashMap<>();
+        tools.forEach(t -> byTool.put(t, new ArrayList<>()));
+
+        int index = 0;
+        for (Rule rule : rules) {
+            CompiledRule compiled = compileRule(rule, index++);
+            if (rule.tool() == null || "*".equals(rule.tool())) {
+                anyTool.add(compiled);
+                byTool.values().forEach(list -> list.add(compiled));
+            } else {
+                byTool.get(rule.tool()).add(compiled);
+            }
+        }
+
+        Map<String, CompiledRule[]> tree = new HashMap<>();
+        byTool.forEach((tool, list) -> tree.put(tool, list.toArray(CompiledRule[]::new)));
+
+        boolean defaultAllow = !"deny".equalsIgnoreCase(file.defaultDecision());
+        return new CompiledPolicy(Map.copyOf(tree), anyTool.toArray(CompiledRule[]::new), defaultAllow, rules.size());
+    }
+
+    private static CompiledRule compileRule(Rule rule, int index) {
+        String id = rule.id() != null ? rule.id() : "rule-" + index;
+        boolean allow;
+        if ("allow".equalsIgnoreCase(rule.decision())) {
+            allow = true;
+        } else if ("deny".equalsIgnoreCase(rule.decision())) {
+            allow = false;
+        } else {
+            throw new IllegalArgumentException("Rule " + id + ": decision must be allow or deny");
+        }
+        PathMatcher path = rule.path() != null
+                ? FileSystems.getDefault().getPathMatcher("glob:" + rule.path())
+                : null;
+        Pattern command = rule.command() != null ? Pattern.compile(rule.command()) : null;
+        String reason = rule.reason() != null ? rule.reason() : "Blocked by policy rule " + id;
+        return new CompiledRule(id, path, rule.path(), rule.path() != null ? globPrefix(rule.path()) : null,
+                command, rule.command() != null ? regexPrefix(rule.command()) : null, allow, reason);
+    }
+
+    private static String pathArgument(Map<String, Object> input) {
+        if (input == null) {
+            return null;
+        }
+        for (String name : PATH_ARGUMENTS) {
+            if (input.get(name) instanceof String value && !value.isBlank()) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The absolute, normalized path the tool will touch, so "/tmp/../etc/passwd" is checked as "/etc/passwd".
+     * Relative paths are resolved against the working directory.
+     */
+    static Path toPath(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Path.of(value).toAbsolutePath().normalize();
+        } catch (InvalidPathException e) {
+            return null;  // path rules cannot match an invalid path
+        }
+    }
+
+    // Relative globs such as "src/**" are matched against the path relative to the working directory
+    private static Path relativeToCwd(Path path) {
+        Path cwd = Path.of("").toAbsolutePath();
+        return path != null && path.startsWith(cwd) ? cwd.relativize(path) : null;
+    }
+
+    /**
+     * Leading literal part of a glob, e.g. "/srv/app/" for "/srv/app/**\/*.env".
+     */
+    static String globPrefix(String glob) {
+        int end = 0;
+        while (end < glob.length() && "*?[{\\".indexOf(glob.charAt(end)) < 0) {
+            end++;
+        }
+        return glob.substring(0, end);
+    }
+
+    /**
+     * Literal text a regex must start with: only for patterns anchored with '^' and without
+     * alternation, otherwise "". "^curl|wget" also matches "wget ...", so it has no prefix.
+     */
+    static String regexPrefix(String regex) {
+        if (!regex.startsWith("^") || hasAlternation(regex)) {
+            return "";
+        }
+        int end = 1;
+        while (end < regex.length() && ".[]{}()*+?^$|\\".indexOf(regex.charAt(end)) < 0) {
+            end++;
+        }
+        // A quantifier applies to the previous character, which is then not guaranteed
+        if (end < regex.length() && "*?{".indexOf(regex.charAt(end)) >= 0 && end > 1) {
+            end--;
+        }
+        return regex.substring(1, end);
+    }
+
+    // Any unescaped '|' outside a character class, at any group depth
+    private static boolean hasAlternation(String regex) {
+        boolean inClass = false;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                inClass = true;
+            } else if (c == ']') {
+                inClass = false;
+            } else if (c == '|' && !inClass) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String describe(CompiledRule rule) {
+        StringBuilder sb = new StringBuilder(" (").append(rule.allow() ? "allow" : "deny");
+        if (rule.pathGlob() != null) {
+            sb.append(", path=").append(rule.pathGlob());
+        }
+        if (rule.command() != null) {
+            sb.append(", command=").append(rule.command().pattern());
+        }
+        return sb.append(')').toString();
+    }
+
+    /**
+     * Write a policy file (used by the example to create and modify its policy).
+     */
+    static void write(Path file, PolicyFile policy) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        mapper.writerWithDefaultPrettyPrinter().writeValue(tmp.toFile(), policy);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Module 15: Hooks PreToolUse - Policy evaluation cost
+ *
+ * Compiles a 500 rule policy (per-tool path globs and command patterns, plus
+ * wildcard rules) and measures the cost of a single decision. Policy checks
+ * run inside the PreToolUse hook for every tool call, so they should stay
+ * well under a microsecond.
+ *
+ * Run with: mvn compile exec:java -pl module-15-hooks-pretooluse \
+ *   -Dexec.mainClass=org.springaicommunity.tutorial.module15.ToolPolicyBenchmark
+ */
+package org.springaicommunity.tutorial.module15;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class ToolPolicyBenchmark {
+
+    private static final int RULES = 500;
+    private static final int TOOLS = 50;
+    private static final int WARMUP = 500_000;
+    private static final int ITERATIONS = 2_000_000;
+    private static final int ROUNDS = 5;
+
+    record Call(String tool, Map<String, Object> input) {}
+
+    static volatile boolean sink;
+
+    public static void main(String[] args) {
+        System.out.println("=== Module 15: Tool Policy Benchmark ===\n");
+
+        ToolPolicy policy = ToolPolicy.of(new ToolPolicy.PolicyFile("allow", rules()));
+        Call[] calls = calls(1024);
+        System.out.printf("Policy: %d rules across %d tools, %d distinct calls%n%n",
+                policy.ruleCount(), TOOLS, calls.length);
+
+        for (int i = 0; i < WARMUP; i++) {
+            Call call = calls[i & (calls.length - 1)];
+            sink = policy.decide(call.tool(), call.input()).allowed();
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                Call call = calls[i & (calls.length - 1)];
+                sink = policy.decide(call.tool(), call.input()).allowed();
+            }
+            System.out.printf("Round %d: %.1f ns/decision%n", round + 1,
+                    (double) (System.nanoTime() - start) / ITERATIONS);
+        }
+
+        System.out.println("\n=== Done ===");
+    }
+
+    /**
+     * 500 rules: per tool a mix of path globs and command patterns, plus a few wildcard rules.
+     */
+    static List<ToolPolicy.Rule> rules() {
+        List<ToolPolicy.Rule> rules = new ArrayList<>(RULES);
+        for (int i = 0; rules.size() < RULES - 5; i++) {
+            String tool = tool(i % TOOLS);
+            if (i % 2 == 0) {
+                rules.add(new ToolPolicy.Rule("path-" + i, tool, "/srv/project-" + i + "/**/*.secret",
+                        null, "deny", null));
+            } else {
+                rules.add(new ToolPolicy.Rule("cmd-" + i, tool, null, "^danger-" + i + "\\b",
+                        "deny", null));
+            }
+        }
+        for (int i = 0; i < 5; i++) {
+            rules.add(new ToolPolicy.Rule("any-" + i, "*", "/etc/private-" + i + "/**", null, "deny", null));
+        }
+        return rules;
+    }
+
+    static Call[] calls(int count) {
+        Random random = new Random(42);
+        Call[] calls = new Call[count];
+        for (int i = 0; i < count; i++) {
+            String tool = tool(random.nextInt(TOOLS));
+            calls[i] = random.nextBoolean()
+                    ? new Call(tool, Map.of("file_path", "/srv/project-" + random.nextInt(RULES) + "/src/Main.java"))
+                    : new Call(tool, Map.of("command", "ls -la /tmp/" + random.nextInt(1000)));
+        }
+        return calls;
+    }
+
+    private static String tool(int i) {
+        return switch (i) {
+            case 0 -> "Read";
+            case 1 -> "Bash";
+            case 2 -> "Grep";
+            case 3 -> "Glob";
+            default -> "mcp__server" + i + "__tool";
+        };
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Module 16: Hooks PostToolUse - Tracing turns, tools and hooks
+ *
+ * Produces OpenTelemetry-style spans for a client session:
+ *
+ *   turn (connect | query)          model, session id, cost, tokens, phase breakdown
+ *   ├── cli.startup                 connect only: until the CLI's first message
+ *   ├── tool:Bash                   keyed by ToolUseBlock.id(), until its ToolResultBlock
+ *   │   └── hook:PreToolUse:policy  time spent in each traced hook callback
+ *   └── tool:Read
+ *
+ * Turns are observed from the message stream (tracer.connect()/query() for
+ * ClaudeSyncClient, or beginTurn() + onMessage() for the async client's
+ * messages() Flux). Tool execution time (PreToolUse -> PostToolUse) comes from
+ * the hooks registered by instrument(). Hook inputs carry no tool use id, so they are matched to the
+ * ToolUseBlock with the same tool name and input; whichever side arrives first
+ * opens the tool span.
+ *
+ * ResultMessage.totalCostUsd() is the session's running total: it is kept as
+ * claude.session_cost_usd, and claude.cost_usd is the turn's own share, the
+ * increase over the previous turn.
+ */
+package org.springaicommunity.tutorial.module16;
+
+import org.springaicommunity.claude.agent.sdk.ClaudeSyncClient;
+import org.springaicommunity.claude.agent.sdk.hooks.HookRegistry;
+import org.springaicommunity.claude.agent.sdk.parsing.ParsedMessage;
+import org.springaicommunity.claude.agent.sdk.types.AssistantMessage;
+import org.springaicommunity.claude.agent.sdk.types.ContentBlock;
+import org.springaicommunity.claude.agent.sdk.types.Message;
+import org.springaicommunity.claude.agent.sdk.types.ResultMessage;
+import org.springaicommunity.claude.agent.sdk.types.ToolResultBlock;
+import org.springaicommunity.claude.agent.sdk.types.ToolUseBlock;
+import org.springaicommunity.claude.agent.sdk.types.UserMessage;
+import org.springaicommunity.claude.agent.sdk.types.control.HookInput;
+import org.springaicommunity.claude.agent.sdk.types.control.HookOutput;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ClaudeTracer implements AutoCloseable {
+
+    /**
+     * Receives every finished span.
+     */
+    public interface SpanExporter extends AutoCloseable {
+        void export(Span span);
+
+        @Override
+        default void close() {}
+    }
+
+    /**
+     * A hook callback that can be timed (same shape as the SDK's hook callbacks).
+     */
+    @FunctionalInterface
+    public interface Hook {
+        HookOutput apply(HookInput input);
+    }
+
+    private final SpanExporter exporter;
+    private final String model;
+    private final String traceId = Span.randomId(16);
+    private final List<Span> finishedTurns = new ArrayList<>();
+
+    // Current turn and its open tool spans; guarded by this
+    private Span turn;
+    private Span startup;
+    private final List<ToolSpan> tools = new ArrayList<>();
+    private Double sessionCostUsd;
+
+    private static final class ToolSpan {
+        final String key;
+        final Span span;
+        String toolUseId;
+        Long execStart;
+        Long execEnd;
+        long hookNanos;
+
+        ToolSpan(String key, Span span) {
+            this.key = key;
+            this.span = span;
+        }
+    }
+
+    public ClaudeTracer(SpanExporter exporter, String model) {
+        this.exporter = exporter;
+        this.model = model;
+    }
+
+    /**
+     * Register the hooks that time tool execution. Register this before other hooks
+     * so the tool span is open when they run.
+     */
+    public HookRegistry instrument(HookRegistry hooks) {
+        hooks.registerPreToolUse(input -> {
+            var pre = (HookInput.PreToolUseInput) input;
+            synchronized (this) {
+                ToolSpan tool = toolSpan(pre.toolName(), pre.toolInput(), null, true);
+                if (tool != null && tool.execStart == null) {
+                    tool.execStart = System.nanoTime();
+                }
+            }
+            return HookOutput.allow();
+        });
+        hooks.registerPostToolUse(input -> {
+            var post = (HookInput.PostToolUseInput) input;
+            synchronized (this) {
+                ToolSpan tool = toolSpan(post.toolName(), post.toolInput(), null, false);
+                if (tool != null && tool.execEnd == null) {
+                    tool.execEnd = System.nanoTime();  // the span itself ends with the ToolResultBlock
+                }
+            }
+            return HookOutput.allow();
+        });
+        return hooks;
+    }
+
+    /**
+     * Wrap a hook so its evaluation time becomes a child span of the tool it ran for.
+     */
+    public Hook traced(String name, Hook hook) {
+        return input -> {
+            long start = System.nanoTime();
+            HookOutput output = hook.apply(input);
+            long end = System.nanoTime();
+
+            String event = input instanceof HookInput.PostToolUseInput ? "PostToolUse" : "PreToolUse";
+            synchronized (this) {
+                ToolSpan tool = switch (input) {
+                    case HookInput.PreToolUseInput pre -> toolSpan(pre.toolName(), pre.toolInput(), null, true);
+                    case HookInput.PostToolUseInput post -> toolSpan(post.toolName(), post.toolInput(), null, false);
+                    default -> null;
+                };
+                String parent = tool != null ? tool.span.spanId() : turn != null ? turn.spanId() : null;
+                Span span = new Span(traceId, parent, "hook:" + event + ":" + name, start).end(end);
+                if (tool != null) {
+                    tool.hookNanos += end - start;
+                }
+                exporter.export(span);
+            }
+            return output;
+        };
+    }
+
+    /**
+     * Connect with a first prompt and trace the turn while its messages are consumed.
+     */
+    public Iterator<ParsedMessage> connect(ClaudeSyncClient client, String prompt) {
+        beginTurn("connect");
+        client.connect(prompt);
+        return observe(client.receiveResponse());
+    }
+
+    /**
+     * Send a follow-up prompt and trace the turn while its messages are consumed.
+     */
+    public Iterator<ParsedMessage> query(ClaudeSyncClient client, String prompt) {
+        beginTurn("query");
+        client.query(prompt);
+        return observe(client.receiveResponse());
+    }
+
+    /**
+     * Start a turn span manually (async clients: then feed messages to onMessage()).
+     */
+    public synchronized void beginTurn(String kind) {
+        endTurn();  // a previous turn that never saw its ResultMessage
+        long now = System.nanoTime();
+        turn = new Span(traceId, null, "turn", now)
+                .attribute("claude.turn.kind", kind)
+                .attribute("claude.model", model);
+        startup = "connect".equals(kind) ? new Span(traceId, turn.spanId(), "cli.startup", now) : null;
+    }
+
+    /**
+     * Observe one message of the current turn.
+     */
+    public synchronized void onMessage(Message message) {
+        if (turn == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (startup != null && !startup.isEnded()) {
+            exporter.export(startup.end(now));
+        }
+        switch (message) {
+            case AssistantMessage assistant -> {
+                for (ContentBlock block : assistant.content()) {
+                    if (block instanceof ToolUseBlock use) {
+                        toolSpan(use.name(), use.input(), use.id(), false);
+                    }
+                }
+            }
+            case UserMessage user -> {
+                if (user.content() instanceof List<?> blocks) {
+                    for (Object block : blocks) {
+                        if (block instanceof ToolResultBlock result) {
+                            tools.stream()
+                                    .filter(t -> result.toolUseId().equals(t.toolUseId))
+                                    .findFirst()
+                                    .ifPresent(t -> finishTool(t, now));
+                        }
+                    }
+                }
+            }
+            case ResultMessage result -> {
+                turn.attribute("claude.session_id", result.sessionId())
+                        .attribute("claude.cost_usd", turnCost(result.totalCostUsd()))
+                        .attribute("claude.session_cost_usd", result.totalCostUsd())
+                        .attribute("claude.num_turns", result.numTurns())
+                        .attribute("claude.cli_duration_ms", result.durationMs())
+                        .attribute("claude.is_error", result.isError());
+                if (result.usage() instanceof Map<?, ?> usage) {
+                    turn.attribute("claude.input_tokens", usage.get("input_tokens"))
+                            .attribute("claude.output_tokens", usage.get("output_tokens"));
+                }
+                endTurn();
+            }
+            default -> {
+            }
+        }
+    }
+
+    // The increase of the session's running total since the previous turn; caller holds this
+    private Double turnCost(Double total) {
+        if (total == null) {
+            return null;
+        }
+        Double previous = sessionCostUsd;
+        sessionCostUsd = total;
+        return previous == null || previous > total ? total : total - previous;
+    }
+
+    /**
+     * Turn spans finished so far, in order.
+     */
+    public synchronized List<Span> turns() {
+        return List.copyOf(finishedTurns);
+    }
+
+    @Override
+    public synchronized void close() {
+        endTurn();
+        exporter.close();
+    }
+
+    private Iterator<ParsedMessage> observe(Iterator<ParsedMessage> messages) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                boolean hasNext = messages.hasNext();
+                if (!hasNext) {
+                    synchronized (ClaudeTracer.this) {
+                        endTurn();
+                    }
+                }
+                return hasNext;
+            }
+
+            @Override
+            public ParsedMessage next() {
+                ParsedMessage parsed = messages.next();
+                if (parsed.isRegularMessage()) {
+                    onMessage(parsed.asMessage());
+                }
+                return parsed;
+            }
+        };
+    }
+
+    // Find the open tool span for this call, or open one; an id upgrades a span opened by a hook.
+    // PreToolUse skips calls that already executed, so a repeated identical call gets its own span.
+    private ToolSpan toolSpan(String name, Map<String, Object> input, String toolUseId, boolean notExecuted) {
+        if (turn == null) {
+            return null;
+        }
+        String key = name + new TreeMap<>(input != null ? input : Map.of());
+        for (ToolSpan tool : tools) {
+            if (!tool.span.isEnded() && tool.key.equals(key) && !(notExecuted && tool.execEnd != null)
+                    && (toolUseId == null || tool.toolUseId == null || tool.toolUseId.equals(toolUseId))) {
+                if (tool.toolUseId == null && toolUseId != null) {
+                    tool.toolUseId = toolUseId;
+                    tool.span.attribute("claude.tool_use_id", toolUseId);
+                }
+                return tool;
+            }
+        }
+        ToolSpan tool = new ToolSpan(key, new Span(traceId, turn.spanId(), "tool:" + name, System.nanoTime())
+                .attribute("claude.tool", name)
+                .attribute("claude.tool_use_id", toolUseId));
+        tool.toolUseId = toolUseId;
+        tools.add(tool);
+        return tool;
+    }
+
+    private void finishTool(ToolSpan tool, long now) {
+        if (tool.span.isEnded()) {
+            return;
+        }
+        tool.span.end(now);
+        if (tool.execStart != null) {
+            long execEnd = tool.execEnd != null ? tool.execEnd : now;
+            tool.span.attribute("claude.tool.exec_ms", round((execEnd - tool.execStart) / 1_000_000.0));
+        }
+        tool.span.attribute("claude.tool.hook_ms", round(tool.hookNanos / 1_000_000.0));
+        exporter.export(tool.span);
+    }
+
+    private void endTurn() {
+        if (turn == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (startup != null && !startup.isEnded()) {
+            exporter.export(startup.end(now));
+        }
+
+        // Phase breakdown: what is not startup, tools or hooks is time spent waiting on the model
+        double toolMs = 0;
+        double hookMs = 0;
+        for (ToolSpan tool : tools) {
+            finishTool(tool, now);
+            toolMs += tool.span.durationMs();
+            hookMs += tool.hookNanos / 1_000_000.0;
+        }
+        double startupMs = startup != null ? startup.durationMs() : 0;
+        turn.end(now);
+        turn.attribute("claude.tool_calls", tools.size())
+                .attribute("claude.phase.startup_ms", round(startupMs))
+                .attribute("claude.phase.tools_ms", round(toolMs - hookMs))
+                .attribute("claude.phase.hooks_ms", round(hookMs))
+                .attribute("claude.phase.model_ms", round(Math.max(0, turn.durationMs() - startupMs - toolMs)));
+        exporter.export(turn);
+        finishedTurns.add(turn);
+
+        turn = null;
+        startup = null;
+        tools.clear();
+    }
+
+    private static double round(double ms) {
+        return Math.round(ms * 10) / 10.0;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Module 16: Hooks PostToolUse - File span exporter
+ *
+ * Appends every finished span as one JSON line. No collector needed: the file
+ * can be inspected with jq, or converted and loaded into any OTLP-compatible viewer.
+ *
+ *   jq -c 'select(.name=="turn") | {name, durationMs, attributes}' module-16-hooks-posttooluse/target/traces.jsonl
+ */
+package org.springaicommunity.tutorial.module16;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class FileSpanExporter implements ClaudeTracer.SpanExporter {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final Path file;
+    private final BufferedWriter writer;
+
+    public FileSpanExporter(Path file) throws IOException {
+        this.file = file;
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    @Override
+    public synchronized void export(Span span) {
+        try {
+            writer.write(mapper.writeValueAsString(span.toMap()));
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
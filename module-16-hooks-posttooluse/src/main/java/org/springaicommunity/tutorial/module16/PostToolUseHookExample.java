@@ -6,6 +6,7 @@
  * - Logging tool execution results
  * - Detecting errors in tool output
  * - Tracking tool usage statistics
+ * - Tracing turns, tool calls and hook time as spans (see ClaudeTracer)
  *
  * Run with: mvn compile exec:java -pl module-16-hooks-posttooluse
  */
@@ -22,6 +23,8 @@ import org.springaicommunity.claude.agent.sdk.types.ResultMessage;
 import org.springaicommunity.claude.agent.sdk.types.control.HookInput;
 import org.springaicommunity.claude.agent.sdk.types.control.HookOutput;
 
+import java.io.IOException;
+import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -40,8 +43,19 @@ public class PostToolUseHookExample {
 
         HookRegistry hooks = new HookRegistry();
 
+        // Spans for every turn, tool call and hook, appended to this module's target/traces.jsonl
+        FileSpanExporter exporter;
+        try {
+            exporter = new FileSpanExporter(targetDirectory().resolve("traces.jsonl"));
+        } catch (IOException | URISyntaxException e) {
+            System.err.println("Error: " + e.getMessage());
+            return;
+        }
+        ClaudeTracer tracer = new ClaudeTracer(exporter, CLIOptions.MODEL_HAIKU);
+        tracer.instrument(hooks);
+
         // PostToolUse hook to log results and detect errors
-        hooks.registerPostToolUse(input -> {
+        hooks.registerPostToolUse(tracer.traced("stats", input -> {
             var postToolUse = (HookInput.PostToolUseInput) input;
             String toolName = postToolUse.toolName();
             Object response = postToolUse.toolResponse();
@@ -63,7 +77,7 @@ public class PostToolUseHookExample {
 
             System.out.println();
             return HookOutput.allow();  // PostToolUse can't block, just observe
-        });
+        })::apply);
 
         try (ClaudeSyncClient client = ClaudeClient.sync()
                 .workingDirectory(Path.of("."))
@@ -75,21 +89,20 @@ public class PostToolUseHookExample {
 
             // Test 1: Successful command
             System.out.println("--- Test 1: Successful command ---");
-            client.connect("Run this exact command: echo 'Success!'");
-            printResponse(client);
+            printResponse(tracer.connect(client, "Run this exact command: echo 'Success!'"));
 
             // Test 2: Read a file
             System.out.println("\n--- Test 2: Read a file ---");
-            client.query("Read the first line of pom.xml");
-            printResponse(client);
+            printResponse(tracer.query(client, "Read the first line of pom.xml"));
 
             // Test 3: Command that produces output containing "error" word
             System.out.println("\n--- Test 3: Command with 'error' in output ---");
-            client.query("Run this exact command: echo 'Error: this is a test error message'");
-            printResponse(client);
+            printResponse(tracer.query(client, "Run this exact command: echo 'Error: this is a test error message'"));
 
         } catch (Exception e) {
             System.err.println("Error: " + e.getMessage());
+        } finally {
+            tracer.close();
         }
 
         // Print summary
@@ -99,6 +112,16 @@ public class PostToolUseHookExample {
             System.out.println("  " + tool + ": " + count.get() + " calls"));
         System.out.println("Errors detected: " + errorCount.get());
 
+        // Where each turn's time went
+        System.out.println("\n--- Trace Summary ---");
+        for (Span turn : tracer.turns()) {
+            System.out.printf("  %-7s %6.0f ms (%s tool calls) = startup %s + model %s + tools %s + hooks %s ms%n",
+                turn.attribute("claude.turn.kind"), turn.durationMs(), turn.attribute("claude.tool_calls"),
+                turn.attribute("claude.phase.startup_ms"), turn.attribute("claude.phase.model_ms"),
+                turn.attribute("claude.phase.tools_ms"), turn.attribute("claude.phase.hooks_ms"));
+        }
+        System.out.println("Spans written to: " + exporter.file());
+
         System.out.println("\n=== Done ===");
     }
 
@@ -106,8 +129,7 @@ public class PostToolUseHookExample {
         return s.length() <= maxLen ? s : s.substring(0, maxLen) + "...";
     }
 
-    private static void printResponse(ClaudeSyncClient client) {
-        Iterator<ParsedMessage> response = client.receiveResponse();
+    private static void printResponse(Iterator<ParsedMessage> response) {
         while (response.hasNext()) {
             ParsedMessage msg = response.next();
             if (msg.isRegularMessage()) {
@@ -122,4 +144,10 @@ public class PostToolUseHookExample {
             }
         }
     }
+
+    // The module's target/ directory (the parent of target/classes), wherever the JVM was started
+    private static Path targetDirectory() throws URISyntaxException {
+        return Path.of(PostToolUseHookExample.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                .getParent();
+    }
 }
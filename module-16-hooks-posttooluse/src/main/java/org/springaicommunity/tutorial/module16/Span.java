@@ -0,0 +1,113 @@
+/*
+ * Module 16: Hooks PostToolUse - Trace span
+ *
+ * A minimal OpenTelemetry-style span: trace id, span id, parent id, name,
+ * start/end timestamps and attributes. Durations come from System.nanoTime();
+ * wall-clock timestamps are derived from one anchor so they stay consistent.
+ */
+package org.springaicommunity.tutorial.module16;
+
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class Span {
+
+    private static final long ANCHOR_EPOCH_NANOS = System.currentTimeMillis() * 1_000_000L;
+    private static final long ANCHOR_NANO_TIME = System.nanoTime();
+
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId;
+    private final String name;
+    private final long startNanoTime;
+    private volatile long endNanoTime = -1;
+    private final Map<String, Object> attributes = new LinkedHashMap<>();
+
+    Span(String traceId, String parentSpanId, String name, long startNanoTime) {
+        this.traceId = traceId;
+        this.spanId = randomId(8);
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.startNanoTime = startNanoTime;
+    }
+
+    static String randomId(int bytes) {
+        byte[] id = new byte[bytes];
+        ThreadLocalRandom.current().nextBytes(id);
+        return HexFormat.of().formatHex(id);
+    }
+
+    public synchronized Span attribute(String key, Object value) {
+        if (value != null) {
+            attributes.put(key, value);
+        }
+        return this;
+    }
+
+    public synchronized Object attribute(String key) {
+        return attributes.get(key);
+    }
+
+    /**
+     * End the span now. Ending twice keeps the first end time.
+     */
+    public Span end() {
+        return end(System.nanoTime());
+    }
+
+    public synchronized Span end(long nanoTime) {
+        if (endNanoTime < 0) {
+            endNanoTime = nanoTime;
+        }
+        return this;
+    }
+
+    public boolean isEnded() {
+        return endNanoTime >= 0;
+    }
+
+    public String traceId() {
+        return traceId;
+    }
+
+    public String spanId() {
+        return spanId;
+    }
+
+    public String parentSpanId() {
+        return parentSpanId;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    long startNanoTime() {
+        return startNanoTime;
+    }
+
+    public double durationMs() {
+        long end = endNanoTime >= 0 ? endNanoTime : System.nanoTime();
+        return (end - startNanoTime) / 1_000_000.0;
+    }
+
+    /**
+     * Field names follow the OTLP JSON encoding, so files can be loaded by OTLP tooling.
+     */
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("traceId", traceId);
+        map.put("spanId", spanId);
+        if (parentSpanId != null) {
+            map.put("parentSpanId", parentSpanId);
+        }
+        map.put("name", name);
+        map.put("startTimeUnixNano", ANCHOR_EPOCH_NANOS + (startNanoTime - ANCHOR_NANO_TIME));
+        map.put("endTimeUnixNano", ANCHOR_EPOCH_NANOS + (endNanoTime - ANCHOR_NANO_TIME));
+        map.put("durationMs", Math.round(durationMs() * 1000) / 1000.0);
+        map.put("attributes", new LinkedHashMap<>(attributes));
+        return map;
+    }
+}
@@ -0,0 +1,699 @@
+/*
+ * Module 20: MCP Custom Tools - Working directory index for glob, grep and read
+ *
+ * The built-in Glob and Grep tools scan the working directory on every call.
+ * FileIndex scans it once and keeps it current:
+ * - a file table (relative path, size, modified time), updated from a
+ *   WatchService registered on every directory
+ * - a trigram index over file contents: grep extracts the literal runs a regex
+ *   requires, intersects the posting lists of their trigrams, and runs the
+ *   regex only on the candidate files
+ * - reads of files over 64 KB are memory-mapped instead of copied onto the heap
+ *
+ * Trigrams are ASCII-lowercased, so one index serves case-sensitive and
+ * case-insensitive searches. A changed file gets a new id and its old postings
+ * are masked out instead of removed; once masked ids outnumber live ones the
+ * postings are compacted to live ids only. Binary files (a NUL byte in the first
+ * 8 KB) are listed by glob but never grepped; files over 1 MB are not
+ * trigram-indexed and are always scanned.
+ *
+ * FileIndexMcpServer serves an index as MCP tools; FileIndexBenchmark compares
+ * its latency with scanning the tree.
+ */
+package org.springaicommunity.tutorial.module20;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class FileIndex implements AutoCloseable {
+
+    public record Match(String path, int line, String text) {}
+
+    public record Stats(int files, int indexedFiles, int trigrams, int watchedDirectories) {}
+
+    private static final Set<String> DEFAULT_IGNORED = Set.of(".git", "target", "node_modules", ".idea", "build");
+    private static final int MAX_INDEXED_BYTES = 1 << 20;
+    private static final int MAP_THRESHOLD = 64 * 1024;
+    private static final int BINARY_PROBE = 8 * 1024;
+    private static final int COMPACT_MIN_MASKED = 1024;
+
+    private record FileEntry(int id, Path path, long size, long modified, boolean indexed) {}
+
+    private final Path root;
+    private final Set<String> ignored;
+
+    // File table: readers need no lock
+    private final Map<String, FileEntry> files = new ConcurrentHashMap<>();
+
+    // Trigram index: guarded by lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, IntList> postings = new HashMap<>();
+    private final List<String> pathsById = new ArrayList<>();
+    private final BitSet live = new BitSet();
+    private final BitSet unindexed = new BitSet();
+    private final BitSet binary = new BitSet();
+    private int masked;
+
+    private final WatchService watcher;
+    private final Map<WatchKey, Path> watchedDirs = new ConcurrentHashMap<>();
+    private final Thread watchThread;
+
+    private FileIndex(Path root, Set<String> ignored) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        this.ignored = ignored;
+        this.watcher = FileSystems.getDefault().newWatchService();
+        addTree(this.root);
+        this.watchThread = Thread.ofPlatform().daemon().name("file-index-watch").start(this::watch);
+    }
+
+    /**
+     * Index a directory tree and keep watching it, skipping .git, target, node_modules, .idea and build.
+     */
+    public static FileIndex open(Path root) throws IOException {
+        return new FileIndex(root, DEFAULT_IGNORED);
+    }
+
+    public static FileIndex open(Path root, Set<String> ignoredDirectoryNames) throws IOException {
+        return new FileIndex(root, ignoredDirectoryNames);
+    }
+
+    public Path root() {
+        return root;
+    }
+
+    // ---- Tools ----
+
+    /**
+     * Relative paths matching a glob, most recently modified first. "**&#47;" also matches the top level.
+     */
+    public List<String> glob(String pattern, int limit) {
+        PathMatcher matcher = matcher(pattern);
+        return files.entrySet().stream()
+                .filter(e -> matcher.matches(e.getValue().path()))
+                .sorted(Comparator.comparingLong((Map.Entry<String, FileEntry> e) -> e.getValue().modified())
+                        .reversed())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Lines matching a regex, in files matching an optional glob.
+     */
+    public List<Match> grep(String regex, boolean ignoreCase, String fileGlob, int limit) throws IOException {
+        // Matched line by line, as the built-in Grep does: ^ and $ anchor at every line
+        int flags = Pattern.MULTILINE | (ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0);
+        Pattern pattern = Pattern.compile(regex, flags);
+        PathMatcher filter = fileGlob == null || fileGlob.isBlank() ? null : matcher(fileGlob);
+
+        List<String> candidates = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            List<String> literals = requiredLiterals(regex).stream()
+                    // Trigrams fold ASCII case only
+                    .filter(literal -> !ignoreCase || literal.chars().allMatch(c -> c < 0x80))
+                    .toList();
+            BitSet ids = candidates(literals);
+            for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+                candidates.add(pathsById.get(id));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (String path : candidates) {
+            if (filter != null && !filter.matches(Path.of(path))) {
+                continue;
+            }
+            try {
+                scan(path, pattern, matches, limit);
+            } catch (NoSuchFileException e) {
+                // Deleted since the candidates were taken
+            }
+            if (matches.size() >= limit) {
+                break;
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Lines offset (1-based) to offset + limit - 1, numbered like the built-in Read tool.
+     */
+    public String read(String path, int offset, int limit) throws IOException {
+        ByteBuffer content = load(resolve(path));
+        int end = content.limit();
+        int pos = content.position();
+        int line = 1;
+        while (line < offset && pos < end) {
+            if (content.get(pos++) == '\n') {
+                line++;
+            }
+        }
+        int from = pos;
+        for (int lines = 0; lines < limit && pos < end; pos++) {
+            if (content.get(pos) == '\n') {
+                lines++;
+            }
+        }
+        // Only the requested lines are decoded; the rest of a mapped file is never copied
+        CharBuffer text = StandardCharsets.UTF_8.decode(content.slice(from, pos - from));
+        StringBuilder out = new StringBuilder(text.length() + limit * 8);
+        int start = 0;
+        while (start < text.length()) {
+            int eol = start;
+            while (eol < text.length() && text.charAt(eol) != '\n') {
+                eol++;
+            }
+            String number = Integer.toString(line++);
+            out.repeat(' ', Math.max(0, 6 - number.length())).append(number).append('\t')
+                    .append(text, start, eol).append('\n');
+            start = eol + 1;
+        }
+        return out.toString();
+    }
+
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            return new Stats(files.size(), live.cardinality() - unindexed.cardinality() - binary.cardinality(),
+                    postings.size(), watchedDirs.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watcher.close();
+        watchThread.interrupt();
+    }
+
+    // ---- Candidate selection ----
+
+    // Callers hold the read lock
+    private BitSet candidates(List<String> literals) {
+        BitSet result = (BitSet) live.clone();
+        result.andNot(binary);
+        if (literals.isEmpty()) {
+            return result;
+        }
+        BitSet indexedMatches = null;
+        for (String literal : literals) {
+            byte[] bytes = literal.getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i + 3 <= bytes.length; i++) {
+                IntList list = postings.get(trigram(bytes, i));
+                BitSet ids = new BitSet();
+                if (list != null) {
+                    for (int j = 0; j < list.size; j++) {
+                        ids.set(list.values[j]);
+                    }
+                }
+                if (indexedMatches == null) {
+                    indexedMatches = ids;
+                } else {
+                    indexedMatches.and(ids);
+                }
+            }
+        }
+        indexedMatches.or(unindexed);
+        result.and(indexedMatches);
+        return result;
+    }
+
+    /**
+     * Literal runs of at least three characters that every match must contain.
+     * Returns nothing (scan every file) for patterns with alternation.
+     */
+    static List<String> requiredLiterals(String regex) {
+        List<String> literals = new ArrayList<>();
+        StringBuilder run = new StringBuilder();
+        int depth = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '|') {
+                return List.of();
+            }
+            if (c == '\\' && i + 1 < regex.length()) {
+                char next = regex.charAt(++i);
+                if (Character.isLetterOrDigit(next)) {
+                    flush(run, literals, depth);   // \d, \w, \b, \x41, \k<name> ... : not a literal run
+                    i = escapeEnd(regex, i);
+                } else {
+                    run.append(next);
+                }
+                continue;
+            }
+            switch (c) {
+                case '*', '?' -> {
+                    if (!run.isEmpty()) {
+                        run.setLength(run.length() - 1);   // the previous character is optional
+                    }
+                    flush(run, literals, depth);
+                }
+                case '{' -> {
+                    if (!run.isEmpty()) {
+                        run.setLength(run.length() - 1);
+                    }
+                    flush(run, literals, depth);
+                    i = Math.max(i, regex.indexOf('}', i));
+                }
+                case '+' -> flush(run, literals, depth);
+                case '(' -> {
+                    flush(run, literals, depth);
+                    depth++;
+                }
+                case ')' -> {
+                    flush(run, literals, depth);   // groups may be optional; their literals are not used
+                    depth = Math.max(0, depth - 1);
+                }
+                case '[' -> {
+                    flush(run, literals, depth);
+                    int close = regex.indexOf(']', i + 2);
+                    i = close < 0 ? regex.length() : close;
+                }
+                case '.', '^', '$' -> flush(run, literals, depth);
+                default -> run.append(c);
+            }
+        }
+        flush(run, literals, depth);
+        return literals;
+    }
+
+    // Index of the last character of the escape whose letter or digit is at i; skipping too much is safe
+    private static int escapeEnd(String regex, int i) {
+        int last = regex.length() - 1;
+        char c = regex.charAt(i);
+        if ("xpPN".indexOf(c) >= 0 && i < last && regex.charAt(i + 1) == '{') {
+            return through(regex, "}", i);   // \x{1F600}, \p{Lu}, \N{name}
+        }
+        return switch (c) {
+            case 'x' -> Math.min(last, i + 2);   // \x41
+            case 'u' -> Math.min(last, i + 4);   // \u0041
+            case 'c', 'p', 'P' -> Math.min(last, i + 1);   // \cM, \pL
+            case 'k' -> through(regex, ">", i);   // \k<name>
+            case 'Q' -> through(regex, "\\E", i);   // quoted until \E
+            case '0' -> {
+                int end = i;
+                while (end < last && end - i < 3 && regex.charAt(end + 1) >= '0' && regex.charAt(end + 1) <= '7') {
+                    end++;   // \0101
+                }
+                yield end;
+            }
+            default -> {
+                int end = i;
+                while (Character.isDigit(c) && end < last && Character.isDigit(regex.charAt(end + 1))) {
+                    end++;   // back reference \12
+                }
+                yield end;
+            }
+        };
+    }
+
+    private static int through(String regex, String terminator, int from) {
+        int at = regex.indexOf(terminator, from);
+        return at < 0 ? regex.length() - 1 : at + terminator.length() - 1;
+    }
+
+    private static void flush(StringBuilder run, List<String> literals, int depth) {
+        if (run.length() >= 3 && depth == 0) {
+            literals.add(run.toString());
+        }
+        run.setLength(0);
+    }
+
+    // ---- Indexing ----
+
+    private void addTree(Path dir) throws IOException {
+        List<Path> found = new ArrayList<>();
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) {
+                if (!d.equals(root) && ignored.contains(d.getFileName().toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                register(d);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    found.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        // Trigram extraction is the expensive part; do it in parallel, then merge under the lock
+        record Scanned(Path file, long size, long modified, int[] trigrams, boolean binary) {}
+        List<Scanned> scanned = found.parallelStream().map(file -> {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                if (attrs.size() > MAX_INDEXED_BYTES) {
+                    return new Scanned(file, attrs.size(), attrs.lastModifiedTime().toMillis(), null, false);
+                }
+                ByteBuffer content = load(file);
+                if (isBinary(content)) {
+                    return new Scanned(file, attrs.size(), attrs.lastModifiedTime().toMillis(), null, true);
+                }
+                return new Scanned(file, attrs.size(), attrs.lastModifiedTime().toMillis(), trigrams(content), false);
+            } catch (IOException e) {
+                return null;
+            }
+        }).filter(Objects::nonNull).toList();
+
+        lock.writeLock().lock();
+        try {
+            for (Scanned s : scanned) {
+                put(s.file(), s.size(), s.modified(), s.trigrams(), s.binary());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addFile(Path file) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attrs.isRegularFile()) {
+                return;
+            }
+            int[] trigrams = null;
+            boolean isBinary = false;
+            if (attrs.size() <= MAX_INDEXED_BYTES) {
+                ByteBuffer content = load(file);
+                isBinary = isBinary(content);
+                trigrams = isBinary ? null : trigrams(content);
+            }
+            lock.writeLock().lock();
+            try {
+                put(file, attrs.size(), attrs.lastModifiedTime().toMillis(), trigrams, isBinary);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (IOException e) {
+            removeFile(file);
+        }
+    }
+
+    // Binary files get a file entry for glob but no postings; callers hold the write lock
+    private void put(Path file, long size, long modified, int[] trigrams, boolean isBinary) {
+        String path = relative(file);
+        FileEntry old = files.get(path);
+        if (old != null) {
+            mask(old.id());
+        }
+        int id = pathsById.size();
+        pathsById.add(path);
+        live.set(id);
+        if (isBinary) {
+            binary.set(id);
+        } else if (trigrams == null) {
+            unindexed.set(id);
+        } else {
+            for (int t : trigrams) {
+                postings.computeIfAbsent(t, k -> new IntList()).add(id);
+            }
+        }
+        files.put(path, new FileEntry(id, Path.of(path), size, modified, trigrams != null));
+    }
+
+    private void removeFile(Path file) {
+        String path = relative(file);
+        lock.writeLock().lock();
+        try {
+            FileEntry old = files.remove(path);
+            if (old != null) {
+                mask(old.id());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Callers hold the write lock
+    private void mask(int id) {
+        live.clear(id);
+        unindexed.clear(id);
+        binary.clear(id);
+        masked++;
+        if (masked >= COMPACT_MIN_MASKED && masked > pathsById.size() - masked) {
+            compact();
+        }
+    }
+
+    // Renumber live files from 0 and drop masked ids from the postings; callers hold the write lock
+    private void compact() {
+        int[] renumbered = new int[pathsById.size()];
+        List<String> paths = new ArrayList<>(pathsById.size() - masked);
+        BitSet stillUnindexed = new BitSet();
+        BitSet stillBinary = new BitSet();
+        for (int id = live.nextSetBit(0); id >= 0; id = live.nextSetBit(id + 1)) {
+            renumbered[id] = paths.size();
+            if (unindexed.get(id)) {
+                stillUnindexed.set(paths.size());
+            }
+            if (binary.get(id)) {
+                stillBinary.set(paths.size());
+            }
+            paths.add(pathsById.get(id));
+        }
+        postings.values().removeIf(list -> {
+            int kept = 0;
+            for (int j = 0; j < list.size; j++) {
+                if (live.get(list.values[j])) {
+                    list.values[kept++] = renumbered[list.values[j]];
+                }
+            }
+            list.size = kept;
+            list.values = Arrays.copyOf(list.values, Math.max(4, kept));
+            return kept == 0;
+        });
+        files.replaceAll((path, e) -> live.get(e.id())
+                ? new FileEntry(renumbered[e.id()], e.path(), e.size(), e.modified(), e.indexed())
+                : e);
+        pathsById.clear();
+        pathsById.addAll(paths);
+        live.clear();
+        live.set(0, paths.size());
+        unindexed.clear();
+        unindexed.or(stillUnindexed);
+        binary.clear();
+        binary.or(stillBinary);
+        masked = 0;
+    }
+
+    private void removeTree(Path dir) {
+        String prefix = relative(dir) + "/";
+        files.keySet().stream().filter(p -> p.startsWith(prefix)).toList()
+                .forEach(p -> removeFile(root.resolve(p)));
+    }
+
+    static int[] trigrams(ByteBuffer content) {
+        int n = content.remaining();
+        if (n < 3) {
+            return new int[0];
+        }
+        int base = content.position();
+        int[] all = new int[n - 2];
+        int t = (lower(content.get(base)) << 8) | lower(content.get(base + 1));
+        for (int i = 2; i < n; i++) {
+            t = ((t << 8) | lower(content.get(base + i))) & 0xFFFFFF;
+            all[i - 2] = t;
+        }
+        Arrays.sort(all);
+        int distinct = 0;
+        for (int i = 0; i < all.length; i++) {
+            if (i == 0 || all[i] != all[i - 1]) {
+                all[distinct++] = all[i];
+            }
+        }
+        return Arrays.copyOf(all, distinct);
+    }
+
+    private static int trigram(byte[] bytes, int i) {
+        return (lower(bytes[i]) << 16) | (lower(bytes[i + 1]) << 8) | lower(bytes[i + 2]);
+    }
+
+    private static int lower(byte b) {
+        int c = b & 0xFF;
+        return c >= 'A' && c <= 'Z' ? c + 32 : c;
+    }
+
+    private static boolean isBinary(ByteBuffer content) {
+        int end = Math.min(content.limit(), content.position() + BINARY_PROBE);
+        for (int i = content.position(); i < end; i++) {
+            if (content.get(i) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ---- Reading ----
+
+    private void scan(String path, Pattern pattern, List<Match> matches, int limit) throws IOException {
+        CharBuffer text = StandardCharsets.UTF_8.decode(load(root.resolve(path)));
+        Matcher m = pattern.matcher(text);
+        int line = 1;
+        int lineStart = 0;
+        int counted = 0;
+        while (matches.size() < limit && m.find()) {
+            for (; counted < m.start(); counted++) {
+                if (text.charAt(counted) == '\n') {
+                    line++;
+                    lineStart = counted + 1;
+                }
+            }
+            int lineEnd = lineStart;
+            while (lineEnd < text.length() && text.charAt(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            matches.add(new Match(path, line, text.subSequence(lineStart, lineEnd).toString()));
+            if (lineEnd >= text.length()) {
+                break;
+            }
+            m.region(lineEnd + 1, text.length());
+        }
+    }
+
+    /**
+     * Small files are read onto the heap; larger ones are mapped.
+     */
+    private static ByteBuffer load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAP_THRESHOLD) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading
+            }
+            return buffer.flip();
+        }
+    }
+
+    private Path resolve(String path) throws IOException {
+        Path file = root.resolve(path).normalize();
+        if (!file.startsWith(root)) {
+            throw new IOException("Outside the indexed directory: " + path);
+        }
+        return file;
+    }
+
+    private String relative(Path file) {
+        return root.relativize(file.toAbsolutePath().normalize()).toString().replace('\\', '/');
+    }
+
+    private static PathMatcher matcher(String pattern) {
+        PathMatcher glob = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        if (!pattern.startsWith("**/")) {
+            return glob;
+        }
+        PathMatcher topLevel = FileSystems.getDefault().getPathMatcher("glob:" + pattern.substring(3));
+        return path -> glob.matches(path) || topLevel.matches(path);
+    }
+
+    // ---- Watching ----
+
+    private void register(Path dir) {
+        try {
+            WatchKey key = dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watchedDirs.put(key, dir);
+        } catch (IOException e) {
+            // For example the inotify watch limit; this directory is indexed but not kept current
+            System.err.println("[FileIndex] Not watching " + dir + ": " + e.getMessage());
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                Path dir = watchedDirs.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        addTree(root);
+                        continue;
+                    }
+                    if (dir == null) {
+                        continue;
+                    }
+                    Path child = dir.resolve((Path) event.context());
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                        removeFile(child);
+                        removeTree(child);
+                    } else if (Files.isDirectory(child)) {
+                        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                                && !ignored.contains(child.getFileName().toString())) {
+                            addTree(child);
+                        }
+                    } else {
+                        addFile(child);
+                    }
+                }
+                if (!key.reset()) {
+                    watchedDirs.remove(key);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        } catch (IOException e) {
+            System.err.println("[FileIndex] Watch stopped: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Growable, append-only list of file ids; ids are appended in increasing order.
+     */
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
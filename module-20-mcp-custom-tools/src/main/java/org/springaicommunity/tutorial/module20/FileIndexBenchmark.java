@@ -0,0 +1,243 @@
+/*
+ * Module 20: MCP Custom Tools - FileIndex versus scanning per call
+ *
+ * Generates a source tree (100,000 files by default) and times the tool calls
+ * an agent makes over and over in one session:
+ * - glob  every *Service*.java file, at any depth
+ * - grep  a literal that occurs in a handful of files, and a regex
+ * - read  100 lines from the middle of a file
+ *
+ * Each is run against the FileIndex and against a scan of the tree per call,
+ * which is what the built-in Glob and Grep do. The scan is `rg` when it is on
+ * PATH (the built-in tools use ripgrep), otherwise a Java walk-and-match.
+ * Reported times are the median of 5 runs after a warm-up. It also reports
+ * how long the index takes to build and how long a file change takes to show
+ * up in grep results. No Claude calls are made.
+ *
+ * Run with: mvn compile exec:java -pl module-20-mcp-custom-tools \
+ *   -Dexec.mainClass=org.springaicommunity.tutorial.module20.FileIndexBenchmark \
+ *   -Dexec.args="100000"
+ */
+package org.springaicommunity.tutorial.module20;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+public class FileIndexBenchmark {
+
+    private static final int RUNS = 5;
+    private static final String[] KINDS = {"Service", "Repository", "Controller", "Mapper", "Config"};
+    private static final String RARE = "LegacyInvoiceAdapter";
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Module 20: FileIndex Benchmark ===\n");
+
+        int files = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Path root = Files.createTempDirectory("file-index");
+        long start = System.nanoTime();
+        generate(root, files);
+        System.out.printf("Generated %,d files in %d ms under %s%n", files, millis(start), root);
+
+        Optional<Path> rg = findOnPath("rg");
+        Scanner scan = rg.<Scanner>map(path -> new RipgrepScanner(path, root)).orElseGet(() -> new WalkScanner(root));
+        System.out.println("Baseline: " + scan.name() + (rg.isEmpty() ? " (rg not on PATH)" : ""));
+
+        start = System.nanoTime();
+        try (FileIndex index = FileIndex.open(root)) {
+            System.out.printf("Index built in %d ms: %s%n%n", millis(start), index.stats());
+
+            int middle = files / 2 - files / 2 % KINDS.length;
+            String readPath = "pkg" + (middle % 100) + "/" + KINDS[0] + middle + ".java";
+            System.out.printf("%-34s %12s %12s %9s%n", "Call", "Index (ms)", "Scan (ms)", "Speed-up");
+            compare("glob **/*Service*.java",
+                    () -> index.glob("**/*Service*.java", Integer.MAX_VALUE).size(),
+                    () -> scan.glob("**/*Service*.java"));
+            compare("grep " + RARE,
+                    () -> index.grep(RARE, false, null, Integer.MAX_VALUE).size(),
+                    () -> scan.grep(RARE, false));
+            compare("grep -i legacyinvoiceadapter",
+                    () -> index.grep("legacyinvoiceadapter", true, null, Integer.MAX_VALUE).size(),
+                    () -> scan.grep("legacyinvoiceadapter", true));
+            compare("grep new Legacy\\w+Adapter\\(",
+                    () -> index.grep("new Legacy\\w+Adapter\\(", false, null, Integer.MAX_VALUE).size(),
+                    () -> scan.grep("new Legacy\\w+Adapter\\(", false));
+            compare("read 100 lines",
+                    () -> index.read(readPath, 20, 100).length(),
+                    () -> scan.read(readPath, 20, 100));
+
+            // Time from writing a file to seeing it in grep results
+            Path changed = root.resolve("pkg7").resolve("Fresh.java");
+            String marker = "FreshlyWrittenMarker";
+            start = System.nanoTime();
+            Files.writeString(changed, "class Fresh { String s = \"" + marker + "\"; }\n");
+            while (index.grep(marker, false, null, 1).isEmpty()) {
+                if (millis(start) > 10_000) {
+                    throw new IllegalStateException("Change not picked up within 10 s");
+                }
+                Thread.sleep(1);
+            }
+            System.out.printf("%nFile change visible to grep after %d ms%n", millis(start));
+        } finally {
+            delete(root);
+        }
+
+        System.out.println("\n=== Done ===");
+    }
+
+    interface Scanner {
+        String name();
+
+        int glob(String pattern) throws Exception;
+
+        int grep(String regex, boolean ignoreCase) throws Exception;
+
+        int read(String path, int offset, int limit) throws Exception;
+    }
+
+    record RipgrepScanner(Path rg, Path root) implements Scanner {
+        public String name() {
+            return "rg " + rg;
+        }
+
+        public int glob(String pattern) throws Exception {
+            return run(rg.toString(), "--files", "--sortr", "modified", "-g", pattern);
+        }
+
+        public int grep(String regex, boolean ignoreCase) throws Exception {
+            return ignoreCase ? run(rg.toString(), "-n", "-i", regex) : run(rg.toString(), "-n", regex);
+        }
+
+        // The built-in Read reads the file; the scan is not involved
+        public int read(String path, int offset, int limit) throws IOException {
+            return new WalkScanner(root).read(path, offset, limit);
+        }
+
+        private int run(String... command) throws Exception {
+            Process process = new ProcessBuilder(command).directory(root.toFile())
+                    .redirectError(ProcessBuilder.Redirect.DISCARD).start();
+            int lines;
+            try (var out = process.inputReader(StandardCharsets.UTF_8)) {
+                lines = (int) out.lines().count();
+            }
+            process.waitFor();
+            return lines;
+        }
+    }
+
+    record WalkScanner(Path root) implements Scanner {
+        public String name() {
+            return "Java walk-and-match per call";
+        }
+
+        public int glob(String pattern) throws IOException {
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+            try (Stream<Path> walk = Files.walk(root)) {
+                return (int) walk.filter(Files::isRegularFile)
+                        .map(root::relativize)
+                        .filter(matcher::matches)
+                        .sorted(Comparator.comparingLong(this::modified).reversed())
+                        .count();
+            }
+        }
+
+        public int grep(String regex, boolean ignoreCase) throws IOException {
+            Pattern pattern = Pattern.compile(regex, ignoreCase ? Pattern.CASE_INSENSITIVE : 0);
+            try (Stream<Path> walk = Files.walk(root)) {
+                return walk.filter(Files::isRegularFile).mapToInt(file -> {
+                    try (Stream<String> lines = Files.lines(file)) {
+                        return (int) lines.filter(line -> pattern.matcher(line).find()).count();
+                    } catch (IOException | UncheckedIOException e) {
+                        return 0;
+                    }
+                }).sum();
+            }
+        }
+
+        public int read(String path, int offset, int limit) throws IOException {
+            List<String> lines = Files.readAllLines(root.resolve(path));
+            StringBuilder out = new StringBuilder();
+            for (int i = offset - 1; i < Math.min(lines.size(), offset - 1 + limit); i++) {
+                out.append("%6d\t".formatted(i + 1)).append(lines.get(i)).append('\n');
+            }
+            return out.length();
+        }
+
+        private long modified(Path relative) {
+            return root.resolve(relative).toFile().lastModified();
+        }
+    }
+
+    static void compare(String call, Callable<Integer> index, Callable<Integer> scan) throws Exception {
+        int expected = scan.call();
+        int actual = index.call();
+        double indexMs = median(index);
+        double scanMs = median(scan);
+        System.out.printf("%-34s %12.2f %12.2f %8.0fx   (%d / %d results)%n", call, indexMs, scanMs,
+                scanMs / indexMs, actual, expected);
+    }
+
+    private static double median(Callable<Integer> call) throws Exception {
+        double[] ms = new double[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            call.call();
+            ms[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(ms);
+        return ms[RUNS / 2];
+    }
+
+    // 100 packages of small Java files; one in 20,000 mentions RARE
+    static void generate(Path root, int files) throws IOException {
+        for (int p = 0; p < 100; p++) {
+            Files.createDirectories(root.resolve("pkg" + p));
+        }
+        for (int i = 0; i < files; i++) {
+            String kind = KINDS[i % KINDS.length];
+            String name = kind + i;
+            StringBuilder source = new StringBuilder("package pkg%d;\n\npublic class %s {\n".formatted(i % 100, name));
+            for (int m = 0; m < 40; m++) {
+                source.append("    // order %d line %d\n".formatted(i, m));
+                source.append("    public long findBy%sTotal(long id) { return id * %d; }\n".formatted(
+                        m % 10 == 0 ? "Customer" : "Id" + m, m));
+            }
+            if (i % 20_000 == 7) {
+                source.append("    private final Object adapter = new ").append(RARE).append("();\n");
+            }
+            source.append("}\n");
+            Files.writeString(root.resolve("pkg" + (i % 100)).resolve(name + ".java"), source);
+        }
+    }
+
+    static Optional<Path> findOnPath(String command) {
+        return Arrays.stream(System.getenv().getOrDefault("PATH", "").split(File.pathSeparator))
+                .map(dir -> Path.of(dir, command))
+                .filter(Files::isExecutable)
+                .findFirst();
+    }
+
+    private static long millis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static void delete(Path root) throws IOException {
+        try (Stream<Path> walk = Files.walk(root)) {
+            for (Path path : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Module 20: MCP Custom Tools - FileIndex as an MCP server
+ *
+ * A stdio MCP server (newline-delimited JSON-RPC) exposing a FileIndex over
+ * one directory as three tools:
+ *
+ *   glob  {pattern, limit?}                         paths, most recently modified first
+ *   grep  {pattern, glob?, ignoreCase?, limit?}     path:line:text
+ *   read  {path, offset?, limit?}                   numbered lines, like the built-in Read
+ *
+ * The CLI starts the server once per session, so the tree is scanned once and
+ * then kept current by the index's WatchService, instead of being scanned on
+ * every Glob or Grep call. The index is built in the background; the server
+ * answers initialize at once and tool calls wait for the build.
+ *
+ *   ClaudeClient.sync()
+ *           .workingDirectory(dir)
+ *           .mcpServer("index", FileIndexMcpServer.config(dir))
+ *           .allowedTools(FileIndexMcpServer.TOOLS)
+ *           .build();
+ *
+ * Run standalone with: java -cp <classpath> org.springaicommunity.tutorial.module20.FileIndexMcpServer <dir>
+ */
+package org.springaicommunity.tutorial.module20;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springaicommunity.claude.agent.sdk.mcp.McpServerConfig;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+public class FileIndexMcpServer {
+
+    public static final String SERVER_NAME = "index";
+    public static final List<String> TOOLS = List.of(
+            "mcp__" + SERVER_NAME + "__glob",
+            "mcp__" + SERVER_NAME + "__grep",
+            "mcp__" + SERVER_NAME + "__read");
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final CompletableFuture<FileIndex> index;
+    private final PrintStream out;
+
+    FileIndexMcpServer(CompletableFuture<FileIndex> index, PrintStream out) {
+        this.index = index;
+        this.out = out;
+    }
+
+    /**
+     * Server config that runs this class on the current classpath, indexing dir.
+     */
+    public static McpServerConfig.McpStdioServerConfig config(Path dir) {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        return new McpServerConfig.McpStdioServerConfig(java,
+                List.of("-cp", System.getProperty("java.class.path"), FileIndexMcpServer.class.getName(),
+                        dir.toAbsolutePath().toString()),
+                Map.of());
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path root = Path.of(args.length > 0 ? args[0] : ".");
+        // stdout carries the protocol; everything else goes to stderr
+        PrintStream protocol = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+        System.setOut(System.err);
+
+        CompletableFuture<FileIndex> index = CompletableFuture.supplyAsync(() -> {
+            try {
+                long start = System.nanoTime();
+                FileIndex built = FileIndex.open(root);
+                System.err.printf("[FileIndex] %s indexed in %d ms: %s%n", built.root(),
+                        (System.nanoTime() - start) / 1_000_000, built.stats());
+                return built;
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot index " + root + ": " + e.getMessage(), e);
+            }
+        });
+
+        FileIndexMcpServer server = new FileIndexMcpServer(index, protocol);
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!line.isBlank()) {
+                server.handle(mapper.readTree(line));
+            }
+        }
+    }
+
+    void handle(JsonNode request) {
+        JsonNode id = request.get("id");
+        String method = request.path("method").asText();
+        if (id == null) {
+            return;   // notifications, e.g. notifications/initialized
+        }
+        ObjectNode response = mapper.createObjectNode().put("jsonrpc", "2.0").set("id", id);
+        try {
+            switch (method) {
+                case "initialize" -> response.set("result", initialize(request.path("params")));
+                case "ping" -> response.set("result", mapper.createObjectNode());
+                case "tools/list" -> response.set("result", toolsList());
+                case "tools/call" -> response.set("result", callTool(request.path("params")));
+                default -> response.set("error", mapper.createObjectNode()
+                        .put("code", -32601).put("message", "Method not found: " + method));
+            }
+        } catch (RuntimeException e) {
+            response.set("error", mapper.createObjectNode().put("code", -32603).put("message", e.getMessage()));
+        }
+        out.println(response);
+    }
+
+    private ObjectNode initialize(JsonNode params) {
+        ObjectNode result = mapper.createObjectNode();
+        result.put("protocolVersion", params.path("protocolVersion").asText("2024-11-05"));
+        result.putObject("capabilities").putObject("tools");
+        result.putObject("serverInfo").put("name", "file-index").put("version", "1.0.0");
+        return result;
+    }
+
+    private ObjectNode toolsList() {
+        ObjectNode result = mapper.createObjectNode();
+        ArrayNode tools = result.putArray("tools");
+        tools.add(tool("glob", "Find files by glob pattern (e.g. **/*.java) in the working directory, "
+                        + "most recently modified first. Served from an index; faster than Glob.",
+                Map.of("pattern", "string", "limit", "integer"), List.of("pattern")));
+        tools.add(tool("grep", "Search file contents with a Java regex in the working directory. Returns "
+                        + "path:line:text. Served from a trigram index; faster than Grep.",
+                Map.of("pattern", "string", "glob", "string", "ignoreCase", "boolean", "limit", "integer"),
+                List.of("pattern")));
+        tools.add(tool("read", "Read a file relative to the working directory, with line numbers. "
+                        + "offset is the first line (1-based), limit the number of lines.",
+                Map.of("path", "string", "offset", "integer", "limit", "integer"), List.of("path")));
+        return result;
+    }
+
+    private ObjectNode tool(String name, String description, Map<String, String> properties, List<String> required) {
+        ObjectNode tool = mapper.createObjectNode().put("name", name).put("description", description);
+        ObjectNode schema = tool.putObject("inputSchema").put("type", "object");
+        ObjectNode props = schema.putObject("properties");
+        properties.forEach((property, type) -> props.putObject(property).put("type", type));
+        ArrayNode req = schema.putArray("required");
+        required.forEach(req::add);
+        return tool;
+    }
+
+    private ObjectNode callTool(JsonNode params) {
+        JsonNode args = params.path("arguments");
+        String text;
+        boolean error = false;
+        try {
+            FileIndex files = index.join();
+            text = switch (params.path("name").asText()) {
+                case "glob" -> String.join("\n", files.glob(args.path("pattern").asText(),
+                        args.path("limit").asInt(100)));
+                case "grep" -> files.grep(args.path("pattern").asText(), args.path("ignoreCase").asBoolean(false),
+                                args.path("glob").asText(null), args.path("limit").asInt(100)).stream()
+                        .map(m -> m.path() + ":" + m.line() + ":" + m.text())
+                        .collect(Collectors.joining("\n"));
+                case "read" -> files.read(args.path("path").asText(), args.path("offset").asInt(1),
+                        args.path("limit").asInt(2000));
+                default -> throw new IllegalArgumentException("Unknown tool: " + params.path("name").asText());
+            };
+            if (text.isEmpty()) {
+                text = "(no results)";
+            }
+        } catch (IOException | RuntimeException e) {
+            text = "Error: " + e.getMessage();
+            error = true;
+        }
+        ObjectNode result = mapper.createObjectNode();
+        result.putArray("content").addObject().put("type", "text").put("text", text);
+        result.put("isError", error);
+        return result;
+    }
+}
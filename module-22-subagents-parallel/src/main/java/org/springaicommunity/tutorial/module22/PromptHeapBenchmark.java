@@ -0,0 +1,157 @@
+/*
+ * Module 22: Subagents Parallel Execution - Heap cost of large prompts
+ *
+ * Writes a stream-json user message that wraps a 1, 10 and 50 MB source file
+ * into the stdin pipe of a child process (`cat`, output discarded), two ways:
+ * - string: read the file into a String, build the prompt, serialize the
+ *   message with Jackson, encode it to UTF-8 bytes and write them
+ * - streaming: StreamingPrompt with a reused Writer
+ *
+ * For each it reports bytes allocated on the writing thread, the peak heap
+ * used during the write, GC count and time. Before measuring it checks that
+ * both ways produce the same JSON. No Claude calls are made.
+ *
+ * Run with: mvn compile exec:java -pl module-22-subagents-parallel \
+ *   -Dexec.mainClass=org.springaicommunity.tutorial.module22.PromptHeapBenchmark
+ */
+package org.springaicommunity.tutorial.module22;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+public class PromptHeapBenchmark {
+
+    private static final int[] SIZES_MB = {1, 10, 50};
+    private static final String BEFORE = "Review this code using ALL THREE agents IN PARALLEL:\n\n```java\n";
+    private static final String AFTER = "\n```\n\nRun all three agents simultaneously using the Task tool.";
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    record Measurement(long allocatedBytes, long peakHeapBytes, long gcs, long millis) {}
+
+    interface Write {
+        void to(Path source, WritableByteChannel channel) throws IOException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Module 22: Prompt Heap Benchmark ===\n");
+
+        Path dir = Files.createTempDirectory("prompt-heap");
+        StreamingPrompt.Writer writer = new StreamingPrompt.Writer();
+        Write string = PromptHeapBenchmark::writeString;
+        Write streaming = (source, channel) -> writer.writeUserMessage(prompt(source), channel);
+
+        verify(dir, string, streaming);
+
+        System.out.printf("%-8s %-10s %14s %14s %5s %9s%n", "Prompt", "Path", "Allocated (MB)", "Peak heap (MB)",
+                "GCs", "Time (ms)");
+        for (int mb : SIZES_MB) {
+            Path source = sourceFile(dir, mb);
+            // Warm up both paths on this size, then measure
+            measure(source, string);
+            measure(source, streaming);
+            for (Map.Entry<String, Write> path : List.of(Map.entry("string", string), Map.entry("streaming", streaming))) {
+                Measurement m = measure(source, path.getValue());
+                System.out.printf("%-8s %-10s %14.1f %14.1f %5d %9d%n", mb + " MB", path.getKey(),
+                        m.allocatedBytes() / 1e6, m.peakHeapBytes() / 1e6, m.gcs(), m.millis());
+            }
+            Files.delete(source);
+        }
+        Files.delete(dir);
+
+        System.out.println("\n=== Done ===");
+    }
+
+    /**
+     * What inlining the file into a text-block prompt costs: String, concatenation, JSON, bytes.
+     */
+    static void writeString(Path source, WritableByteChannel channel) throws IOException {
+        String prompt = BEFORE + Files.readString(source) + AFTER;
+        String json = mapper.writeValueAsString(Map.of(
+                "type", "user",
+                "message", Map.of("role", "user", "content", prompt)));
+        channel.write(ByteBuffer.wrap((json + "\n").getBytes(StandardCharsets.UTF_8)));
+    }
+
+    static StreamingPrompt prompt(Path source) {
+        return StreamingPrompt.builder().text(BEFORE).file(source).text(AFTER).build();
+    }
+
+    static Measurement measure(Path source, Write write) throws IOException, InterruptedException {
+        Process cat = new ProcessBuilder("cat").redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        try (OutputStream stdin = cat.getOutputStream()) {
+            WritableByteChannel channel = Channels.newChannel(stdin);
+            System.gc();
+            List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                    .filter(pool -> pool.getType() == MemoryType.HEAP)
+                    .toList();
+            pools.forEach(MemoryPoolMXBean::resetPeakUsage);
+            long gcs = gcCount();
+            long allocated = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+
+            write.to(source, channel);
+
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            long allocatedBytes = threads.getCurrentThreadAllocatedBytes() - allocated;
+            long peak = pools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+            return new Measurement(allocatedBytes, peak, gcCount() - gcs, millis);
+        } finally {
+            cat.waitFor();
+        }
+    }
+
+    // Both paths must produce the same message, including escapes and multi-byte characters
+    static void verify(Path dir, Write string, Write streaming) throws IOException {
+        Path sample = dir.resolve("Sample.java");
+        Files.writeString(sample, "class A {\n\tString s = \"q\\\\ é 中 😀\";\r\n\u0001}\n");
+        ByteArrayOutputStream a = new ByteArrayOutputStream();
+        ByteArrayOutputStream b = new ByteArrayOutputStream();
+        string.to(sample, Channels.newChannel(a));
+        streaming.to(sample, Channels.newChannel(b));
+        if (!mapper.readTree(a.toByteArray()).equals(mapper.readTree(b.toByteArray()))) {
+            throw new IllegalStateException("Streamed message differs:\n" + a + "\n" + b);
+        }
+        Files.delete(sample);
+        System.out.println("Check: streamed message equals the Jackson-serialized message\n");
+    }
+
+    // Source-like text: quotes, tabs and newlines to escape, some non-ASCII
+    static Path sourceFile(Path dir, int mb) throws IOException {
+        Path file = dir.resolve("Source" + mb + "MB.java");
+        String line = "\tString greeting = \"Grüße, \\\"world\\\"\"; // line %d\n";
+        try (var out = Files.newBufferedWriter(file)) {
+            long target = mb * 1_000_000L;
+            long size = 0;
+            for (int i = 0; size < target; i++) {
+                String l = line.formatted(i);
+                out.write(l);
+                size += l.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return file;
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount)
+                .sum();
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Module 22: Subagents Parallel Execution - Streaming large prompts
+ *
+ * The examples inline source code into prompts as text blocks. With multi-MB
+ * inputs that means the whole prompt exists on the heap several times: the
+ * file as a String, the concatenated prompt, the JSON-escaped message, and its
+ * UTF-8 bytes. StreamingPrompt writes the same stream-json user message
+ *
+ *   {"type":"user","message":{"role":"user","content":"..."}}
+ *
+ * straight into a channel (for example the stdin of a CLI process), from
+ * segments that are never joined:
+ * - text(String)         small literal parts of the prompt
+ * - file(Path)           read through a FileChannel
+ * - bytes(ByteBuffer)    heap or direct, read from a duplicate
+ * - stream(InputStream)  read in chunks
+ *
+ * JSON string escaping happens on the fly between two direct buffers that a
+ * Writer reuses for every message it writes; runs of bytes that need no
+ * escaping are copied in bulk. Segments must be UTF-8: bytes of multi-byte
+ * characters are never ASCII, so escaping byte by byte keeps them intact.
+ *
+ * ClaudeSyncClient.connect() takes a String and writes stdin itself, so this
+ * applies to a CLI process the application starts with
+ * --input-format stream-json. PromptHeapBenchmark measures the heap saved.
+ *
+ *   StreamingPrompt prompt = StreamingPrompt.builder()
+ *           .text("Review this file:\n```java\n")
+ *           .file(Path.of("src/main/java/BigService.java"))
+ *           .text("\n```\n")
+ *           .build();
+ *   new StreamingPrompt.Writer().writeUserMessage(prompt, Channels.newChannel(process.getOutputStream()));
+ */
+package org.springaicommunity.tutorial.module22;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class StreamingPrompt {
+
+    private static final byte[] MESSAGE_START =
+            "{\"type\":\"user\",\"message\":{\"role\":\"user\",\"content\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MESSAGE_END = "\"}}\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private sealed interface Segment permits Text, FileSegment, Bytes, Stream {}
+
+    private record Text(byte[] utf8) implements Segment {}
+
+    private record FileSegment(Path path) implements Segment {}
+
+    private record Bytes(ByteBuffer buffer) implements Segment {}
+
+    private record Stream(InputStream in) implements Segment {}
+
+    private final List<Segment> segments;
+
+    private StreamingPrompt(List<Segment> segments) {
+        this.segments = List.copyOf(segments);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Escapes and writes prompts through two reused direct buffers. Not thread-safe; use one per thread.
+     */
+    public static final class Writer {
+        private static final int BUFFER_SIZE = 64 * 1024;
+
+        private final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final byte[] chunk = new byte[BUFFER_SIZE];
+
+        /**
+         * Write one stream-json user message, terminated by a newline. Returns the bytes written.
+         */
+        public long writeUserMessage(StreamingPrompt prompt, WritableByteChannel channel) throws IOException {
+            out.clear();
+            long written = put(MESSAGE_START, channel);
+            written += writeContent(prompt, channel);
+            written += put(MESSAGE_END, channel);
+            return written + drain(channel);
+        }
+
+        /**
+         * Write only the escaped string content, without quotes. Returns the bytes written.
+         */
+        public long writeJsonString(StreamingPrompt prompt, WritableByteChannel channel) throws IOException {
+            out.clear();
+            return writeContent(prompt, channel) + drain(channel);
+        }
+
+        private long writeContent(StreamingPrompt prompt, WritableByteChannel channel) throws IOException {
+            long written = 0;
+            for (Segment segment : prompt.segments) {
+                switch (segment) {
+                    case Text text -> written += escape(ByteBuffer.wrap(text.utf8()), channel);
+                    case Bytes bytes -> written += escape(bytes.buffer().duplicate(), channel);
+                    case FileSegment file -> {
+                        try (FileChannel source = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+                            in.clear();
+                            while (source.read(in) != -1) {
+                                in.flip();
+                                written += escape(in, channel);
+                                in.clear();
+                            }
+                        }
+                    }
+                    case Stream stream -> {
+                        int n;
+                        while ((n = stream.in().read(chunk)) >= 0) {
+                            written += escape(ByteBuffer.wrap(chunk, 0, n), channel);
+                        }
+                    }
+                }
+            }
+            return written;
+        }
+
+        // Copy runs of plain bytes in bulk; escape the rest one byte at a time
+        private long escape(ByteBuffer src, WritableByteChannel channel) throws IOException {
+            long written = 0;
+            int limit = src.limit();
+            int pos = src.position();
+            while (pos < limit) {
+                int run = pos;
+                while (run < limit && plain(src.get(run))) {
+                    run++;
+                }
+                while (pos < run) {
+                    if (!out.hasRemaining()) {
+                        written += drain(channel);
+                    }
+                    int n = Math.min(run - pos, out.remaining());
+                    out.put(out.position(), src, pos, n);
+                    out.position(out.position() + n);
+                    pos += n;
+                }
+                if (pos < limit) {
+                    if (out.remaining() < 6) {
+                        written += drain(channel);
+                    }
+                    escapeByte(src.get(pos++));
+                }
+            }
+            src.position(limit);
+            return written;
+        }
+
+        private static boolean plain(byte b) {
+            return b != '"' && b != '\\' && (b & 0xFF) >= 0x20;
+        }
+
+        private void escapeByte(byte b) {
+            out.put((byte) '\\');
+            switch (b) {
+                case '"' -> out.put((byte) '"');
+                case '\\' -> out.put((byte) '\\');
+                case '\n' -> out.put((byte) 'n');
+                case '\r' -> out.put((byte) 'r');
+                case '\t' -> out.put((byte) 't');
+                case '\b' -> out.put((byte) 'b');
+                case '\f' -> out.put((byte) 'f');
+                default -> out.put((byte) 'u').put((byte) '0').put((byte) '0')
+                        .put(HEX[(b >> 4) & 0xF]).put(HEX[b & 0xF]);
+            }
+        }
+
+        private long put(byte[] bytes, WritableByteChannel channel) throws IOException {
+            long written = 0;
+            if (out.remaining() < bytes.length) {
+                written = drain(channel);
+            }
+            out.put(bytes);
+            return written;
+        }
+
+        private long drain(WritableByteChannel channel) throws IOException {
+            out.flip();
+            long written = 0;
+            while (out.hasRemaining()) {
+                written += channel.write(out);
+            }
+            out.clear();
+            return written;
+        }
+    }
+
+    public static class Builder {
+        private final List<Segment> segments = new ArrayList<>();
+
+        public Builder text(String text) {
+            segments.add(new Text(text.getBytes(StandardCharsets.UTF_8)));
+            return this;
+        }
+
+        /**
+         * A UTF-8 file, read when the prompt is written.
+         */
+        public Builder file(Path path) {
+            segments.add(new FileSegment(path));
+            return this;
+        }
+
+        /**
+         * UTF-8 bytes between position and limit; the buffer's own position is not changed.
+         */
+        public Builder bytes(ByteBuffer buffer) {
+            segments.add(new Bytes(buffer));
+            return this;
+        }
+
+        /**
+         * A UTF-8 stream, read to the end (not closed) when the prompt is written.
+         */
+        public Builder stream(InputStream in) {
+            segments.add(new Stream(in));
+            return this;
+        }
+
+        public StreamingPrompt build() {
+            return new StreamingPrompt(segments);
+        }
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ * Module 23: Subagent Patterns - Caching worker results
+ *
+ * Workers like security-worker and quality-worker are re-run on unchanged code
+ * every CI build. AgentResultCache stores a worker's findings on disk, keyed by
+ * SHA-256 of (agent definition, model, normalized input), and returns them on
+ * the next run without invoking the agent:
+ * - the definition hash covers name, description, prompt and tools, so editing
+ *   an agent's prompt changes every key for that agent; the stale entries are
+ *   deleted the first time the new definition is used
+ * - input is normalized before hashing: line endings, trailing whitespace and
+ *   leading or trailing blank lines do not change the key
+ * - one JSON file per entry, written atomically; the directory is bounded by
+ *   size and the least recently used entries are evicted first (a hit touches
+ *   the file's modified time, so recency survives restarts)
+ *
+ * stats() reports hits, misses and the time and cost saved per agent; a hit is
+ * credited with the duration and cost of the run that produced the entry.
+ *
+ *   AgentResultCache cache = AgentResultCache.builder().directory(Path.of(".agent-cache")).build();
+ *   AgentResultCache.Result result = cache.getOrRun(agent, model, code, () -> runWorker(agent, code));
+ *
+ * Set AGENT_CACHE=off to always run the agents.
+ */
+package org.springaicommunity.tutorial.module23;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
+
+public final class AgentResultCache {
+
+    /**
+     * One entry of the --agents JSON.
+     */
+    public record AgentDefinition(String name, String description, String prompt, List<String> tools) {
+        public AgentDefinition {
+            tools = tools == null ? List.of() : List.copyOf(tools);
+        }
+
+        /**
+         * SHA-256 of everything that shapes the agent's output.
+         */
+        public String hash() {
+            List<String> parts = new ArrayList<>(List.of(name, description, prompt));
+            parts.addAll(tools);
+            return sha256(parts);
+        }
+    }
+
+    /**
+     * Findings and what producing them cost; cached is true when they came from the cache.
+     */
+    public record Result(String findings, long durationMs, double costUsd, boolean cached) {
+        public Result(String findings, long durationMs, double costUsd) {
+            this(findings, durationMs, costUsd, false);
+        }
+    }
+
+    public record AgentStats(String agent, long hits, long misses, long savedMs, double savedUsd,
+                             long spentMs, double spentUsd) {
+        public double hitRate() {
+            return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+        }
+    }
+
+    // Persisted form of an entry
+    record Entry(String agent, String definitionHash, String model, String findings, long durationMs,
+                 double costUsd, long createdAtMs) {}
+
+    // What is known about an entry without reading it
+    private record Indexed(String agent, String definitionHash, long bytes, long lastAccessMs) {}
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final boolean ENABLED = !"off".equalsIgnoreCase(System.getenv("AGENT_CACHE"));
+
+    private final Path directory;
+    private final long maxBytes;
+
+    // Guarded by this
+    private final Map<String, Indexed> index = new HashMap<>();
+    private final Map<String, long[]> counters = new TreeMap<>();   // hits, misses, savedMs, spentMs
+    private final Map<String, double[]> costs = new TreeMap<>();    // savedUsd, spentUsd
+    private final Map<String, String> definitions = new HashMap<>(); // agent -> definition hash in use
+    private long totalBytes;
+
+    private AgentResultCache(Builder builder) throws IOException {
+        this.directory = builder.directory;
+        this.maxBytes = builder.maxBytes;
+        Files.createDirectories(directory);
+        load();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Parse the --agents JSON used by the orchestrator examples into definitions, by name.
+     */
+    public static Map<String, AgentDefinition> parseAgents(String agentsJson) throws IOException {
+        Map<String, AgentDefinition> agents = new LinkedHashMap<>();
+        JsonNode root = mapper.readTree(agentsJson);
+        for (Iterator<Map.Entry<String, JsonNode>> it = root.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = it.next();
+            JsonNode node = field.getValue();
+            List<String> tools = new ArrayList<>();
+            node.path("tools").forEach(tool -> tools.add(tool.asText()));
+            agents.put(field.getKey(), new AgentDefinition(field.getKey(), node.path("description").asText(),
+                    node.path("prompt").asText(), tools));
+        }
+        return agents;
+    }
+
+    /**
+     * Cached findings for this agent, model and input, or run the agent and cache what it returns.
+     * Failures of run are not cached.
+     */
+    public Result getOrRun(AgentDefinition agent, String model, String input, Callable<Result> run) throws Exception {
+        String definitionHash = agent.hash();
+        String key = sha256(List.of(definitionHash, model, normalize(input)));
+        if (ENABLED) {
+            dropStaleDefinitions(agent.name(), definitionHash);
+            Entry cached = read(key);
+            if (cached != null) {
+                synchronized (this) {
+                    counters(agent.name())[0]++;
+                    counters(agent.name())[2] += cached.durationMs();
+                    costs(agent.name())[0] += cached.costUsd();
+                }
+                return new Result(cached.findings(), cached.durationMs(), cached.costUsd(), true);
+            }
+        }
+
+        Result result = run.call();
+        synchronized (this) {
+            counters(agent.name())[1]++;
+            counters(agent.name())[3] += result.durationMs();
+            costs(agent.name())[1] += result.costUsd();
+        }
+        if (ENABLED) {
+            write(key, new Entry(agent.name(), definitionHash, model, result.findings(), result.durationMs(),
+                    result.costUsd(), System.currentTimeMillis()));
+        }
+        return result;
+    }
+
+    /**
+     * Delete every entry of an agent.
+     */
+    public void invalidate(String agentName) {
+        removeIf(indexed -> indexed.agent().equals(safeName(agentName)));
+    }
+
+    public synchronized Map<String, AgentStats> stats() {
+        Map<String, AgentStats> stats = new LinkedHashMap<>();
+        counters.forEach((agent, c) -> stats.put(agent,
+                new AgentStats(agent, c[0], c[1], c[2], costs(agent)[0], c[3], costs(agent)[1])));
+        return stats;
+    }
+
+    public synchronized int entries() {
+        return index.size();
+    }
+
+    public synchronized long sizeBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * CRLF to LF, trailing whitespace stripped from every line, leading and trailing blank lines removed.
+     */
+    static String normalize(String input) {
+        StringBuilder out = new StringBuilder(input.length());
+        for (String line : input.replace("\r\n", "\n").replace('\r', '\n').split("\n", -1)) {
+            out.append(line.stripTrailing()).append('\n');
+        }
+        int start = 0;
+        while (start < out.length() && out.charAt(start) == '\n') {
+            start++;
+        }
+        int end = out.length();
+        while (end > start && out.charAt(end - 1) == '\n') {
+            end--;
+        }
+        return out.substring(start, end);
+    }
+
+    // ---- Storage ----
+
+    // File names carry the agent and definition hash so the index can be rebuilt from a directory listing
+    private Path path(Indexed indexed, String key) {
+        return directory.resolve(indexed.agent() + "." + indexed.definitionHash() + "." + key + ".json");
+    }
+
+    private synchronized void load() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.json")) {
+            for (Path file : files) {
+                String[] parts = file.getFileName().toString().split("\\.");
+                if (parts.length != 4) {
+                    continue;
+                }
+                long bytes = Files.size(file);
+                index.put(parts[2], new Indexed(parts[0], parts[1], bytes,
+                        Files.getLastModifiedTime(file).toMillis()));
+                totalBytes += bytes;
+            }
+        }
+    }
+
+    private Entry read(String key) {
+        Indexed indexed;
+        synchronized (this) {
+            indexed = index.get(key);
+        }
+        if (indexed == null) {
+            return null;
+        }
+        Path file = path(indexed, key);
+        try {
+            Entry entry = mapper.readValue(file.toFile(), Entry.class);
+            long now = System.currentTimeMillis();
+            Files.setLastModifiedTime(file, FileTime.fromMillis(now));
+            synchronized (this) {
+                index.computeIfPresent(key, (k, i) -> new Indexed(i.agent(), i.definitionHash(), i.bytes(), now));
+            }
+            return entry;
+        } catch (IOException e) {
+            // Unreadable or evicted: a miss, overwritten after the run
+            return null;
+        }
+    }
+
+    private void write(String key, Entry entry) {
+        Indexed indexed = new Indexed(safeName(entry.agent()), entry.definitionHash().substring(0, 16), 0,
+                System.currentTimeMillis());
+        Path target = path(indexed, key);
+        try {
+            Path tmp = Files.createTempFile(directory, key, ".tmp");
+            mapper.writeValue(tmp.toFile(), entry);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            long bytes = Files.size(target);
+            synchronized (this) {
+                Indexed old = index.put(key, new Indexed(indexed.agent(), indexed.definitionHash(), bytes,
+                        indexed.lastAccessMs()));
+                totalBytes += bytes - (old == null ? 0 : old.bytes());
+            }
+            evict();
+        } catch (IOException e) {
+            System.err.println("[AgentResultCache] Could not write entry: " + e.getMessage());
+        }
+    }
+
+    // Least recently used first, until the directory is within maxBytes
+    private void evict() {
+        List<Map.Entry<String, Indexed>> victims = new ArrayList<>();
+        synchronized (this) {
+            if (totalBytes <= maxBytes) {
+                return;
+            }
+            List<Map.Entry<String, Indexed>> byAccess = new ArrayList<>(index.entrySet());
+            byAccess.sort(Comparator.comparingLong(e -> e.getValue().lastAccessMs()));
+            long bytes = totalBytes;
+            for (Map.Entry<String, Indexed> e : byAccess) {
+                if (bytes <= maxBytes) {
+                    break;
+                }
+                victims.add(Map.entry(e.getKey(), e.getValue()));
+                bytes -= e.getValue().bytes();
+            }
+        }
+        victims.forEach(victim -> delete(victim.getKey(), victim.getValue()));
+    }
+
+    private void dropStaleDefinitions(String agentName, String definitionHash) {
+        String agent = safeName(agentName);
+        String current = definitionHash.substring(0, 16);
+        synchronized (this) {
+            if (current.equals(definitions.put(agent, current))) {
+                return;   // already checked for this definition
+            }
+        }
+        removeIf(indexed -> indexed.agent().equals(agent) && !indexed.definitionHash().equals(current));
+    }
+
+    private void removeIf(Predicate<Indexed> stale) {
+        List<Map.Entry<String, Indexed>> victims;
+        synchronized (this) {
+            victims = index.entrySet().stream()
+                    .filter(e -> stale.test(e.getValue()))
+                    .map(e -> Map.entry(e.getKey(), e.getValue()))
+                    .toList();
+        }
+        victims.forEach(victim -> delete(victim.getKey(), victim.getValue()));
+    }
+
+    private void delete(String key, Indexed indexed) {
+        synchronized (this) {
+            if (index.remove(key, indexed)) {
+                totalBytes -= indexed.bytes();
+            }
+        }
+        try {
+            Files.deleteIfExists(path(indexed, key));
+        } catch (NoSuchFileException e) {
+            // Already gone
+        } catch (IOException e) {
+            System.err.println("[AgentResultCache] Could not delete entry: " + e.getMessage());
+        }
+    }
+
+    private long[] counters(String agent) {
+        return counters.computeIfAbsent(agent, a -> new long[4]);
+    }
+
+    private double[] costs(String agent) {
+        return costs.computeIfAbsent(agent, a -> new double[2]);
+    }
+
+    private static String safeName(String agent) {
+        return agent.replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+
+    // Length-prefixed, so ("ab", "c") and ("a", "bc") hash differently
+    private static String sha256(List<String> parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                byte[] bytes = (part != null ? part : "").getBytes(StandardCharsets.UTF_8);
+                digest.update((bytes.length + ":").getBytes(StandardCharsets.UTF_8));
+                digest.update(bytes);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static class Builder {
+        private Path directory = Path.of(".agent-cache");
+        private long maxBytes = 50L * 1024 * 1024;
+
+        public Builder directory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * Upper bound on the size of the cache directory; default 50 MB.
+         */
+        public Builder maxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        public AgentResultCache build() throws IOException {
+            return new AgentResultCache(this);
+        }
+    }
+}
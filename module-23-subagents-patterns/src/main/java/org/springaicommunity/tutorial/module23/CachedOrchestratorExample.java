@@ -0,0 +1,137 @@
+/*
+ * Module 23: Subagent Patterns - Orchestrator with cached workers
+ *
+ * The same orchestrator and workers as OrchestratorPatternExample, driven from
+ * Java so each worker's findings can be cached: every worker runs as its own
+ * client with the agent's prompt as system prompt and its tools as the
+ * allowed tools, and the orchestrator synthesizes their findings. All three
+ * go through an AgentResultCache.
+ *
+ * Two "CI builds" review the same class; the second has Windows line endings
+ * and trailing whitespace, which normalize to the same input, so no agent is
+ * invoked. Hit rate and the time and cost saved are printed per agent. The
+ * cache lives in .agent-cache/ and survives runs: the next run of this example
+ * makes no model calls until an agent prompt or the reviewed code changes.
+ *
+ * Run with: mvn compile exec:java -pl module-23-subagents-patterns \
+ *   -Dexec.mainClass=org.springaicommunity.tutorial.module23.CachedOrchestratorExample
+ */
+package org.springaicommunity.tutorial.module23;
+
+import org.springaicommunity.claude.agent.sdk.ClaudeClient;
+import org.springaicommunity.claude.agent.sdk.ClaudeSyncClient;
+import org.springaicommunity.claude.agent.sdk.config.PermissionMode;
+import org.springaicommunity.claude.agent.sdk.parsing.ParsedMessage;
+import org.springaicommunity.claude.agent.sdk.transport.CLIOptions;
+import org.springaicommunity.claude.agent.sdk.types.AssistantMessage;
+import org.springaicommunity.claude.agent.sdk.types.ResultMessage;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+public class CachedOrchestratorExample {
+
+    private static final String MODEL = CLIOptions.MODEL_HAIKU;
+    private static final List<String> WORKERS = List.of("security-worker", "quality-worker");
+
+    private static final String CODE = """
+            public class UserAuth {
+                String password = "admin123";
+                public boolean login(String user, String pwd) {
+                    return pwd.equals(password);
+                }
+            }
+            """;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Module 23: Subagent Patterns - Cached Orchestrator ===\n");
+
+        Map<String, AgentResultCache.AgentDefinition> agents =
+                AgentResultCache.parseAgents(OrchestratorPatternExample.AGENTS_JSON);
+        AgentResultCache cache = AgentResultCache.builder().directory(Path.of(".agent-cache")).build();
+        System.out.printf("[Cache] .agent-cache: %d entries, %d bytes%n", cache.entries(), cache.sizeBytes());
+
+        review("Build #1", CODE, agents, cache);
+        // Same code as checked out on Windows, with an editor's trailing whitespace
+        review("Build #2", CODE.replace("\n", "  \r\n"), agents, cache);
+
+        System.out.println("\n--- Cache Stats ---");
+        System.out.printf("%-16s %5s %7s %9s %11s %11s%n", "Agent", "Hits", "Misses", "Hit rate", "Saved (ms)",
+                "Saved ($)");
+        cache.stats().values().forEach(s -> System.out.printf("%-16s %5d %7d %8.0f%% %11d %11.6f%n",
+                s.agent(), s.hits(), s.misses(), s.hitRate() * 100, s.savedMs(), s.savedUsd()));
+
+        System.out.println("\n=== Done ===");
+    }
+
+    private static void review(String build, String code, Map<String, AgentResultCache.AgentDefinition> agents,
+                               AgentResultCache cache) throws Exception {
+        System.out.println("\n--- " + build + " ---");
+        StringBuilder findings = new StringBuilder();
+        for (String name : WORKERS) {
+            AgentResultCache.AgentDefinition worker = agents.get(name);
+            String input = "Review this code:\n\n```java\n" + code + "```";
+            AgentResultCache.Result result = timed(name, () ->
+                    cache.getOrRun(worker, MODEL, input, () -> run(worker, input)));
+            findings.append("## ").append(name).append("\n").append(result.findings()).append("\n\n");
+        }
+
+        AgentResultCache.AgentDefinition orchestrator = agents.get("orchestrator");
+        String synthesis = "Synthesize these worker findings (max 3 bullet points):\n\n" + findings;
+        AgentResultCache.Result summary = timed("orchestrator", () ->
+                cache.getOrRun(orchestrator, MODEL, synthesis, () -> run(orchestrator, synthesis)));
+        System.out.println("Claude: " + summary.findings());
+    }
+
+    private static AgentResultCache.Result timed(String agent, Callable<AgentResultCache.Result> call)
+            throws Exception {
+        long start = System.nanoTime();
+        AgentResultCache.Result result = call.call();
+        System.out.printf("[%s] %s in %d ms%s%n", agent, result.cached() ? "cache hit" : "ran",
+                (System.nanoTime() - start) / 1_000_000,
+                result.cached() ? String.format(" (saved %d ms, $%.6f)", result.durationMs(), result.costUsd()) : "");
+        return result;
+    }
+
+    // One agent as its own session: its prompt becomes the system prompt and its tools the only allowed ones.
+    // An agent without a tools list inherits every tool, as a subagent would.
+    private static AgentResultCache.Result run(AgentResultCache.AgentDefinition agent, String input) {
+        CLIOptions.Builder builder = CLIOptions.builder()
+                .model(MODEL)
+                .systemPrompt(agent.prompt());
+        if (agent.tools().isEmpty()) {
+            builder.permissionMode(PermissionMode.BYPASS_PERMISSIONS);
+        } else {
+            builder.allowedTools(agent.tools());
+        }
+        CLIOptions options = builder.build();
+
+        try (ClaudeSyncClient client = ClaudeClient.sync(options)
+                .workingDirectory(Path.of("."))
+                .build()) {
+            client.connect(input);
+            StringBuilder text = new StringBuilder();
+            long durationMs = 0;
+            double costUsd = 0;
+            Iterator<ParsedMessage> response = client.receiveResponse();
+            while (response.hasNext()) {
+                ParsedMessage msg = response.next();
+                if (msg.isRegularMessage()) {
+                    if (msg.asMessage() instanceof AssistantMessage am) {
+                        am.getTextContent().ifPresent(text::append);
+                    } else if (msg.asMessage() instanceof ResultMessage rm) {
+                        if (rm.isError()) {
+                            throw new IllegalStateException(agent.name() + " failed: " + rm.result());
+                        }
+                        durationMs = rm.durationMs();
+                        costUsd = rm.totalCostUsd() != null ? rm.totalCostUsd() : 0;
+                    }
+                }
+            }
+            return new AgentResultCache.Result(text.toString(), durationMs, costUsd);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Module 23: Subagent Patterns - Map-reduce throughput on a 5k-file tree
+ *
+ * Generates a source tree (5,000 files by default, in packages of 3 to 120
+ * files) and reviews it with MapReduceReviewer against the stand-in CLI:
+ * - once per pool size (4, 8, 16 worker sessions), reporting shards, wall
+ *   time and files per minute
+ * - then a run whose budget runs out about halfway, as a crashed CI job
+ *   would, followed by a rerun that resumes from the checkpoint and reviews
+ *   only the shards that were not finished
+ *
+ * STAND_IN_DELAY sets the stand-in's reply time per shard. The benchmark
+ * refuses to start against a real CLI.
+ *
+ * Run with:
+ *   PATH="$PWD/integration-testing/stand-in-cli:$PATH" \
+ *   mvn compile exec:java -pl module-23-subagents-patterns \
+ *     -Dexec.mainClass=org.springaicommunity.tutorial.module23.MapReduceBenchmark \
+ *     -Dexec.args="5000"
+ */
+package org.springaicommunity.tutorial.module23;
+
+import org.springaicommunity.tutorial.standin.StandInCli;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+public class MapReduceBenchmark {
+
+    private static final int[] POOL_SIZES = {4, 8, 16};
+    private static final Duration BUDGET = Duration.ofMinutes(10);
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Module 23: Map-Reduce Review Benchmark ===\n");
+
+        StandInCli.require();
+
+        int files = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        Path root = Files.createTempDirectory("map-reduce");
+        Path checkpoint = root.resolve("checkpoint.jsonl");
+        try {
+            int packages = generate(root.resolve("src"), files);
+            System.out.printf("Tree: %,d files in %d packages; budget %d min%n%n", files, packages,
+                    BUDGET.toMinutes());
+
+            System.out.printf("%-22s %7s %8s %8s %10s %12s %9s%n", "Run", "Shards", "Resumed", "Pending",
+                    "Wall (ms)", "Files/min", "Complete");
+            long wallAt8 = 0;
+            for (int pool : POOL_SIZES) {
+                Files.deleteIfExists(checkpoint);
+                MapReduceReviewer.Report report = reviewer(root, checkpoint, pool, BUDGET, new AtomicInteger()).run();
+                print("pool " + pool, report);
+                if (pool == 8) {
+                    wallAt8 = report.wallMs();
+                }
+            }
+
+            // A run cut off halfway, then a rerun that resumes from the checkpoint
+            Files.deleteIfExists(checkpoint);
+            AtomicInteger streamed = new AtomicInteger();
+            Duration cut = Duration.ofMillis(Math.max(200, wallAt8 / 2));
+            MapReduceReviewer.Report partial = reviewer(root, checkpoint, 8, cut, streamed).run();
+            print("pool 8, cut off", partial);
+            MapReduceReviewer.Report resumed = reviewer(root, checkpoint, 8, BUDGET, streamed).run();
+            print("pool 8, resumed", resumed);
+            System.out.printf("%nShard results streamed as they completed: %d (of %d shards)%n",
+                    streamed.get() - resumed.shardsResumed(), resumed.shards());
+        } finally {
+            delete(root);
+        }
+
+        System.out.println("\n=== Done ===");
+    }
+
+    private static MapReduceReviewer reviewer(Path root, Path checkpoint, int pool, Duration budget,
+                                              AtomicInteger streamed) {
+        return MapReduceReviewer.builder()
+                .root(root.resolve("src"))
+                .checkpoint(checkpoint)
+                .concurrency(pool)
+                .budget(budget)
+                .reduceReserve(Duration.ofMillis(Math.min(budget.toMillis() / 10, 5_000)))
+                .onShard(result -> streamed.incrementAndGet())
+                .build();
+    }
+
+    private static void print(String run, MapReduceReviewer.Report r) {
+        System.out.printf("%-22s %7d %8d %8d %10d %12.0f %9s%n", run, r.shards(), r.shardsResumed(),
+                r.shardsPending() + r.shardsFailed(), r.wallMs(), r.filesPerMinute(), r.complete() ? "yes" : "no");
+    }
+
+    // Packages of 3 to 120 small classes; big packages are split into several shards
+    static int generate(Path src, int files) throws IOException {
+        Random random = new Random(42);
+        int written = 0;
+        int pkg = 0;
+        while (written < files) {
+            int size = Math.min(files - written, 3 + random.nextInt(118));
+            Path dir = src.resolve("com/example/p" + pkg);
+            Files.createDirectories(dir);
+            for (int i = 0; i < size; i++) {
+                String name = "Class" + written;
+                Files.writeString(dir.resolve(name + ".java"), """
+                        package com.example.p%d;
+
+                        public class %s {
+                            private final String secret = "changeit";
+
+                            public int compute(int a, int b) {
+                                return a * %d + b;
+                            }
+                        }
+                        """.formatted(pkg, name, written));
+                written++;
+            }
+            pkg++;
+        }
+        return pkg;
+    }
+
+    private static void delete(Path root) throws IOException {
+        try (Stream<Path> walk = Files.walk(root)) {
+            for (Path path : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
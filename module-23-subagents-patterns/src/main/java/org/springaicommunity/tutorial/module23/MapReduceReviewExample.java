@@ -0,0 +1,59 @@
+/*
+ * Module 23: Subagent Patterns - Map-reduce review
+ *
+ * Reviews every Java file under a directory with MapReduceReviewer: the tree
+ * is split into package shards, worker sessions review the shards four at a
+ * time, findings are printed as each shard completes, and the orchestrator
+ * merges them into one report.
+ *
+ * Progress is checkpointed to target/review-checkpoint.jsonl. Stop the run (or
+ * let the budget run out) and start it again: finished shards are not
+ * reviewed twice. Delete the checkpoint to start over.
+ *
+ * Run with: mvn compile exec:java -pl module-23-subagents-patterns \
+ *   -Dexec.mainClass=org.springaicommunity.tutorial.module23.MapReduceReviewExample \
+ *   -Dexec.args="module-23-subagents-patterns/src 10"
+ */
+package org.springaicommunity.tutorial.module23;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+public class MapReduceReviewExample {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Module 23: Subagent Patterns - Map-Reduce Review ===\n");
+
+        Path root = Path.of(args.length > 0 ? args[0] : "module-23-subagents-patterns/src");
+        Duration budget = Duration.ofMinutes(args.length > 1 ? Long.parseLong(args[1]) : 10);
+        System.out.println("[Tree] " + root.toAbsolutePath().normalize());
+        System.out.println("[Budget] " + budget.toMinutes() + " min, 4 workers at a time");
+
+        MapReduceReviewer reviewer = MapReduceReviewer.builder()
+                .root(root)
+                .checkpoint(Path.of("target/review-checkpoint.jsonl"))
+                .concurrency(4)
+                .budget(budget)
+                .onShard(result -> System.out.printf("%n[%s] %s (%d files)%n%s%n", result.shard().label(),
+                        result.resumed() ? "from checkpoint" : "reviewed in " + result.durationMs() + " ms",
+                        result.shard().files().size(), result.findings()))
+                .build();
+
+        System.out.println("\n--- Map: shard findings as they complete ---");
+        MapReduceReviewer.Report report = reviewer.run();
+
+        System.out.println("\n--- Reduce: orchestrator report ---\n");
+        System.out.println("Claude: " + report.summary());
+
+        System.out.printf("%n[Shards] %d total: %d reviewed, %d from checkpoint, %d failed, %d pending%n",
+                report.shards(), report.shardsReviewed(), report.shardsResumed(), report.shardsFailed(),
+                report.shardsPending());
+        System.out.printf("[Throughput] %d files in %.1f s: %.0f files/min, $%.4f%n", report.filesReviewed(),
+                report.wallMs() / 1000.0, report.filesPerMinute(), report.costUsd());
+        if (!report.complete()) {
+            System.out.println("[Incomplete] Run again to review the remaining shards");
+        }
+
+        System.out.println("\n=== Done ===");
+    }
+}
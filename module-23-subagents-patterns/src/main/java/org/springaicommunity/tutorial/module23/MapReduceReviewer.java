@@ -0,0 +1,651 @@
+/*
+ * Module 23: Subagent Patterns - Map-reduce review of a source tree
+ *
+ * The orchestrator examples paste one class into one prompt. MapReduceReviewer
+ * reviews a whole tree:
+ * - shard: files are grouped by package (directory), and packages are split so
+ *   no shard has more than maxShardFiles files or maxShardBytes of source
+ * - map: shards fan out to worker sessions, at most `concurrency` at a time;
+ *   each finished shard is handed to onShard() as soon as it completes
+ * - reduce: the orchestrator merges the shard findings into one report; when
+ *   they do not fit in one prompt they are reduced in batches first
+ *
+ * Every finished shard is appended to a JSONL checkpoint. A shard's id hashes
+ * its files' paths, sizes and modified times, so a rerun after a crash, or
+ * after the budget ran out, skips the shards already done and re-reviews only
+ * shards whose files changed.
+ *
+ * The run has a wall-clock budget. No shard starts or is retried after budget
+ * minus reduceReserve, and shards still running then are interrupted and left
+ * for the next run; the reduce step runs over what is done, in at most
+ * MAX_REDUCE_ROUNDS rounds and within the reserve. A reduce that runs out of
+ * budget returns the findings unmerged. Report.complete() tells whether every
+ * shard made it.
+ *
+ * Workers get the source in the prompt and the orchestrator the findings, so
+ * the default sessions may only use the read-only tools Read, Grep and Glob.
+ *
+ *   MapReduceReviewer.Report report = MapReduceReviewer.builder()
+ *           .root(Path.of("src/main/java"))
+ *           .checkpoint(Path.of("target/review-checkpoint.jsonl"))
+ *           .concurrency(8)
+ *           .budget(Duration.ofMinutes(30))
+ *           .onShard(shard -> System.out.println(shard.shard().label() + ": " + shard.findings()))
+ *           .build()
+ *           .run();
+ */
+package org.springaicommunity.tutorial.module23;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springaicommunity.claude.agent.sdk.ClaudeClient;
+import org.springaicommunity.claude.agent.sdk.ClaudeSyncClient;
+import org.springaicommunity.claude.agent.sdk.parsing.ParsedMessage;
+import org.springaicommunity.claude.agent.sdk.transport.CLIOptions;
+import org.springaicommunity.claude.agent.sdk.types.AssistantMessage;
+import org.springaicommunity.claude.agent.sdk.types.ResultMessage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+public final class MapReduceReviewer {
+
+    static final String WORKER_PROMPT = "You are a code reviewer. Find bugs, security vulnerabilities and "
+            + "maintainability issues. Report one finding per line as `path:line: severity: message`, "
+            + "severity one of high, medium, low. Reply NONE if there is nothing worth reporting. Be very brief.";
+
+    static final String ORCHESTRATOR_PROMPT = "You are an orchestrator. Merge findings from review workers "
+            + "into one report: group duplicates, keep the highest severity, most important first.";
+
+    static final int MAX_REDUCE_ROUNDS = 3;
+    private static final List<String> READ_ONLY_TOOLS = List.of("Read", "Grep", "Glob");
+
+    private static final Set<String> IGNORED_DIRECTORIES = Set.of(".git", "target", "build", "node_modules", ".idea");
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    public record Shard(String id, String label, List<Path> files, long bytes) {}
+
+    public record ShardResult(Shard shard, String findings, long durationMs, double costUsd, boolean resumed) {}
+
+    public record Report(int shards, int shardsResumed, int shardsReviewed, int shardsFailed, int shardsPending,
+                         int files, int filesReviewed, long wallMs, double costUsd, String summary) {
+        public boolean complete() {
+            return shardsPending == 0 && shardsFailed == 0;
+        }
+
+        /**
+         * Files reviewed in this run (not resumed from the checkpoint) per minute of wall-clock time.
+         */
+        public double filesPerMinute() {
+            return wallMs == 0 ? 0 : filesReviewed * 60_000.0 / wallMs;
+        }
+    }
+
+    // One line of the checkpoint
+    record Checkpointed(String id, String label, int files, String findings, long durationMs, double costUsd) {}
+
+    private record Turn(String text, long durationMs, double costUsd) {}
+
+    private final Path root;
+    private final PathMatcher include;
+    private final int maxShardFiles;
+    private final long maxShardBytes;
+    private final int concurrency;
+    private final Duration budget;
+    private final Duration reduceReserve;
+    private final int maxReduceChars;
+    private final int maxAttempts;
+    private final Path checkpoint;
+    private final Supplier<ClaudeSyncClient> workers;
+    private final Supplier<ClaudeSyncClient> orchestrator;
+    private final Consumer<ShardResult> onShard;
+
+    private final Set<ClaudeSyncClient> running = ConcurrentHashMap.newKeySet();
+
+    private MapReduceReviewer(Builder builder) {
+        this.root = builder.root.toAbsolutePath().normalize();
+        this.include = FileSystems.getDefault().getPathMatcher(builder.include);
+        this.maxShardFiles = builder.maxShardFiles;
+        this.maxShardBytes = builder.maxShardBytes;
+        this.concurrency = builder.concurrency;
+        this.budget = builder.budget;
+        this.reduceReserve = builder.reduceReserve != null ? builder.reduceReserve : builder.budget.dividedBy(10);
+        this.maxReduceChars = builder.maxReduceChars;
+        this.maxAttempts = builder.maxAttempts;
+        this.checkpoint = builder.checkpoint;
+        this.workers = builder.workers != null ? builder.workers : () -> client(WORKER_PROMPT, this.root);
+        this.orchestrator = builder.orchestrator != null ? builder.orchestrator
+                : () -> client(ORCHESTRATOR_PROMPT, this.root);
+        this.onShard = builder.onShard;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Shard, map what the checkpoint does not already hold, then reduce.
+     */
+    public Report run() throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + budget.toNanos();
+        long mapDeadline = deadline - reduceReserve.toNanos();
+
+        List<Shard> shards = shard();
+        Map<String, Checkpointed> done = readCheckpoint();
+        Map<String, ShardResult> results = new LinkedHashMap<>();
+        List<Shard> pending = new ArrayList<>();
+        for (Shard shard : shards) {
+            Checkpointed saved = done.get(shard.id());
+            if (saved != null) {
+                ShardResult result = new ShardResult(shard, saved.findings(), saved.durationMs(), saved.costUsd(), true);
+                results.put(shard.id(), result);
+                onShard.accept(result);
+            } else {
+                pending.add(shard);
+            }
+        }
+        int resumed = results.size();
+
+        AtomicInteger failed = new AtomicInteger();
+        Map<String, ShardResult> mapped = map(pending, mapDeadline, failed);
+        results.putAll(mapped);
+
+        int filesReviewed = mapped.values().stream().mapToInt(r -> r.shard().files().size()).sum();
+        double cost = mapped.values().stream().mapToDouble(ShardResult::costUsd).sum();
+
+        // Reduce in shard order, so the report does not depend on completion order
+        List<ShardResult> ordered = shards.stream().map(s -> results.get(s.id())).filter(r -> r != null).toList();
+        Turn summary = reduceWithin(ordered, deadline);
+        cost += summary.costUsd();
+
+        return new Report(shards.size(), resumed, mapped.size(), failed.get(),
+                shards.size() - results.size() - failed.get(),
+                shards.stream().mapToInt(s -> s.files().size()).sum(), filesReviewed,
+                (System.nanoTime() - start) / 1_000_000, cost, summary.text());
+    }
+
+    // ---- Shard ----
+
+    /**
+     * Files under root grouped by directory, split by maxShardFiles and maxShardBytes, in path order.
+     */
+    List<Shard> shard() throws IOException {
+        Map<Path, List<Path>> byPackage = new TreeMap<>();
+        Map<Path, BasicFileAttributes> attributes = new ConcurrentHashMap<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return !dir.equals(root) && IGNORED_DIRECTORIES.contains(dir.getFileName().toString())
+                        ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                Path relative = root.relativize(file);
+                if (attrs.isRegularFile() && include.matches(relative)) {
+                    Path dir = relative.getParent() != null ? relative.getParent() : Path.of("");
+                    byPackage.computeIfAbsent(dir, d -> new ArrayList<>()).add(relative);
+                    attributes.put(relative, attrs);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        List<Shard> shards = new ArrayList<>();
+        byPackage.forEach((dir, files) -> {
+            files.sort(null);
+            String label = dir.toString().isEmpty() ? "(root)" : dir.toString().replace('\\', '/');
+            List<Path> current = new ArrayList<>();
+            long bytes = 0;
+            int part = 0;
+            for (Path file : files) {
+                long size = attributes.get(file).size();
+                if (!current.isEmpty() && (current.size() >= maxShardFiles || bytes + size > maxShardBytes)) {
+                    shards.add(newShard(label + "#" + part++, current, bytes, attributes));
+                    current = new ArrayList<>();
+                    bytes = 0;
+                }
+                current.add(file);
+                bytes += size;
+            }
+            if (!current.isEmpty()) {
+                shards.add(newShard(part == 0 ? label : label + "#" + part, current, bytes, attributes));
+            }
+        });
+        return shards;
+    }
+
+    private static Shard newShard(String label, List<Path> files, long bytes, Map<Path, BasicFileAttributes> attributes) {
+        List<String> parts = new ArrayList<>();
+        for (Path file : files) {
+            BasicFileAttributes attrs = attributes.get(file);
+            parts.add(file + "\0" + attrs.size() + "\0" + attrs.lastModifiedTime().toMillis());
+        }
+        return new Shard(sha256(parts).substring(0, 16), label, List.copyOf(files), bytes);
+    }
+
+    // ---- Map ----
+
+    private Map<String, ShardResult> map(List<Shard> pending, long deadline, AtomicInteger failed)
+            throws IOException, InterruptedException {
+        Map<String, ShardResult> results = new ConcurrentHashMap<>();
+        Semaphore slots = new Semaphore(concurrency);
+        if (checkpoint != null) {
+            Files.createDirectories(checkpoint.toAbsolutePath().getParent());
+            endTornLine();
+        }
+        try (BufferedWriter log = checkpoint == null ? null : Files.newBufferedWriter(checkpoint,
+                StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Shard shard : pending) {
+                long wait = deadline - System.nanoTime();
+                if (wait <= 0 || !slots.tryAcquire(wait, TimeUnit.NANOSECONDS)) {
+                    break;   // out of budget: the rest stays pending for the next run
+                }
+                futures.add(executor.submit(() -> {
+                    try {
+                        ShardResult result = review(shard, deadline);
+                        if (System.nanoTime() - deadline > 0) {
+                            return;   // finished only because it was interrupted; redo it next run
+                        }
+                        results.put(shard.id(), result);
+                        complete(log, result);
+                    } catch (Exception e) {
+                        if (System.nanoTime() - deadline <= 0) {
+                            failed.incrementAndGet();
+                            System.err.println("[MapReduceReviewer] " + shard.label() + " failed: " + e.getMessage());
+                        }
+                    } finally {
+                        slots.release();
+                    }
+                }));
+            }
+
+            // Shards still running at the deadline are stopped and left for the next run
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !slots.tryAcquire(concurrency, remaining, TimeUnit.NANOSECONDS)) {
+                running.forEach(MapReduceReviewer::stop);
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (Exception e) {
+                    // Handled in the task
+                }
+            }
+        }
+        return results;
+    }
+
+    private ShardResult review(Shard shard, long deadline) throws IOException {
+        Turn turn = ask(workers, shardPrompt(shard), deadline);
+        return new ShardResult(shard, turn.text().strip(), turn.durationMs(), turn.costUsd(), false);
+    }
+
+    String shardPrompt(Shard shard) throws IOException {
+        StringBuilder prompt = new StringBuilder("Review these ").append(shard.files().size())
+                .append(" files from ").append(shard.label()).append(":\n");
+        for (Path file : shard.files()) {
+            String path = file.toString().replace('\\', '/');
+            prompt.append("\n### ").append(path).append("\n```\n")
+                    .append(Files.readString(root.resolve(file), StandardCharsets.UTF_8));
+            if (prompt.charAt(prompt.length() - 1) != '\n') {
+                prompt.append('\n');
+            }
+            prompt.append("```\n");
+        }
+        return prompt.toString();
+    }
+
+    // Checkpoint first, then hand out: a shard the listener has seen survives a crash
+    private synchronized void complete(BufferedWriter log, ShardResult result) {
+        if (log != null) {
+            try {
+                log.write(mapper.writeValueAsString(new Checkpointed(result.shard().id(), result.shard().label(),
+                        result.shard().files().size(), result.findings(), result.durationMs(), result.costUsd())));
+                log.newLine();
+                log.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write checkpoint " + checkpoint, e);
+            }
+        }
+        onShard.accept(result);
+    }
+
+    private Map<String, Checkpointed> readCheckpoint() throws IOException {
+        Map<String, Checkpointed> done = new LinkedHashMap<>();
+        if (checkpoint == null || !Files.exists(checkpoint)) {
+            return done;
+        }
+        for (String line : Files.readAllLines(checkpoint, StandardCharsets.UTF_8)) {
+            try {
+                Checkpointed entry = mapper.readValue(line, Checkpointed.class);
+                done.put(entry.id(), entry);
+            } catch (IOException e) {
+                // A line torn by a crash: that shard is reviewed again
+            }
+        }
+        return done;
+    }
+
+    // A crash can leave a partial last line; start the next entry on a line of its own
+    private void endTornLine() throws IOException {
+        if (!Files.exists(checkpoint) || Files.size(checkpoint) == 0) {
+            return;
+        }
+        try (var channel = Files.newByteChannel(checkpoint, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.position(channel.size() - 1).read(last);
+            if (last.get(0) != '\n') {
+                channel.position(channel.size()).write(ByteBuffer.wrap(new byte[] {'\n'}));
+            }
+        }
+    }
+
+    // ---- Reduce ----
+
+    // The reduce session still running at the deadline is stopped like the map sessions
+    private Turn reduceWithin(List<ShardResult> results, long deadline) throws InterruptedException {
+        Thread watchdog = Thread.ofVirtual().start(() -> {
+            try {
+                TimeUnit.NANOSECONDS.sleep(deadline - System.nanoTime());
+                running.forEach(MapReduceReviewer::stop);
+            } catch (InterruptedException e) {
+                // Reduce finished in time
+            }
+        });
+        try {
+            return reduce(results, deadline);
+        } finally {
+            watchdog.interrupt();
+            watchdog.join();
+        }
+    }
+
+    private Turn reduce(List<ShardResult> results, long deadline) {
+        List<String> findings = results.stream()
+                .filter(r -> !r.findings().isBlank() && !r.findings().equalsIgnoreCase("NONE"))
+                .map(r -> "## " + r.shard().label() + "\n" + r.findings() + "\n")
+                .toList();
+        if (findings.isEmpty()) {
+            return new Turn("No findings.", 0, 0);
+        }
+        double cost = 0;
+        // Reduce in batches until everything fits in one prompt, or the rounds or the budget run out
+        for (int round = 1; round <= MAX_REDUCE_ROUNDS; round++) {
+            List<String> batches = batches(findings);
+            try {
+                if (batches.size() == 1) {
+                    Turn turn = ask(orchestrator, "Merge these review findings into one report:\n\n" + batches.get(0),
+                            deadline);
+                    return new Turn(turn.text(), turn.durationMs(), cost + turn.costUsd());
+                }
+                List<String> merged = new ArrayList<>();
+                for (String batch : batches) {
+                    Turn turn = ask(orchestrator, "Merge these review findings, keeping path:line references:\n\n"
+                            + batch, deadline);
+                    merged.add(turn.text() + "\n");
+                    cost += turn.costUsd();
+                }
+                findings = merged;
+            } catch (RuntimeException e) {
+                if (System.nanoTime() - deadline < 0) {
+                    throw e;
+                }
+                return unmerged("Reduce ran out of budget", findings, cost);
+            }
+        }
+        return unmerged("Reduce did not fit in " + MAX_REDUCE_ROUNDS + " rounds", findings, cost);
+    }
+
+    private static Turn unmerged(String reason, List<String> findings, double cost) {
+        return new Turn(reason + "; findings are not merged:\n\n" + String.join("\n", findings), 0, cost);
+    }
+
+    private List<String> batches(List<String> findings) {
+        List<String> batches = new ArrayList<>();
+        StringBuilder batch = new StringBuilder();
+        for (String f : findings) {
+            if (!batch.isEmpty() && batch.length() + f.length() > maxReduceChars) {
+                batches.add(batch.toString());
+                batch.setLength(0);
+            }
+            batch.append(f).append('\n');
+        }
+        batches.add(batch.toString());
+        return batches;
+    }
+
+    // ---- Sessions ----
+
+    // A new session per attempt, up to maxAttempts; none is started after the deadline
+    private Turn ask(Supplier<ClaudeSyncClient> clients, String prompt, long deadline) {
+        RuntimeException last = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                return askOnce(clients, prompt, deadline);
+            } catch (RuntimeException e) {
+                last = e;
+                if (System.nanoTime() - deadline >= 0) {
+                    break;
+                }
+            }
+        }
+        throw last;
+    }
+
+    private Turn askOnce(Supplier<ClaudeSyncClient> clients, String prompt, long deadline) {
+        try (ClaudeSyncClient client = clients.get()) {
+            running.add(client);
+            try {
+                // Registered after the deadline: the stop() sweep may already have passed
+                if (System.nanoTime() - deadline >= 0) {
+                    throw new IllegalStateException("Out of budget");
+                }
+                client.connect(prompt);
+                StringBuilder text = new StringBuilder();
+                Iterator<ParsedMessage> response = client.receiveResponse();
+                while (response.hasNext()) {
+                    ParsedMessage msg = response.next();
+                    if (msg.isRegularMessage()) {
+                        if (msg.asMessage() instanceof AssistantMessage am) {
+                            am.getTextContent().ifPresent(text::append);
+                        } else if (msg.asMessage() instanceof ResultMessage rm) {
+                            if (rm.isError()) {
+                                throw new IllegalStateException(rm.result());
+                            }
+                            return new Turn(text.toString(), rm.durationMs(),
+                                    rm.totalCostUsd() != null ? rm.totalCostUsd() : 0);
+                        }
+                    }
+                }
+                throw new IllegalStateException("No result message");
+            } finally {
+                running.remove(client);
+            }
+        }
+    }
+
+    // Interrupt the turn and end the CLI process
+    private static void stop(ClaudeSyncClient client) {
+        try {
+            client.interrupt();
+        } catch (RuntimeException e) {
+            // Already ending; close() below is what stops the process
+        }
+        client.close();
+    }
+
+    private static ClaudeSyncClient client(String systemPrompt, Path workingDirectory) {
+        CLIOptions options = CLIOptions.builder()
+                .model(CLIOptions.MODEL_HAIKU)
+                .systemPrompt(systemPrompt)
+                .allowedTools(READ_ONLY_TOOLS)
+                .disallowedTools(List.of("Bash", "Write", "Edit", "WebFetch", "WebSearch"))
+                .build();
+        return ClaudeClient.sync(options).workingDirectory(workingDirectory).build();
+    }
+
+    private static String sha256(List<String> parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+                digest.update((bytes.length + ":").getBytes(StandardCharsets.UTF_8));
+                digest.update(bytes);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static class Builder {
+        private Path root = Path.of(".");
+        private String include = "glob:**.java";
+        private int maxShardFiles = 25;
+        private long maxShardBytes = 48 * 1024;
+        private int concurrency = 4;
+        private Duration budget = Duration.ofMinutes(30);
+        private Duration reduceReserve;
+        private int maxReduceChars = 60_000;
+        private int maxAttempts = 2;
+        private Path checkpoint;
+        private Supplier<ClaudeSyncClient> workers;
+        private Supplier<ClaudeSyncClient> orchestrator;
+        private Consumer<ShardResult> onShard = result -> { };
+
+        public Builder root(Path root) {
+            this.root = root;
+            return this;
+        }
+
+        /**
+         * Which files to review, as a PathMatcher pattern on paths relative to root; default "glob:**.java".
+         */
+        public Builder include(String syntaxAndPattern) {
+            this.include = syntaxAndPattern;
+            return this;
+        }
+
+        public Builder maxShardFiles(int maxShardFiles) {
+            this.maxShardFiles = maxShardFiles;
+            return this;
+        }
+
+        public Builder maxShardBytes(long maxShardBytes) {
+            this.maxShardBytes = maxShardBytes;
+            return this;
+        }
+
+        /**
+         * Worker sessions running at the same time; default 4.
+         */
+        public Builder concurrency(int concurrency) {
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Wall-clock budget for the whole run, reduce included; default 30 minutes.
+         */
+        public Builder budget(Duration budget) {
+            this.budget = budget;
+            return this;
+        }
+
+        /**
+         * Part of the budget kept for the reduce step; default a tenth of the budget.
+         */
+        public Builder reduceReserve(Duration reduceReserve) {
+            this.reduceReserve = reduceReserve;
+            return this;
+        }
+
+        public Builder maxReduceChars(int maxReduceChars) {
+            this.maxReduceChars = maxReduceChars;
+            return this;
+        }
+
+        /**
+         * Sessions tried per shard or reduce call; a shard that fails them all is retried on the next run. Default 2.
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * JSONL file of finished shards, appended to as they complete and read on start. No checkpoint by default.
+         */
+        public Builder checkpoint(Path checkpoint) {
+            this.checkpoint = checkpoint;
+            return this;
+        }
+
+        /**
+         * A new worker session per shard; default haiku with WORKER_PROMPT as system prompt.
+         */
+        public Builder workers(Supplier<ClaudeSyncClient> workers) {
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * A new orchestrator session per reduce call; default haiku with ORCHESTRATOR_PROMPT as system prompt.
+         */
+        public Builder orchestrator(Supplier<ClaudeSyncClient> orchestrator) {
+            this.orchestrator = orchestrator;
+            return this;
+        }
+
+        /**
+         * Called for every finished shard, one at a time, as it completes; resumed shards are passed first.
+         */
+        public Builder onShard(Consumer<ShardResult> onShard) {
+            this.onShard = onShard;
+            return this;
+        }
+
+        public MapReduceReviewer build() {
+            return new MapReduceReviewer(this);
+        }
+    }
+}
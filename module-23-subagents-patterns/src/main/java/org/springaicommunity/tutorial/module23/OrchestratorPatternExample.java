@@ -24,12 +24,9 @@ import java.util.Iterator;
 
 public class OrchestratorPatternExample {
 
-    public static void main(String[] args) {
-        System.out.println("=== Module 23: Subagent Patterns - Orchestrator ===\n");
-
-        // Define the orchestrator pattern: master + specialized workers
-        // Simplified to 2 workers for faster execution
-        String agentsJson = """
+    // Define the orchestrator pattern: master + specialized workers
+    // Simplified to 2 workers for faster execution
+    static final String AGENTS_JSON = """
             {
               "orchestrator": {
                 "description": "Master agent that coordinates analysis and synthesizes results",
@@ -46,6 +43,9 @@ public class OrchestratorPatternExample {
             }
             """;
 
+    public static void main(String[] args) {
+        System.out.println("=== Module 23: Subagent Patterns - Orchestrator ===\n");
+
         System.out.println("[Pattern] Orchestrator Pattern");
         System.out.println("[Agents] Defined hierarchical team:");
         System.out.println("  - orchestrator: Coordinates workflow (MASTER)");
@@ -55,7 +55,7 @@ public class OrchestratorPatternExample {
         CLIOptions options = CLIOptions.builder()
                 .model(CLIOptions.MODEL_HAIKU)
                 .permissionMode(PermissionMode.BYPASS_PERMISSIONS)
-                .agents(agentsJson)
+                .agents(AGENTS_JSON)
                 .build();
 
         System.out.println("\n--- Starting Orchestrated Analysis ---\n");